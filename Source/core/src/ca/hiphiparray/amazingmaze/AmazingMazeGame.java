@@ -19,8 +19,12 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.FloatCounter;
 
 /**
  * Main game class. Manages program flow.
@@ -35,6 +39,11 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
  */
 public class AmazingMazeGame extends Game {
 
+	/** The most unused canvas tiles to keep around for the next level, enough to cover a 1080p screen. */
+	private static final int CANVAS_TILE_POOL_SIZE = 128;
+	/** How many of the latest inputs the recent input latency is averaged over. */
+	private static final int LATENCY_WINDOW = 60;
+
 	/** The SpriteBatch to use for drawing. */
 	protected SpriteBatch batch;
 	/** The {@link Assets} instance used for loading assets into and from. */
@@ -50,40 +59,230 @@ public class AmazingMazeGame extends Game {
 	protected SettingsScreen settingsScreen;
 	/** The high scores screen. */
 	protected HighScoresScreen highScoresScreen;
+	/** The maze screen, reset with {@link MazeScreen#setLevel(LevelSnapshot)} for every level. */
+	protected MazeScreen mazeScreen;
+	/** The tutorial screen, reset with {@link MazeScreen#setLevel(LevelSnapshot)} every time it is shown. */
+	protected HelpScreen helpScreen;
+	/** The fish minigame, reset with {@link FishMiniGame#startRound(Player)} after every level. */
+	protected FishMiniGame fishMiniGame;
+	/** The screen shown after losing or finishing a set of levels, reset with {@link ContinueScreen#setWon(boolean)}. */
+	protected ContinueScreen continueScreen;
+	/** The credits screen. */
+	protected CreditsScreen creditsScreen;
 
 	/** The settings for the game. */
 	protected Save save;
+	/** The shared classroom leaderboard, or {@code null} if high scores are only kept on this computer. */
+	protected LeaderboardClient leaderboard;
+
+	/** The host name of the leaderboard server, or {@code null} if there is none. */
+	private final String leaderboardHost;
+	/** The port of the leaderboard server. */
+	private final int leaderboardPort;
+
+	/** Streams the levels being played to the teacher's spectator viewer, or {@code null} if nobody is watching. */
+	protected SpectatorStream spectator;
+
+	/** The host name of the spectator viewer, or {@code null} if there is none. */
+	private final String spectatorHost;
+	/** The port of the spectator viewer. */
+	private final int spectatorPort;
+
+	/** If the maze logic runs on its own thread at a fixed rate, instead of once per frame on the rendering thread. */
+	protected boolean simulationThread;
+
+	/** How much is logged. */
+	private int logLevel = Application.LOG_INFO;
+	/** How long it takes for steering input to show up on the screen, in milliseconds. */
+	protected final FloatCounter inputLatency = new FloatCounter(LATENCY_WINDOW);
+
+	/** Moves between screens, preparing them in the background. */
+	protected ScreenTransition transition;
+
+	/** Recycles the tiles of the fish minigame canvas between levels. */
+	protected CanvasTile.TilePool canvasTiles;
+
+	/** Create the game with high scores only kept on this computer. */
+	public AmazingMazeGame() {
+		this(null, 0, null, 0);
+	}
+
+	/**
+	 * Create the game, sharing high scores with a {@link LeaderboardClient leaderboard server}
+	 * and streaming the levels being played to a {@link SpectatorStream spectator viewer}.
+	 * High scores are still kept on this computer, so they can be shown when the server can not be reached.
+	 *
+	 * @param leaderboardHost the host name of the leaderboard server, or {@code null} if there is none.
+	 * @param leaderboardPort the port of the leaderboard server.
+	 * @param spectatorHost the host name of the spectator viewer, or {@code null} if there is none.
+	 * @param spectatorPort the port of the spectator viewer.
+	 */
+	public AmazingMazeGame(String leaderboardHost, int leaderboardPort, String spectatorHost, int spectatorPort) {
+		this.leaderboardHost = leaderboardHost;
+		this.leaderboardPort = leaderboardPort;
+		this.spectatorHost = spectatorHost;
+		this.spectatorPort = spectatorPort;
+	}
+
+	/**
+	 * Setter for {@link #simulationThread}. Takes effect from the next level.
+	 *
+	 * @param simulationThread if the maze logic should run on its own thread.
+	 */
+	public void setSimulationThread(boolean simulationThread) {
+		this.simulationThread = simulationThread;
+	}
+
+	/**
+	 * Setter for {@link #logLevel}.
+	 *
+	 * @param logLevel the log level, like {@link Application#LOG_DEBUG}.
+	 */
+	public void setLogLevel(int logLevel) {
+		this.logLevel = logLevel;
+	}
+
+	/**
+	 * Getter for {@link #inputLatency}.
+	 * The {@link FloatCounter#mean} is over the latest inputs, and the rest of its values are over every input since the game started.
+	 *
+	 * @return how long it takes for steering input to show up on the screen, in milliseconds.
+	 */
+	public FloatCounter getInputLatency() {
+		return inputLatency;
+	}
 
 	@Override
 	public void create() {
+		Gdx.app.setLogLevel(logLevel);
 		save = new Save();
-		batch = new SpriteBatch();
+		if (leaderboardHost != null) {
+			leaderboard = new LeaderboardClient(leaderboardHost, leaderboardPort);
+		}
+		if (spectatorHost != null) {
+			spectator = new SpectatorStream(spectatorHost, spectatorPort);
+		}
 		assets = new Assets();
+		batch = new FieldFontBatch(assets.fontShader);
+		transition = new ScreenTransition(this);
+		canvasTiles = new CanvasTile.TilePool(CANVAS_TILE_POOL_SIZE);
+
+		this.setScreen(new SplashScreen(this));
+	}
+
+	/**
+	 * Create the music manager and the screens.
+	 * Every screen is only created once, and the ones that show a level are reset for each new level instead of being replaced,
+	 * so moving between screens does not build new stages and widgets.
+	 * This must only be called once {@link Assets#update(int)} has finished loading everything.
+	 */
+	protected void setupScreens() {
 		music = new MusicManager(this);
 
 		settingsScreen = new SettingsScreen(this);
 		menuScreen = new MainMenuScreen(this);
 		storyScreen = new StoryScreen(this);
 		highScoresScreen = new HighScoresScreen(this);
+		mazeScreen = new MazeScreen(this, false);
+		helpScreen = new HelpScreen(this);
+		fishMiniGame = new FishMiniGame(this);
+		continueScreen = new ContinueScreen(this);
+		creditsScreen = new CreditsScreen(this);
 
 		settingsScreen.setSourceScreen(menuScreen);
+	}
 
-		this.setScreen(new SplashScreen(this));
+	/**
+	 * Start a level on the {@link #mazeScreen}, and move to it once the level has been generated.
+	 *
+	 * @param snapshot the snapshot to resume the level from, or {@code null} to start the current level in the save from the beginning.
+	 */
+	protected void playLevel(LevelSnapshot snapshot) {
+		playLevel(mazeScreen, snapshot);
+	}
+
+	/**
+	 * Start a level on a maze screen, and move to it once the level has been generated.
+	 * Ignored if another screen is already being prepared.
+	 *
+	 * @param screen the screen to play the level on.
+	 * @param snapshot the snapshot to resume the level from, or {@code null} to start the level from the beginning.
+	 */
+	protected void playLevel(MazeScreen screen, LevelSnapshot snapshot) {
+		if (transition.isPreparing()) {
+			return;
+		}
+		screen.setLevel(snapshot);
+		transition.start(screen);
 	}
 
 	@Override
 	public void render() {
+		if (assets.updateFonts() && screen != null) { // Let the screen pick up the new fonts.
+			screen.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		}
 		super.render();
+		transition.render(Gdx.graphics.getDeltaTime());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <br>
+	 * Screens that only change in response to input, scene2d actions, or music events are not redrawn continuously.
+	 * Input and actions request new frames by themselves, and so do the tasks posted by the {@link MusicManager}.
+	 */
+	@Override
+	public void setScreen(Screen screen) {
+		Gdx.graphics.setContinuousRendering(!isIdleScreen(screen) || transition.isRunning());
+		super.setScreen(screen);
+	}
+
+	/** Stop rendering continuously if the current screen does not need it, once a transition has finished. */
+	protected void updateContinuousRendering() {
+		Gdx.graphics.setContinuousRendering(!isIdleScreen(screen));
+	}
+
+	/**
+	 * Check if the given screen can be drawn only when something changes, instead of every frame.
+	 *
+	 * @param screen the screen to check.
+	 * @return if the screen has no animations that run on their own.
+	 */
+	private boolean isIdleScreen(Screen screen) {
+		return screen == menuScreen || screen == storyScreen || screen == settingsScreen || screen == highScoresScreen || screen == continueScreen;
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		super.resize(width, height);
+		assets.resize();
 	}
 
 	@Override
 	public void dispose() {
-		settingsScreen.dispose();
-		menuScreen.dispose();
-		storyScreen.dispose();
-		highScoresScreen.dispose();
+		if (menuScreen != null) { // The game may be closed before loading finishes.
+			settingsScreen.dispose();
+			menuScreen.dispose();
+			storyScreen.dispose();
+			highScoresScreen.dispose();
+			mazeScreen.dispose();
+			helpScreen.dispose();
+			fishMiniGame.dispose();
+			continueScreen.dispose();
+			creditsScreen.dispose();
+			music.dispose();
+		}
+		transition.dispose();
 		batch.dispose();
+		canvasTiles.dispose();
 		assets.dispose();
+		save.dispose();
+		if (leaderboard != null) {
+			leaderboard.dispose();
+		}
+		if (spectator != null) {
+			spectator.dispose();
+		}
 		super.dispose();
 	}
 }
@@ -19,30 +19,45 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze;
 
+import java.util.WeakHashMap;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
-import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
-import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader.FreeTypeFontLoaderParameter;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.CheckBox.CheckBoxStyle;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton.TextButtonStyle;
+import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField.TextFieldStyle;
+import com.badlogic.gdx.scenes.scene2d.ui.Window;
 import com.badlogic.gdx.scenes.scene2d.ui.Window.WindowStyle;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 
 /**
  * Class to easily manage assets, furthering the capabilities of an {@link AssetManager};
@@ -79,6 +94,9 @@ public class Assets implements Disposable {
 	/** The name of the white sans label style in the UI skin. */
 	protected static final String WHITE_SANS_STYLE = "white-sans";
 
+	/** The location of the UI skin. */
+	private static final String SKIN_LOCATION = "ui/flat-earth-ui.json";
+
 	/** The location of the tile atlas. */
 	protected static final String GAME_ATLAS_LOCATION = "game/pack.atlas";
 
@@ -102,6 +120,18 @@ public class Assets implements Disposable {
 	/** The font size for large text. */
 	protected static final int LARGE_FONT_SIZE = 128;
 
+	/** If fonts should be drawn from distance fields, so that every size of a font shares one set of glyph pages. */
+	private static final boolean USE_DISTANCE_FIELD_FONTS = true;
+	/** How far, in pixels, the distance fields extend outside of each glyph. */
+	private static final int DISTANCE_FIELD_SPREAD = 4;
+
+	/** How many font size buckets there are each time the font size doubles. */
+	private static final int FONT_BUCKETS_PER_OCTAVE = 4;
+	/** The smallest size, in pixels, that fonts are generated at. */
+	private static final int MIN_FONT_BUCKET = 8;
+	/** How many loaded font buckets that are not currently used are kept, in case their size is needed again. */
+	private static final int IDLE_FONT_BUCKETS = 8;
+
 	/** The game logo. */
 	protected static final String GAME_LOGO = "logos/game.png";
 	/** The company logo. */
@@ -147,10 +177,11 @@ public class Assets implements Disposable {
 	/** The atlas name of the cheese tile. */
 	private static final String CHEESE = "cheese";
 
-	/** The string appended to the end of atlas names for their on variation. */
+	/**
+	 * The string appended to the end of atlas names for their on variation.
+	 * It is also the variation the map tiles use, which {@link CircuitRenderer} recolours for the other states.
+	 */
 	protected static final String ON_MODIFIER = "-on";
-	/** The string appended to the end of atlas names for their off variation. */
-	protected static final String OFF_MODIFIER = "-off";
 	/** The string appended to the end of atlas names for their unknown variation. */
 	protected static final String UNKNOWN_MODIFIER = "-unknown";
 
@@ -212,25 +243,59 @@ public class Assets implements Disposable {
 	/** The mouse walking right animation. */
 	protected static Animation<TextureRegion> mouseRight;
 
+	/** The asset names of the fonts that have been queued for loading. */
+	private final ObjectSet<String> queuedFonts = new ObjectSet<String>();
+
+	/** If {@link #finishSetup()} has been run. */
+	private boolean setupFinished;
+
+	/**
+	 * The shader used to draw distance field fonts, or {@code null} if bitmap fonts are used.
+	 * It draws everything else like the default {@link SpriteBatch} shader, so the game's {@link FieldFontBatch} draws everything with it.
+	 */
+	protected ShaderProgram fontShader;
+	/** The fonts handed out by {@link #getFont(String, int)}, keyed by {@link #getFontKey(String, int)}. */
+	private final ObjectMap<String, ScaledFont> scaledFonts = new ObjectMap<String, ScaledFont>();
+	/**
+	 * Fonts that were handed out before a resize, mapped to what they were replaced with.
+	 * They are only weakly held, so they are removed once no widget style uses them, even one that is not on a stage.
+	 */
+	private final WeakHashMap<BitmapFont, RetiredFont> retiredFonts = new WeakHashMap<BitmapFont, RetiredFont>();
+	/** The asset names of the loaded font buckets, from least to most recently used. */
+	private final Array<String> fontBuckets = new Array<String>();
+	/** If the screen was resized and the fonts have not been updated for the new size yet. */
+	private boolean fontsResized;
+
 	/**
 	 * {@link Assets} constructor.
-	 * Calling this constructor loads in all of the game assets.
+	 * Only the assets needed by the {@link SplashScreen} are loaded here, everything else is queued
+	 * and loaded incrementally by calling {@link #update(int)} once per frame.
 	 * As such, only one {@link Assets} instance should ever be created.
 	 */
 	public Assets() {
 		manager = new AssetManager();
 
-		// Allow loading FreeTypeFonts.
+		// Allow loading FreeTypeFonts, caching the generated fonts on disk.
 		FileHandleResolver resolver = new InternalFileHandleResolver();
 		manager.setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
-		manager.setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
+		manager.setLoader(BitmapFont.class, ".ttf", new CachedFontLoader(resolver));
+
+		if (USE_DISTANCE_FIELD_FONTS) {
+			try {
+				fontShader = DistanceFieldFont.createDistanceFieldShader();
+			} catch (IllegalArgumentException e) { // Fall back to bitmap fonts.
+				Gdx.app.error("Assets", "Could not compile the distance field font shader.", e);
+			}
+		}
 
-		loadSkin();
-		loadMapResources();
-		setupMouseAnimation();
+		// The splash screen is the only thing that has to be ready for the first frame.
+		manager.load(COMPANY_LOGO, Texture.class);
+		manager.finishLoadingAsset(COMPANY_LOGO);
+
+		manager.load(GAME_ATLAS_LOCATION, TextureAtlas.class);
+		queueSkin();
 
 		manager.load(GAME_LOGO, Texture.class);
-		manager.load(COMPANY_LOGO, Texture.class);
 		manager.load(LIFE_HUD_IMAGE, Texture.class);
 		manager.load(MENU_BACKGROUND_IMAGE, Texture.class);
 		manager.load(MINI_BACKGROUND, Texture.class);
@@ -242,7 +307,48 @@ public class Assets implements Disposable {
 
 		loadMusic();
 
+		setupFinished = false;
+	}
+
+	/**
+	 * Continue loading the queued assets, spending at most roughly the given amount of time.
+	 * Once everything is loaded, the skin, tiles, and animations are set up.
+	 *
+	 * @param budgetMillis how many milliseconds may be spent loading this call.
+	 * @return if all of the assets are loaded and ready to use.
+	 */
+	public boolean update(int budgetMillis) {
+		if (setupFinished) {
+			return true;
+		}
+		if (manager.update(budgetMillis)) {
+			finishSetup();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the loading progress.
+	 *
+	 * @return the fraction of queued assets that are loaded, in the range [0, 1].
+	 */
+	public float getProgress() {
+		return setupFinished ? 1 : manager.getProgress();
+	}
+
+	/** Block until every queued asset is loaded. */
+	public void finishLoading() {
 		manager.finishLoading();
+		update(0);
+	}
+
+	/** Helper method to set up everything that depends on the loaded assets. */
+	private void finishSetup() {
+		setupSkin();
+		loadMapResources();
+		setupMouseAnimation();
+		setupFinished = true;
 	}
 
 	/** Helper method to setup the mouse animation. */
@@ -259,19 +365,16 @@ public class Assets implements Disposable {
 		assert mouseRight.getKeyFrames().length == MOUSE_FRAME_COUNT : "mouseRight frame count does not match MOUSE_FRAME_COUNT.";
 	}
 
-	/** Helper method to load the game's music. */
+	/**
+	 * Helper method to load the game's music.
+	 * Only the menu song is needed right away, the {@link MusicManager} loads the others as they are needed.
+	 */
 	private void loadMusic() {
 		manager.load(MENU_SONG, Music.class);
-		manager.load(STORY_SONG, Music.class);
-		manager.load(MAZE_SONG, Music.class);
-		manager.load(MATH_SONG, Music.class);
-		manager.load(CREDITS_SONG, Music.class);
 	}
 
 	/** Helper method for loading the map resources. */
 	private void loadMapResources() {
-		manager.load(GAME_ATLAS_LOCATION, TextureAtlas.class);
-		manager.finishLoadingAsset(GAME_ATLAS_LOCATION);
 		TextureAtlas atlas = manager.get(Assets.GAME_ATLAS_LOCATION, TextureAtlas.class); // Reference used for readability.
 
 		tiles = new TiledMapTileSet();
@@ -288,51 +391,18 @@ public class Assets implements Disposable {
 		tiles.putTile(barrier.getId(), barrier);
 		tiles.putTile(placeholder.getId(), placeholder);
 
-		StaticTiledMapTile verticalOn = new StaticTiledMapTile(atlas.findRegion(VERTICAL + ON_MODIFIER));
-		StaticTiledMapTile verticalOff = new StaticTiledMapTile(atlas.findRegion(VERTICAL + OFF_MODIFIER));
-		StaticTiledMapTile verticalUnknown = new StaticTiledMapTile(atlas.findRegion(VERTICAL + UNKNOWN_MODIFIER));
-
-		verticalOn.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, TileIDs.ON));
-		verticalOff.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, TileIDs.OFF));
-		verticalUnknown.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, TileIDs.UNKNOWN));
-
-		tiles.putTile(verticalOn.getId(), verticalOn);
-		tiles.putTile(verticalOff.getId(), verticalOff);
-		tiles.putTile(verticalUnknown.getId(), verticalUnknown);
-
-		loadGates(atlas, ON_MODIFIER, UP_MODIFIER, TileIDs.ON, TileIDs.UP_GATE);
-		loadGates(atlas, ON_MODIFIER, DOWN_MODIFIER, TileIDs.ON, TileIDs.DOWN_GATE);
-		loadGates(atlas, OFF_MODIFIER, UP_MODIFIER, TileIDs.OFF, TileIDs.UP_GATE);
-		loadGates(atlas, OFF_MODIFIER, DOWN_MODIFIER, TileIDs.OFF, TileIDs.DOWN_GATE);
-		loadGates(atlas, UNKNOWN_MODIFIER, UP_MODIFIER, TileIDs.UNKNOWN, TileIDs.UP_GATE);
-		loadGates(atlas, UNKNOWN_MODIFIER, DOWN_MODIFIER, TileIDs.UNKNOWN, TileIDs.DOWN_GATE);
-
-		StaticTiledMapTile turnOnUpLeft = new StaticTiledMapTile(atlas.findRegion(TURN + ON_MODIFIER + UP_MODIFIER + LEFT_MODIFIER));
-		StaticTiledMapTile turnOffUpLeft = new StaticTiledMapTile(atlas.findRegion(TURN + OFF_MODIFIER + UP_MODIFIER + LEFT_MODIFIER));
-		StaticTiledMapTile turnOnUpRight = new StaticTiledMapTile(atlas.findRegion(TURN + ON_MODIFIER + UP_MODIFIER + RIGHT_MODIFIER));
-		StaticTiledMapTile turnOffUpRight = new StaticTiledMapTile(atlas.findRegion(TURN + OFF_MODIFIER + UP_MODIFIER + RIGHT_MODIFIER));
-		StaticTiledMapTile turnOnDownLeft = new StaticTiledMapTile(atlas.findRegion(TURN + ON_MODIFIER + DOWN_MODIFIER + LEFT_MODIFIER));
-		StaticTiledMapTile turnOffDownLeft = new StaticTiledMapTile(atlas.findRegion(TURN + OFF_MODIFIER + DOWN_MODIFIER + LEFT_MODIFIER));
-		StaticTiledMapTile turnOnDownRight = new StaticTiledMapTile(atlas.findRegion(TURN + ON_MODIFIER + DOWN_MODIFIER + RIGHT_MODIFIER));
-		StaticTiledMapTile turnOffDownRight = new StaticTiledMapTile(atlas.findRegion(TURN + OFF_MODIFIER + DOWN_MODIFIER + RIGHT_MODIFIER));
-
-		turnOnUpLeft.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.ON, TileIDs.UP_LEFT));
-		turnOffUpLeft.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.OFF, TileIDs.UP_LEFT));
-		turnOnUpRight.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.ON, TileIDs.UP_RIGHT));
-		turnOffUpRight.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.OFF, TileIDs.UP_RIGHT));
-		turnOnDownLeft.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.ON, TileIDs.DOWN_LEFT));
-		turnOffDownLeft.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.OFF, TileIDs.DOWN_LEFT));
-		turnOnDownRight.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.ON, TileIDs.DOWN_RIGHT));
-		turnOffDownRight.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.OFF, TileIDs.DOWN_RIGHT));
-
-		tiles.putTile(turnOnUpLeft.getId(), turnOnUpLeft);
-		tiles.putTile(turnOffUpLeft.getId(), turnOffUpLeft);
-		tiles.putTile(turnOnUpRight.getId(), turnOnUpRight);
-		tiles.putTile(turnOffUpRight.getId(), turnOffUpRight);
-		tiles.putTile(turnOnDownLeft.getId(), turnOnDownLeft);
-		tiles.putTile(turnOffDownLeft.getId(), turnOffDownLeft);
-		tiles.putTile(turnOnDownRight.getId(), turnOnDownRight);
-		tiles.putTile(turnOffDownRight.getId(), turnOffDownRight);
+		// Each wire and gate has one tile, in its on colours. The other electric states are recoloured by CircuitRenderer.
+		StaticTiledMapTile vertical = new StaticTiledMapTile(atlas.findRegion(VERTICAL + ON_MODIFIER));
+		vertical.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL));
+		tiles.putTile(vertical.getId(), vertical);
+
+		loadGates(atlas, UP_MODIFIER, TileIDs.UP_GATE);
+		loadGates(atlas, DOWN_MODIFIER, TileIDs.DOWN_GATE);
+
+		loadTurn(atlas, UP_MODIFIER + LEFT_MODIFIER, TileIDs.UP_LEFT);
+		loadTurn(atlas, UP_MODIFIER + RIGHT_MODIFIER, TileIDs.UP_RIGHT);
+		loadTurn(atlas, DOWN_MODIFIER + LEFT_MODIFIER, TileIDs.DOWN_LEFT);
+		loadTurn(atlas, DOWN_MODIFIER + RIGHT_MODIFIER, TileIDs.DOWN_RIGHT);
 
 		loadFish(atlas, BLUE_MODIFIER, TileIDs.BLUE);
 		loadFish(atlas, PURPLE_MODIFIER, TileIDs.PURPLE);
@@ -358,27 +428,38 @@ public class Assets implements Disposable {
 		tiles.putTile(fish.getId(), fish);
 	}
 
+	/**
+	 * Load the turn wire with the given parameters.
+	 *
+	 * @param atlas the {@link TextureAtlas} to load from.
+	 * @param directionName the name of the direction of the turn in the atlas.
+	 * @param directionID the directional ID of the turn in {@link TileIDs}.
+	 */
+	private void loadTurn(TextureAtlas atlas, String directionName, int directionID) {
+		StaticTiledMapTile turn = new StaticTiledMapTile(atlas.findRegion(TURN + ON_MODIFIER + directionName));
+		turn.setId(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, directionID));
+		tiles.putTile(turn.getId(), turn);
+	}
+
 	/**
 	 * Load all gates for the given parameters.
 	 *
 	 * @param atlas the {@link TextureAtlas} to load from.
-	 * @param electricStateName the name of the electrical state of the gates to load.
 	 * @param directionName the name of the direction of the gates to load.
-	 * @param electricID the ID of the electrical state of the gates to load.
 	 * @param directionID the directional ID of the gates to load.
 	 */
-	private void loadGates(TextureAtlas atlas, String electricStateName, String directionName, int electricID, int directionID) {
-		StaticTiledMapTile and = new StaticTiledMapTile(atlas.findRegion(AND_GATE + electricStateName + directionName));
-		StaticTiledMapTile nand = new StaticTiledMapTile(atlas.findRegion(NAND_GATE + electricStateName + directionName));
-		StaticTiledMapTile or = new StaticTiledMapTile(atlas.findRegion(OR_GATE + electricStateName + directionName));
-		StaticTiledMapTile nor = new StaticTiledMapTile(atlas.findRegion(NOR_GATE + electricStateName + directionName));
-		StaticTiledMapTile xor = new StaticTiledMapTile(atlas.findRegion(XOR_GATE + electricStateName + directionName));
-
-		and.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.AND_GATE, directionID, electricID));
-		nand.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.NAND_GATE, directionID, electricID));
-		or.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.OR_GATE, directionID, electricID));
-		nor.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.NOR_GATE, directionID, electricID));
-		xor.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.XOR_GATE, directionID, electricID));
+	private void loadGates(TextureAtlas atlas, String directionName, int directionID) {
+		StaticTiledMapTile and = new StaticTiledMapTile(atlas.findRegion(AND_GATE + ON_MODIFIER + directionName));
+		StaticTiledMapTile nand = new StaticTiledMapTile(atlas.findRegion(NAND_GATE + ON_MODIFIER + directionName));
+		StaticTiledMapTile or = new StaticTiledMapTile(atlas.findRegion(OR_GATE + ON_MODIFIER + directionName));
+		StaticTiledMapTile nor = new StaticTiledMapTile(atlas.findRegion(NOR_GATE + ON_MODIFIER + directionName));
+		StaticTiledMapTile xor = new StaticTiledMapTile(atlas.findRegion(XOR_GATE + ON_MODIFIER + directionName));
+
+		and.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.AND_GATE, directionID));
+		nand.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.NAND_GATE, directionID));
+		or.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.OR_GATE, directionID));
+		nor.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.NOR_GATE, directionID));
+		xor.setId(TileIDs.computeID(TileIDs.GATE_RANGE, TileIDs.XOR_GATE, directionID));
 
 		tiles.putTile(and.getId(), and);
 		tiles.putTile(nand.getId(), nand);
@@ -387,11 +468,23 @@ public class Assets implements Disposable {
 		tiles.putTile(xor.getId(), xor);
 	}
 
-	/** Load the UI skin. */
-	private void loadSkin() {
-		manager.load("ui/flat-earth-ui.json", Skin.class);
-		manager.finishLoadingAsset("ui/flat-earth-ui.json"); // Make sure the skin is loaded before continuing.
-		skin = manager.get("ui/flat-earth-ui.json", Skin.class); // Retrieve the skin.
+	/** Queue the UI skin and the fonts it uses. */
+	private void queueSkin() {
+		manager.load(SKIN_LOCATION, Skin.class);
+
+		queueFontSize(SANS_REGULAR, REGULAR_FONT_SIZE);
+		queueFontSize(MONO_REGULAR, REGULAR_FONT_SIZE);
+		queueFontSize(SANS_BOLD, LARGE_FONT_SIZE);
+		queueFontSize(SERIF_BOLD, LARGE_FONT_SIZE);
+		queueFontSize(SERIF_REGULAR, LARGE_FONT_SIZE);
+		queueFontSize(SERIF_REGULAR, REGULAR_FONT_SIZE);
+		queueFontSize(MONO_REGULAR, SMALL_FONT_SIZE);
+		queueFontSize(SANS_REGULAR, SMALL_FONT_SIZE);
+	}
+
+	/** Set the fonts of the loaded UI skin. */
+	private void setupSkin() {
+		skin = manager.get(SKIN_LOCATION, Skin.class);
 
 		// Set the fonts. This is not done in the .json in order to allow easier adjusting of font size
 		skin.get(LabelStyle.class).font = getFont(SANS_REGULAR, REGULAR_FONT_SIZE);
@@ -411,33 +504,374 @@ public class Assets implements Disposable {
 	}
 
 	/**
-	 * Return the given font, if it is loaded. The font will be lazily loaded if it is not loaded already.
+	 * Get the key a font is stored under in {@link #scaledFonts}.
 	 *
 	 * @param fontName the name of the font.
 	 * @param fontSize the size of the font.
-	 * @return the desired {@link BitmapFont}.
+	 * @return the key.
 	 */
-	protected BitmapFont getFont(String fontName, int fontSize) {
-		if (manager.containsAsset(fontName + fontSize + ".ttf")) {
-			return manager.get(fontName + fontSize + ".ttf");
-		}
-		FreeTypeFontLoaderParameter fontParams = new FreeTypeFontLoaderParameter();
-		fontParams.fontFileName = "fonts/" + fontName + ".ttf";
+	private static String getFontKey(String fontName, int fontSize) {
+		return fontName + fontSize;
+	}
+
+	/**
+	 * Get the asset name of a font bucket.
+	 *
+	 * @param fontName the name of the font.
+	 * @param bucketSize the size of the bucket, in pixels.
+	 * @return the name the font bucket is stored under in {@link #manager}.
+	 */
+	private String getBucketAssetName(String fontName, int bucketSize) {
+		return fontName + (fontShader != null ? "-df" : "-") + bucketSize + ".ttf";
+	}
 
+	/**
+	 * Get the size in pixels to draw a font of the given size at on this screen.
+	 *
+	 * @param fontSize the size of the font.
+	 * @return the size in pixels.
+	 */
+	private static float getPixelSize(int fontSize) {
 		float horizontalAdjust = Gdx.graphics.getWidth() / 1920f;
 		float verticalAdjust = Gdx.graphics.getHeight() / 1080f;
 		float totalAdjust = horizontalAdjust * verticalAdjust * 1.25f;
 		float screenSize = Math.min(horizontalAdjust, Math.min(verticalAdjust, totalAdjust));
 
-		fontParams.fontParameters.size = (int) (fontSize * Gdx.graphics.getDensity() * screenSize);
+		return fontSize * Gdx.graphics.getDensity() * screenSize;
+	}
+
+	/**
+	 * Get the size, in pixels, of the bucket that a font of the given size is scaled from on this screen.
+	 * Sizes are quantized so that small changes to the screen size only rescale the fonts instead of regenerating them.
+	 * Distance field fonts use the same bucket for every size, since they scale well.
+	 *
+	 * @param fontSize the size of the font.
+	 * @return the size of the bucket.
+	 */
+	private int getBucketSize(int fontSize) {
+		float pixelSize = getPixelSize(fontShader != null ? REGULAR_FONT_SIZE : fontSize);
+		int step = Math.round((float) (Math.log(Math.max(pixelSize, 1)) / Math.log(2)) * FONT_BUCKETS_PER_OCTAVE);
+		return Math.max(MIN_FONT_BUCKET, Math.round((float) Math.pow(2, step / (float) FONT_BUCKETS_PER_OCTAVE)));
+	}
+
+	/**
+	 * Queue the given font bucket to be loaded, if it is not loaded or queued already.
+	 *
+	 * @param fontName the name of the font.
+	 * @param bucketSize the size of the bucket, in pixels.
+	 * @return the asset name of the bucket.
+	 */
+	private String queueFont(String fontName, int bucketSize) {
+		String assetName = getBucketAssetName(fontName, bucketSize);
+		if (!queuedFonts.add(assetName)) {
+			return assetName;
+		}
+		fontBuckets.add(assetName);
+
+		CachedFontLoader.CachedFontParameter fontParams = new CachedFontLoader.CachedFontParameter();
+		fontParams.fontFileName = "fonts/" + fontName + ".ttf";
+		fontParams.fontParameters.size = bucketSize;
+		if (fontShader != null) {
+			fontParams.distanceField = true;
+			fontParams.spread = DISTANCE_FIELD_SPREAD;
+		} else { // Bitmap fonts are scaled slightly to fit their bucket.
+			fontParams.fontParameters.minFilter = TextureFilter.Linear;
+			fontParams.fontParameters.magFilter = TextureFilter.Linear;
+		}
 
-		manager.load(fontName + fontSize + ".ttf", BitmapFont.class, fontParams);
-		manager.finishLoadingAsset(fontName + fontSize + ".ttf");
-		return manager.get(fontName + fontSize + ".ttf");
+		manager.load(assetName, BitmapFont.class, fontParams);
+		return assetName;
+	}
+
+	/**
+	 * Queue the bucket of the given font size to be loaded, if it is not loaded or queued already.
+	 *
+	 * @param fontName the name of the font.
+	 * @param fontSize the size of the font.
+	 */
+	private void queueFontSize(String fontName, int fontSize) {
+		queueFont(fontName, getBucketSize(fontSize));
+	}
+
+	/**
+	 * Return the given font, scaled for the current screen size.
+	 * The font will be lazily loaded if it is not loaded already.
+	 * The font that is returned is replaced when the screen is resized, see {@link #refreshFonts(Stage)}.
+	 *
+	 * @param fontName the name of the font.
+	 * @param fontSize the size of the font.
+	 * @return the desired {@link BitmapFont}.
+	 */
+	protected BitmapFont getFont(String fontName, int fontSize) {
+		String key = getFontKey(fontName, fontSize);
+		ScaledFont scaled = scaledFonts.get(key);
+		if (scaled == null) {
+			scaled = new ScaledFont(fontName, fontSize);
+			updateScaledFont(scaled);
+			scaledFonts.put(key, scaled);
+		}
+		return scaled.font;
+	}
+
+	/**
+	 * Make the given font match the current screen size, loading its bucket if needed.
+	 * If the font is still in the same bucket it is rescaled in place, otherwise it is replaced.
+	 *
+	 * @param scaled the font to update.
+	 */
+	private void updateScaledFont(ScaledFont scaled) {
+		int bucketSize = getBucketSize(scaled.fontSize);
+		String bucket = queueFont(scaled.fontName, bucketSize);
+		if (!manager.isLoaded(bucket)) {
+			manager.finishLoadingAsset(bucket);
+		}
+		fontBuckets.removeValue(bucket, false);
+		fontBuckets.add(bucket);
+
+		float scale = getPixelSize(scaled.fontSize) / bucketSize;
+		if (bucket.equals(scaled.bucket)) {
+			scaled.font.getData().setScale(scale);
+			return;
+		}
+		if (scaled.font != null) {
+			retiredFonts.put(scaled.font, new RetiredFont(scaled, scaled.bucket));
+		}
+		scaled.font = scaleFont(manager.get(bucket, BitmapFont.class), scale);
+		scaled.bucket = bucket;
+	}
+
+	/**
+	 * Start loading the fonts needed for the current screen size.
+	 * This should be called whenever the screen is resized.
+	 * Once they are loaded, {@link #updateFonts()} swaps them in.
+	 */
+	public void resize() {
+		if (!setupFinished) {
+			return;
+		}
+		for (ScaledFont scaled : scaledFonts.values()) {
+			queueFontSize(scaled.fontName, scaled.fontSize);
+		}
+		fontsResized = true;
+	}
+
+	/**
+	 * Continue loading the fonts queued by {@link #resize()}.
+	 * Once they are all loaded, every font and the UI skin are switched over to them at once,
+	 * and font buckets that have gone unused the longest are unloaded.
+	 * This should be called once per frame.
+	 *
+	 * @return if the fonts were switched over, in which case any stages should be passed to {@link #refreshFonts(Stage)}.
+	 */
+	public boolean updateFonts() {
+		if (!fontsResized) {
+			return false;
+		}
+		if (!manager.update()) {
+			Gdx.graphics.requestRendering(); // Keep loading even if the screen is not being redrawn continuously.
+			return false;
+		}
+		for (ScaledFont scaled : scaledFonts.values()) {
+			updateScaledFont(scaled);
+		}
+		setupSkin();
+		evictFonts();
+		fontsResized = false;
+		return true;
+	}
+
+	/**
+	 * Unload the least recently used font buckets, keeping at most {@link #IDLE_FONT_BUCKETS} that are not in use.
+	 * A bucket is in use while a current font or a retired font that is still referenced is scaled from it,
+	 * since widgets that are not on a stage, like dialogs that are hidden, keep drawing with their old font until they are refreshed.
+	 */
+	private void evictFonts() {
+		ObjectSet<String> inUse = new ObjectSet<String>();
+		for (ScaledFont scaled : scaledFonts.values()) {
+			inUse.add(scaled.bucket);
+		}
+		for (RetiredFont retired : retiredFonts.values()) {
+			inUse.add(retired.bucket);
+		}
+		int idle = fontBuckets.size - inUse.size;
+		for (int i = 0; i < fontBuckets.size && idle > IDLE_FONT_BUCKETS; i++) {
+			String bucket = fontBuckets.get(i);
+			if (!inUse.contains(bucket)) {
+				manager.unload(bucket);
+				queuedFonts.remove(bucket);
+				fontBuckets.removeIndex(i--);
+				idle--;
+			}
+		}
+	}
+
+	/**
+	 * Get the font that currently replaces the given font.
+	 *
+	 * @param font a font returned by {@link #getFont(String, int)}.
+	 * @return the font to use in its place at the current screen size.
+	 */
+	protected BitmapFont getCurrentFont(BitmapFont font) {
+		RetiredFont retired = retiredFonts.get(font);
+		if (retired == null) {
+			return font;
+		}
+		if (!manager.isLoaded(retired.bucket)) { // The bucket was unloaded while a widget could still draw with it.
+			Gdx.app.error("Assets", "A widget was using a font from the unloaded bucket " + retired.bucket + ".");
+		}
+		return retired.scaled.font;
+	}
+
+	/**
+	 * Make every widget in the given stage use the fonts for the current screen size.
+	 * Screens should call this from {@link com.badlogic.gdx.Screen#resize(int, int)} for each of their stages.
+	 *
+	 * @param stage the stage to update.
+	 */
+	protected void refreshFonts(Stage stage) {
+		refreshFonts(stage.getRoot());
+	}
+
+	/**
+	 * Make the given actor and its children use the fonts for the current screen size.
+	 * Widgets that are kept while they are not on a stage, like dialogs that are shown more than once, should be passed to this when they are shown.
+	 *
+	 * @param actor the actor to update.
+	 */
+	protected void refreshFonts(Actor actor) {
+		if (actor instanceof Label) {
+			Label label = (Label) actor;
+			LabelStyle style = label.getStyle();
+			style.font = getCurrentFont(style.font);
+			label.setStyle(style);
+		} else if (actor instanceof TextButton) {
+			TextButton button = (TextButton) actor;
+			TextButtonStyle style = button.getStyle();
+			style.font = getCurrentFont(style.font);
+			button.setStyle(style);
+		} else if (actor instanceof TextField) {
+			TextField field = (TextField) actor;
+			TextFieldStyle style = field.getStyle();
+			style.font = getCurrentFont(style.font);
+			if (style.messageFont != null) {
+				style.messageFont = getCurrentFont(style.messageFont);
+			}
+			field.setStyle(style);
+		} else if (actor instanceof Window) {
+			Window window = (Window) actor;
+			WindowStyle style = window.getStyle();
+			style.titleFont = getCurrentFont(style.titleFont);
+			window.setStyle(style);
+		}
+		if (actor instanceof Group) {
+			for (Actor child : ((Group) actor).getChildren()) {
+				refreshFonts(child);
+			}
+		}
+	}
+
+	/**
+	 * Create a copy of a font drawn at a different scale.
+	 * The copy shares its glyphs and textures with the original, so it is very cheap.
+	 *
+	 * @param font the font to copy.
+	 * @param scale the scale to draw the copy at.
+	 * @return the scaled copy. It does not own its textures.
+	 */
+	private static BitmapFont scaleFont(BitmapFont font, float scale) {
+		BitmapFontData source = font.getData();
+		BitmapFontData data = new BitmapFontData();
+		data.flipped = source.flipped;
+		data.padTop = source.padTop;
+		data.padRight = source.padRight;
+		data.padBottom = source.padBottom;
+		data.padLeft = source.padLeft;
+		data.lineHeight = source.lineHeight;
+		data.capHeight = source.capHeight;
+		data.ascent = source.ascent;
+		data.descent = source.descent;
+		data.down = source.down;
+		data.blankLineScale = source.blankLineScale;
+		data.scaleX = source.scaleX;
+		data.scaleY = source.scaleY;
+		data.markupEnabled = source.markupEnabled;
+		data.cursorX = source.cursorX;
+		System.arraycopy(source.glyphs, 0, data.glyphs, 0, source.glyphs.length);
+		data.missingGlyph = source.missingGlyph;
+		data.spaceWidth = source.spaceWidth;
+		data.xHeight = source.xHeight;
+		data.breakChars = source.breakChars;
+		data.xChars = source.xChars;
+		data.capChars = source.capChars;
+
+		BitmapFont scaled;
+		if (font instanceof DistanceFieldFont) {
+			DistanceFieldFont fieldFont = new FieldFontBatch.FieldFont(data, font.getRegions(), font.usesIntegerPositions());
+			fieldFont.setDistanceFieldSmoothing(((DistanceFieldFont) font).getDistanceFieldSmoothing());
+			scaled = fieldFont;
+		} else {
+			scaled = new BitmapFont(data, font.getRegions(), font.usesIntegerPositions());
+		}
+		scaled.setOwnsTexture(false);
+		scaled.getData().setScale(scale);
+		return scaled;
+	}
+
+	/** A font handed out by {@link Assets#getFont(String, int)}, and the bucket it is scaled from. */
+	private static class ScaledFont {
+		/** The name of the font. */
+		private final String fontName;
+		/** The size of the font. */
+		private final int fontSize;
+		/** The asset name of the bucket {@link #font} is scaled from. */
+		private String bucket;
+		/** The font scaled for the current screen size. */
+		private BitmapFont font;
+
+		/**
+		 * Constructor for {@link ScaledFont}.
+		 *
+		 * @param fontName the name of the font.
+		 * @param fontSize the size of the font.
+		 */
+		public ScaledFont(String fontName, int fontSize) {
+			this.fontName = fontName;
+			this.fontSize = fontSize;
+		}
+	}
+
+	/** A font that was replaced by a resize, and the bucket it is scaled from. */
+	private static class RetiredFont {
+		/** The font that replaced it. */
+		private final ScaledFont scaled;
+		/** The asset name of the bucket the retired font is scaled from. */
+		private final String bucket;
+
+		/**
+		 * Constructor for {@link RetiredFont}.
+		 *
+		 * @param scaled the font that replaced it.
+		 * @param bucket the asset name of the bucket the retired font is scaled from.
+		 */
+		public RetiredFont(ScaledFont scaled, String bucket) {
+			this.scaled = scaled;
+			this.bucket = bucket;
+		}
 	}
 
 	@Override
 	public void dispose() {
+		for (ScaledFont scaled : scaledFonts.values()) {
+			scaled.font.dispose();
+		}
+		scaledFonts.clear();
+		for (BitmapFont retired : retiredFonts.keySet()) {
+			retired.dispose();
+		}
+		retiredFonts.clear();
 		manager.dispose();
+		if (fontShader != null) {
+			fontShader.dispose();
+		}
 	}
 }
@@ -0,0 +1,213 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * Draws brush strokes onto a {@link Pixmap} without allocating.
+ * <br>
+ * A round brush mask is stamped at every step of a Bresenham line. The stamps are not drawn one by one.
+ * Instead, the horizontal extent covered on each row is accumulated, and each row is filled once.
+ * This is exact because a round brush swept along a line covers a convex shape.
+ * <br>
+ * By default the rows are filled on a {@link Pixmap}. Subclasses can draw somewhere else by overriding {@link #fillSpan(int, int, int)}.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class BrushRasterizer {
+
+	/** The pixmap to draw on, or {@code null} if a subclass draws the rows itself. */
+	private final Pixmap pixmap;
+	/** The width of the area to draw on. */
+	private final int width;
+	/** The height of the area to draw on. */
+	private final int height;
+
+	/** The smallest x-coordinate covered on each row by the stroke being drawn. */
+	private final int[] rowMin;
+	/** The largest x-coordinate covered on each row by the stroke being drawn. */
+	private final int[] rowMax;
+
+	/** The radius of the brush. */
+	private int radius;
+	/** The half width of the brush on each of its rows, from the top row to the bottom row. */
+	private int[] mask;
+
+	/**
+	 * Constructor for {@link BrushRasterizer}.
+	 * Strokes are drawn with the pixmap's current colour.
+	 *
+	 * @param pixmap the pixmap to draw on.
+	 * @param radius the radius of the brush, in pixels.
+	 */
+	public BrushRasterizer(Pixmap pixmap, int radius) {
+		this(pixmap, pixmap.getWidth(), pixmap.getHeight(), radius);
+	}
+
+	/**
+	 * Constructor for subclasses that override {@link #fillSpan(int, int, int)}.
+	 *
+	 * @param width the width of the area to draw on.
+	 * @param height the height of the area to draw on.
+	 * @param radius the radius of the brush, in pixels.
+	 */
+	protected BrushRasterizer(int width, int height, int radius) {
+		this(null, width, height, radius);
+	}
+
+	/**
+	 * Constructor for {@link BrushRasterizer}.
+	 *
+	 * @param pixmap the pixmap to draw on, or {@code null} if a subclass draws the rows itself.
+	 * @param width the width of the area to draw on.
+	 * @param height the height of the area to draw on.
+	 * @param radius the radius of the brush, in pixels.
+	 */
+	private BrushRasterizer(Pixmap pixmap, int width, int height, int radius) {
+		this.pixmap = pixmap;
+		this.width = width;
+		this.height = height;
+		this.rowMin = new int[height];
+		this.rowMax = new int[height];
+		setRadius(radius);
+	}
+
+	/**
+	 * Change the radius of the brush.
+	 *
+	 * @param radius the radius of the brush, in pixels.
+	 */
+	public void setRadius(int radius) {
+		if (mask != null && this.radius == radius) {
+			return;
+		}
+		this.radius = radius;
+		mask = new int[2 * radius + 1];
+		for (int dy = -radius; dy <= radius; dy++) { // The slightly larger radius matches the shape of Pixmap.fillCircle.
+			mask[dy + radius] = (int) Math.sqrt(radius * radius + 0.8 * radius - dy * dy);
+		}
+	}
+
+	/**
+	 * Get the radius of the brush.
+	 *
+	 * @return the radius of the brush, in pixels.
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Draw a line with the brush.
+	 *
+	 * @param x0 the x-coordinate of the start of the line.
+	 * @param y0 the y-coordinate of the start of the line.
+	 * @param x1 the x-coordinate of the end of the line.
+	 * @param y1 the y-coordinate of the end of the line.
+	 */
+	public void drawLine(int x0, int y0, int x1, int y1) {
+		final int top = Math.max(0, Math.min(y0, y1) - radius);
+		final int bottom = Math.min(height - 1, Math.max(y0, y1) + radius);
+		if (top > bottom) {
+			return;
+		}
+		for (int row = top; row <= bottom; row++) {
+			rowMin[row] = Integer.MAX_VALUE;
+			rowMax[row] = Integer.MIN_VALUE;
+		}
+
+		// Bresenham's line algorithm, stamping the brush at every step.
+		final int dx = Math.abs(x1 - x0);
+		final int dy = -Math.abs(y1 - y0);
+		final int stepX = x0 < x1 ? 1 : -1;
+		final int stepY = y0 < y1 ? 1 : -1;
+		int error = dx + dy;
+		int x = x0;
+		int y = y0;
+		while (true) {
+			stamp(x, y, top, bottom);
+			if (x == x1 && y == y1) {
+				break;
+			}
+			int error2 = 2 * error;
+			if (error2 >= dy) {
+				error += dy;
+				x += stepX;
+			}
+			if (error2 <= dx) {
+				error += dx;
+				y += stepY;
+			}
+		}
+
+		for (int row = top; row <= bottom; row++) {
+			int min = Math.max(0, rowMin[row]);
+			int max = Math.min(width - 1, rowMax[row]);
+			if (min <= max) {
+				fillSpan(min, max, row);
+			}
+		}
+	}
+
+	/**
+	 * Fill part of a row. The span is always inside of the area being drawn on.
+	 *
+	 * @param minX the first x-coordinate to fill.
+	 * @param maxX the last x-coordinate to fill.
+	 * @param y the row to fill.
+	 */
+	protected void fillSpan(int minX, int maxX, int y) {
+		pixmap.fillRectangle(minX, y, maxX - minX + 1, 1);
+	}
+
+	/**
+	 * Draw a single dot with the brush.
+	 *
+	 * @param x the x-coordinate of the dot.
+	 * @param y the y-coordinate of the dot.
+	 */
+	public void drawDot(int x, int y) {
+		drawLine(x, y, x, y);
+	}
+
+	/**
+	 * Add the brush, centred at the given point, to the rows being drawn.
+	 *
+	 * @param x the x-coordinate of the centre of the brush.
+	 * @param y the y-coordinate of the centre of the brush.
+	 * @param top the first row being drawn.
+	 * @param bottom the last row being drawn.
+	 */
+	private void stamp(int x, int y, int top, int bottom) {
+		final int first = Math.max(top, y - radius);
+		final int last = Math.min(bottom, y + radius);
+		for (int row = first; row <= last; row++) {
+			int half = mask[row - y + radius];
+			if (x - half < rowMin[row]) {
+				rowMin[row] = x - half;
+			}
+			if (x + half > rowMax[row]) {
+				rowMax[row] = x + half;
+			}
+		}
+	}
+}
@@ -0,0 +1,651 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker.SkylineStrategy;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader.FreeTypeFontLoaderParameter;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Loads FreeType fonts, keeping a cache of the rasterized glyph pages and metrics on disk.
+ * The first time a font is requested at a given pixel size, it is generated with FreeType and written to the cache.
+ * Later requests read the prebuilt pages back in a single read instead of rasterizing the font again.
+ * <br>
+ * Cache entries are keyed by a checksum of the font file, the pixel size, and a checksum of the character set,
+ * so changing any of them simply results in a new entry.
+ * <br>
+ * Fonts loaded with a {@link CachedFontParameter} that has {@link CachedFontParameter#distanceField} set are
+ * generated as signed distance field fonts, which can be drawn at any size from a single set of glyph pages.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class CachedFontLoader extends AsynchronousAssetLoader<BitmapFont, FreeTypeFontLoaderParameter> {
+
+	/** The directory, relative to external storage, that cached fonts are kept in. */
+	private static final String CACHE_DIRECTORY = ".amazingmaze/fonts/";
+
+	/** The identifier written at the start of every cache file. */
+	private static final int MAGIC = 0x414D4643;
+	/** The version of the cache file format. Bump this whenever the format changes. */
+	private static final int VERSION = 1;
+
+	/** The largest page size used when packing glyphs. */
+	private static final int MAX_PAGE_SIZE = 1024;
+
+	/** How many times larger than the stored size distance field fonts are rasterized before computing the field. */
+	private static final int DISTANCE_FIELD_UPSCALE = 4;
+
+	/** Parameters for loading a font with a {@link CachedFontLoader}. */
+	public static class CachedFontParameter extends FreeTypeFontLoaderParameter {
+		/**
+		 * If the font should be generated as a distance field font.
+		 * The loaded font is then a {@link DistanceFieldFont} whose glyphs are stored at {@link FreeTypeFontParameter#size}.
+		 */
+		public boolean distanceField = false;
+		/** How far, in pixels of the stored font, the distance field extends outside of each glyph. */
+		public int spread = 4;
+	}
+
+	/** The font data read from the cache or generated by {@link #loadAsync}, waiting to be turned into a font. */
+	private CachedFont loaded;
+	/** The cache file of the font being loaded, or {@code null} if there is nowhere to keep a cache. */
+	private FileHandle cacheFile;
+
+	/**
+	 * Create a new {@link CachedFontLoader}.
+	 *
+	 * @param resolver the resolver to use for finding the font files.
+	 */
+	public CachedFontLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, FreeTypeFontLoaderParameter parameter) {
+		return null;
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, FreeTypeFontLoaderParameter parameter) {
+		if (parameter == null) {
+			throw new GdxRuntimeException("FreeTypeFontLoaderParameter must be set in AssetManager#load to point at a TTF file!");
+		}
+		loaded = null;
+		cacheFile = getCacheFile(resolve(parameter.fontFileName), parameter);
+		if (cacheFile != null && cacheFile.exists()) {
+			try {
+				loaded = decode(cacheFile.readBytes());
+			} catch (Exception e) {
+				Gdx.app.error("CachedFontLoader", "Discarding unreadable font cache " + cacheFile.name(), e);
+				cacheFile.delete();
+			}
+		}
+		if (loaded == null) { // Nothing usable in the cache, so generate the font now. Only pixmaps are used, so this is safe off the rendering thread.
+			byte[] bytes = generate(resolve(parameter.fontFileName), parameter);
+			if (cacheFile != null) {
+				writeCache(cacheFile, bytes);
+			}
+			try {
+				loaded = decode(bytes);
+			} catch (IOException e) {
+				throw new GdxRuntimeException("Could not read generated font " + parameter.fontFileName, e);
+			}
+		}
+	}
+
+	@Override
+	public BitmapFont loadSync(AssetManager manager, String fileName, FileHandle file, FreeTypeFontLoaderParameter parameter) {
+		CachedFont font = loaded;
+		loaded = null;
+		return font.createFont(parameter);
+	}
+
+	/**
+	 * Write a font to the cache. It is written to a temporary file first and then renamed,
+	 * so a crash while writing never leaves a half-written cache file behind.
+	 *
+	 * @param cacheFile the cache file.
+	 * @param bytes the encoded font.
+	 */
+	private static void writeCache(FileHandle cacheFile, byte[] bytes) {
+		FileHandle temp = cacheFile.sibling(cacheFile.name() + ".tmp");
+		try {
+			temp.writeBytes(bytes, false);
+			if (!temp.file().renameTo(cacheFile.file())) { // Some platforms will not rename over an existing file.
+				cacheFile.delete();
+				if (!temp.file().renameTo(cacheFile.file())) {
+					temp.delete();
+					Gdx.app.error("CachedFontLoader", "Could not replace font cache " + cacheFile.name());
+				}
+			}
+		} catch (GdxRuntimeException e) {
+			temp.delete();
+			Gdx.app.error("CachedFontLoader", "Could not write font cache " + cacheFile.name(), e);
+		}
+	}
+
+	/**
+	 * Get the cache file for the given font and parameters.
+	 *
+	 * @param fontFile the TTF file of the font.
+	 * @param parameter the parameters the font is loaded with.
+	 * @return the cache file, or {@code null} if there is nowhere to keep a cache.
+	 */
+	private static FileHandle getCacheFile(FileHandle fontFile, FreeTypeFontLoaderParameter parameter) {
+		if (!Gdx.files.isExternalStorageAvailable()) {
+			return null;
+		}
+		FreeTypeFontParameter parameters = parameter.fontParameters;
+		String variant = "";
+		if (isDistanceField(parameter)) {
+			variant = "-df" + ((CachedFontParameter) parameter).spread;
+		}
+		CRC32 fontChecksum = new CRC32();
+		fontChecksum.update(fontFile.readBytes());
+		CRC32 charsetChecksum = new CRC32();
+		try {
+			charsetChecksum.update(parameters.characters.getBytes("UTF-8"));
+		} catch (IOException e) {
+			charsetChecksum.update(parameters.characters.getBytes());
+		}
+		return Gdx.files.external(CACHE_DIRECTORY + fontFile.nameWithoutExtension() + "-" + parameters.size + variant + "-"
+			+ Long.toHexString(fontChecksum.getValue()) + "-" + Long.toHexString(charsetChecksum.getValue()) + ".bin");
+	}
+
+	/**
+	 * Check if the given parameters are for a distance field font.
+	 *
+	 * @param parameter the parameters to check.
+	 * @return if the font should be generated as a distance field font.
+	 */
+	private static boolean isDistanceField(FreeTypeFontLoaderParameter parameter) {
+		return parameter instanceof CachedFontParameter && ((CachedFontParameter) parameter).distanceField;
+	}
+
+	/**
+	 * Rasterize the given font with FreeType and encode it in the cache format.
+	 *
+	 * @param fontFile the TTF file of the font.
+	 * @param parameter the parameters to load the font with.
+	 * @return the encoded font.
+	 */
+	private static byte[] generate(FileHandle fontFile, FreeTypeFontLoaderParameter parameter) {
+		FreeTypeFontParameter parameters = parameter.fontParameters;
+		final boolean distanceField = isDistanceField(parameter);
+		final int upscale = distanceField ? DISTANCE_FIELD_UPSCALE : 1;
+
+		PixmapPacker packer = createPacker(parameters.size * upscale, parameters);
+
+		FreeTypeFontGenerator generator = new FreeTypeFontGenerator(fontFile);
+		FreeTypeFontParameter generatorParameters = copyParameters(parameters);
+		generatorParameters.size = parameters.size * upscale;
+		generatorParameters.packer = packer;
+		PixmapPacker fieldPacker = null;
+		try {
+			BitmapFontData data = generator.generateData(generatorParameters);
+			if (!distanceField) {
+				return encode(data, packer.getPages());
+			}
+			fieldPacker = createPacker(parameters.size + 2 * ((CachedFontParameter) parameter).spread, parameters);
+			toDistanceField(data, packer, fieldPacker, upscale, ((CachedFontParameter) parameter).spread);
+			return encode(data, fieldPacker.getPages());
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not encode font " + fontFile.name(), e);
+		} finally {
+			generator.dispose();
+			packer.dispose();
+			if (fieldPacker != null) {
+				fieldPacker.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Create a packer for glyphs of the given size.
+	 *
+	 * @param glyphSize the approximate size of the glyphs, in pixels.
+	 * @param parameters the parameters the font is generated with.
+	 * @return a new packer. The caller is responsible for disposing it.
+	 */
+	private static PixmapPacker createPacker(int glyphSize, FreeTypeFontParameter parameters) {
+		int pageSize = MathUtils.nextPowerOfTwo((int) Math.ceil(glyphSize * 1.5f * Math.sqrt(parameters.characters.length())));
+		pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+		PixmapPacker packer = new PixmapPacker(pageSize, pageSize, Format.RGBA8888, 1, false, new SkylineStrategy());
+		packer.setTransparentColor(new Color(parameters.color.r, parameters.color.g, parameters.color.b, 0));
+		return packer;
+	}
+
+	/**
+	 * Turn the rasterized glyphs in the given font into a signed distance field.
+	 * The glyph metrics are scaled down by {@code upscale} and the glyphs are grown by {@code spread} on each side.
+	 *
+	 * @param data the font data, rasterized at {@code upscale} times the final size. Modified in place.
+	 * @param source the packer the glyphs were rasterized into.
+	 * @param destination the packer to put the distance field glyphs into.
+	 * @param upscale how many times larger than the final size the glyphs were rasterized.
+	 * @param spread how far, in final pixels, the field extends outside of each glyph.
+	 */
+	private static void toDistanceField(BitmapFontData data, PixmapPacker source, PixmapPacker destination, int upscale, int spread) {
+		ObjectSet<Glyph> glyphs = new ObjectSet<Glyph>();
+		for (Glyph[] page : data.glyphs) {
+			if (page != null) {
+				for (Glyph glyph : page) {
+					if (glyph != null) {
+						glyphs.add(glyph);
+					}
+				}
+			}
+		}
+		if (data.missingGlyph != null) {
+			glyphs.add(data.missingGlyph);
+		}
+
+		int packed = 0;
+		for (Glyph glyph : glyphs) {
+			if (glyph.width > 0 && glyph.height > 0) {
+				Pixmap hiRes = source.getPages().get(glyph.page).getPixmap();
+				Pixmap field = DistanceField.generate(hiRes, glyph.srcX, glyph.srcY, glyph.width, glyph.height, upscale, spread);
+				String name = Integer.toString(packed++);
+				Rectangle rect = destination.pack(name, field);
+				field.dispose();
+
+				int bottomPadding = field.getHeight() * upscale - glyph.height - spread * upscale;
+				glyph.xoffset = Math.round(glyph.xoffset / (float) upscale) - spread;
+				glyph.yoffset = Math.round((glyph.yoffset - bottomPadding) / (float) upscale);
+				glyph.srcX = (int) rect.x;
+				glyph.srcY = (int) rect.y;
+				glyph.width = (int) rect.width;
+				glyph.height = (int) rect.height;
+				glyph.page = destination.getPageIndex(name);
+			} else {
+				glyph.xoffset = Math.round(glyph.xoffset / (float) upscale);
+				glyph.yoffset = Math.round(glyph.yoffset / (float) upscale);
+				glyph.width = 0;
+				glyph.height = 0;
+				glyph.page = 0;
+			}
+			glyph.xadvance = Math.round(glyph.xadvance / (float) upscale);
+			if (glyph.kerning != null) {
+				for (byte[] page : glyph.kerning) {
+					if (page != null) {
+						for (int i = 0; i < page.length; i++) {
+							page[i] = (byte) Math.round(page[i] / (float) upscale);
+						}
+					}
+				}
+			}
+		}
+
+		data.padTop /= upscale;
+		data.padRight /= upscale;
+		data.padBottom /= upscale;
+		data.padLeft /= upscale;
+		data.lineHeight /= upscale;
+		data.capHeight /= upscale;
+		data.ascent /= upscale;
+		data.descent /= upscale;
+		data.down /= upscale;
+		data.cursorX /= upscale;
+		data.spaceWidth /= upscale;
+		data.xHeight /= upscale;
+	}
+
+	/**
+	 * Make a copy of the given parameters, so that the caller's parameters are not modified.
+	 *
+	 * @param parameters the parameters to copy.
+	 * @return a copy of the parameters that affect rasterization.
+	 */
+	private static FreeTypeFontParameter copyParameters(FreeTypeFontParameter parameters) {
+		FreeTypeFontParameter copy = new FreeTypeFontParameter();
+		copy.size = parameters.size;
+		copy.mono = parameters.mono;
+		copy.hinting = parameters.hinting;
+		copy.color = parameters.color;
+		copy.gamma = parameters.gamma;
+		copy.renderCount = parameters.renderCount;
+		copy.borderWidth = parameters.borderWidth;
+		copy.borderColor = parameters.borderColor;
+		copy.borderStraight = parameters.borderStraight;
+		copy.borderGamma = parameters.borderGamma;
+		copy.shadowOffsetX = parameters.shadowOffsetX;
+		copy.shadowOffsetY = parameters.shadowOffsetY;
+		copy.shadowColor = parameters.shadowColor;
+		copy.spaceX = parameters.spaceX;
+		copy.spaceY = parameters.spaceY;
+		copy.characters = parameters.characters;
+		copy.kerning = parameters.kerning;
+		copy.flip = parameters.flip;
+		copy.incremental = false;
+		return copy;
+	}
+
+	/**
+	 * Encode the given font data and glyph pages.
+	 *
+	 * @param data the font metrics and glyphs.
+	 * @param pages the pages the glyphs were packed into.
+	 * @return the encoded font.
+	 * @throws IOException if the font could not be encoded.
+	 */
+	private static byte[] encode(BitmapFontData data, Array<PixmapPacker.Page> pages) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)));
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+
+		out.writeBoolean(data.flipped);
+		out.writeBoolean(data.markupEnabled);
+		out.writeFloat(data.padTop);
+		out.writeFloat(data.padRight);
+		out.writeFloat(data.padBottom);
+		out.writeFloat(data.padLeft);
+		out.writeFloat(data.lineHeight);
+		out.writeFloat(data.capHeight);
+		out.writeFloat(data.ascent);
+		out.writeFloat(data.descent);
+		out.writeFloat(data.down);
+		out.writeFloat(data.blankLineScale);
+		out.writeFloat(data.scaleX);
+		out.writeFloat(data.scaleY);
+		out.writeFloat(data.cursorX);
+		out.writeFloat(data.spaceWidth);
+		out.writeFloat(data.xHeight);
+
+		int glyphCount = 0;
+		for (Glyph[] page : data.glyphs) {
+			if (page != null) {
+				for (Glyph glyph : page) {
+					if (glyph != null) {
+						glyphCount++;
+					}
+				}
+			}
+		}
+		out.writeInt(glyphCount);
+		for (Glyph[] page : data.glyphs) {
+			if (page != null) {
+				for (Glyph glyph : page) {
+					if (glyph != null) {
+						writeGlyph(out, glyph);
+					}
+				}
+			}
+		}
+		out.writeBoolean(data.missingGlyph != null);
+		if (data.missingGlyph != null) {
+			writeGlyph(out, data.missingGlyph);
+		}
+
+		out.writeInt(pages.size);
+		for (PixmapPacker.Page page : pages) {
+			Pixmap pixmap = page.getPixmap();
+			out.writeInt(pixmap.getWidth());
+			out.writeInt(pixmap.getHeight());
+			out.writeUTF(pixmap.getFormat().name());
+			ByteBuffer pixels = pixmap.getPixels();
+			pixels.position(0);
+			byte[] buffer = new byte[pixels.remaining()];
+			pixels.get(buffer);
+			pixels.position(0);
+			out.writeInt(buffer.length);
+			out.write(buffer);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Write a single glyph, including its kerning pairs.
+	 *
+	 * @param out the stream to write to.
+	 * @param glyph the glyph to write.
+	 * @throws IOException if the glyph could not be written.
+	 */
+	private static void writeGlyph(DataOutputStream out, Glyph glyph) throws IOException {
+		out.writeInt(glyph.id);
+		out.writeInt(glyph.srcX);
+		out.writeInt(glyph.srcY);
+		out.writeInt(glyph.width);
+		out.writeInt(glyph.height);
+		out.writeInt(glyph.xoffset);
+		out.writeInt(glyph.yoffset);
+		out.writeInt(glyph.xadvance);
+		out.writeInt(glyph.page);
+		out.writeBoolean(glyph.fixedWidth);
+
+		int kerningCount = 0;
+		if (glyph.kerning != null) {
+			for (byte[] page : glyph.kerning) {
+				if (page != null) {
+					for (byte amount : page) {
+						if (amount != 0) {
+							kerningCount++;
+						}
+					}
+				}
+			}
+		}
+		out.writeInt(kerningCount);
+		if (kerningCount > 0) {
+			for (int p = 0; p < glyph.kerning.length; p++) {
+				byte[] page = glyph.kerning[p];
+				if (page != null) {
+					for (int i = 0; i < page.length; i++) {
+						if (page[i] != 0) {
+							out.writeInt(p * page.length + i);
+							out.writeByte(page[i]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decode a font from the cache format.
+	 *
+	 * @param bytes the encoded font.
+	 * @return the decoded font.
+	 * @throws IOException if the bytes are not a valid encoded font.
+	 */
+	private static CachedFont decode(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+		Array<Pixmap> pages = new Array<Pixmap>();
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a font cache file, or an old version.");
+			}
+
+			BitmapFontData data = new BitmapFontData();
+			data.flipped = in.readBoolean();
+			data.markupEnabled = in.readBoolean();
+			data.padTop = in.readFloat();
+			data.padRight = in.readFloat();
+			data.padBottom = in.readFloat();
+			data.padLeft = in.readFloat();
+			data.lineHeight = in.readFloat();
+			data.capHeight = in.readFloat();
+			data.ascent = in.readFloat();
+			data.descent = in.readFloat();
+			data.down = in.readFloat();
+			data.blankLineScale = in.readFloat();
+			data.scaleX = in.readFloat();
+			data.scaleY = in.readFloat();
+			data.cursorX = in.readFloat();
+			data.spaceWidth = in.readFloat();
+			data.xHeight = in.readFloat();
+
+			int glyphCount = in.readInt();
+			for (int i = 0; i < glyphCount; i++) {
+				Glyph glyph = readGlyph(in);
+				data.setGlyph(glyph.id, glyph);
+			}
+			if (in.readBoolean()) {
+				data.missingGlyph = readGlyph(in);
+			}
+
+			int pageCount = in.readInt();
+			for (int i = 0; i < pageCount; i++) {
+				int width = in.readInt();
+				int height = in.readInt();
+				Pixmap pixmap = new Pixmap(width, height, Format.valueOf(in.readUTF()));
+				pages.add(pixmap);
+				byte[] buffer = new byte[in.readInt()];
+				in.readFully(buffer);
+				ByteBuffer pixels = pixmap.getPixels();
+				pixels.position(0);
+				pixels.put(buffer, 0, Math.min(buffer.length, pixels.remaining()));
+				pixels.position(0);
+			}
+			return new CachedFont(data, pages);
+		} catch (IOException e) {
+			for (Pixmap pixmap : pages) {
+				pixmap.dispose();
+			}
+			throw e;
+		} catch (RuntimeException e) {
+			for (Pixmap pixmap : pages) {
+				pixmap.dispose();
+			}
+			throw new IOException("Corrupt font cache: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read a single glyph written by {@link #writeGlyph(DataOutputStream, Glyph)}.
+	 *
+	 * @param in the stream to read from.
+	 * @return the glyph.
+	 * @throws IOException if the glyph could not be read.
+	 */
+	private static Glyph readGlyph(DataInputStream in) throws IOException {
+		Glyph glyph = new Glyph();
+		glyph.id = in.readInt();
+		glyph.srcX = in.readInt();
+		glyph.srcY = in.readInt();
+		glyph.width = in.readInt();
+		glyph.height = in.readInt();
+		glyph.xoffset = in.readInt();
+		glyph.yoffset = in.readInt();
+		glyph.xadvance = in.readInt();
+		glyph.page = in.readInt();
+		glyph.fixedWidth = in.readBoolean();
+
+		int kerningCount = in.readInt();
+		for (int i = 0; i < kerningCount; i++) {
+			int ch = in.readInt();
+			glyph.setKerning(ch, in.readByte());
+		}
+		return glyph;
+	}
+
+	/** A decoded font that has not been uploaded to the GPU yet. */
+	private static class CachedFont {
+
+		/** The font metrics and glyphs. */
+		private final BitmapFontData data;
+		/** The glyph pages. */
+		private final Array<Pixmap> pages;
+
+		/**
+		 * Create a new {@link CachedFont}.
+		 *
+		 * @param data the font metrics and glyphs.
+		 * @param pages the glyph pages.
+		 */
+		private CachedFont(BitmapFontData data, Array<Pixmap> pages) {
+			this.data = data;
+			this.pages = pages;
+		}
+
+		/**
+		 * Upload the pages and create the font. The pages are disposed afterwards.
+		 * This must be called on the rendering thread.
+		 *
+		 * @param parameter the parameters the font is loaded with.
+		 * @return the font.
+		 */
+		private BitmapFont createFont(FreeTypeFontLoaderParameter parameter) {
+			FreeTypeFontParameter parameters = parameter.fontParameters;
+			final boolean distanceField = isDistanceField(parameter);
+			Array<TextureRegion> regions = new Array<TextureRegion>(pages.size);
+			for (Pixmap pixmap : pages) {
+				Texture texture = new Texture(pixmap, parameters.genMipMaps);
+				if (distanceField) {
+					texture.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+				} else {
+					texture.setFilter(parameters.minFilter, parameters.magFilter);
+				}
+				regions.add(new TextureRegion(texture));
+				pixmap.dispose();
+			}
+			BitmapFont font;
+			if (distanceField) {
+				DistanceFieldFont fieldFont = new FieldFontBatch.FieldFont(data, regions, false);
+				fieldFont.setDistanceFieldSmoothing(((CachedFontParameter) parameter).spread);
+				font = fieldFont;
+			} else {
+				font = new BitmapFont(data, regions, true);
+			}
+			font.setOwnsTexture(true);
+			return font;
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * A fixed-size square piece of a drawing canvas, with its own pixmap and texture.
+ * Canvases only create tiles where something has been drawn, and tiles are recycled through a {@link TilePool}.
+ * <p>
+ * The pixmap may be drawn on from any thread, while the texture is only touched by {@link #update()} on the rendering thread.
+ * The pixmap acts as the back buffer: the rendering thread never waits for drawing to finish,
+ * it just uploads whatever has changed the next time the tile is free.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class CanvasTile implements Disposable {
+
+	/** The width and height of a tile, in pixels. */
+	public static final int SIZE = 128;
+
+	/**
+	 * If the changed part of the pixmap covers more than this fraction of it, the whole pixmap is uploaded at once.
+	 * Past this point, uploading the rows around the change costs about as much as uploading everything.
+	 */
+	private static final float FULL_UPLOAD_FRACTION = 0.5f;
+
+	/** The tile's pixmap. */
+	private final Pixmap pixmap;
+	/** Texture that updates from the pixmap. Created by the first {@link #update()}, since it needs the rendering thread. */
+	private Texture texture;
+	/** Held while the pixmap is being drawn on or uploaded. */
+	private final ReentrantLock lock;
+
+	/** The smallest x-coordinate of the part of the pixmap that has changed since the last upload. */
+	private int dirtyMinX;
+	/** The smallest y-coordinate of the part of the pixmap that has changed since the last upload. */
+	private int dirtyMinY;
+	/** The largest x-coordinate of the part of the pixmap that has changed since the last upload. */
+	private int dirtyMaxX;
+	/** The largest y-coordinate of the part of the pixmap that has changed since the last upload. */
+	private int dirtyMaxY;
+
+	/** Constructor for {@link CanvasTile}. */
+	public CanvasTile() {
+		pixmap = new Pixmap(SIZE, SIZE, Pixmap.Format.RGB565);
+		pixmap.setBlending(Pixmap.Blending.None);
+		lock = new ReentrantLock();
+		resetDirty();
+	}
+
+	/**
+	 * Fill the whole tile with the given colour.
+	 *
+	 * @param color the colour to fill with.
+	 */
+	public void fill(Color color) {
+		lock.lock();
+		try {
+			pixmap.setColor(color);
+			pixmap.fill();
+			markDirty(0, 0, SIZE - 1, SIZE - 1);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Set the colour that {@link #fillSpan(int, int, int)} draws with.
+	 *
+	 * @param color the new colour.
+	 */
+	public void setColor(Color color) {
+		lock.lock();
+		try {
+			pixmap.setColor(color);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Fill part of a row of the tile.
+	 *
+	 * @param minX the first x-coordinate to fill, in the range [0, {@link #SIZE}).
+	 * @param maxX the last x-coordinate to fill, in the range [minX, {@link #SIZE}).
+	 * @param y the row to fill, in the range [0, {@link #SIZE}).
+	 */
+	public void fillSpan(int minX, int maxX, int y) {
+		lock.lock();
+		try {
+			pixmap.fillRectangle(minX, y, maxX - minX + 1, 1);
+			markDirty(minX, y, maxX, y);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the tile's texture.
+	 * Call {@link #update()} first to make sure it matches the pixmap.
+	 *
+	 * @return the texture, or {@code null} if it has not been created yet.
+	 */
+	public Texture getTexture() {
+		return texture;
+	}
+
+	/**
+	 * Updates the texture, uploading only the part of the pixmap that changed.
+	 * If the pixmap is being drawn on, nothing happens and the changes are uploaded by a later call.
+	 * Must be called on the rendering thread.
+	 */
+	public void update() {
+		if (!lock.tryLock()) {
+			return;
+		}
+		try {
+			if (texture == null) {
+				texture = new Texture(pixmap);
+			} else if (dirtyMinX <= dirtyMaxX && dirtyMinY <= dirtyMaxY) {
+				int width = dirtyMaxX - dirtyMinX + 1;
+				int height = dirtyMaxY - dirtyMinY + 1;
+				if (width * height > FULL_UPLOAD_FRACTION * SIZE * SIZE) {
+					texture.draw(pixmap, 0, 0);
+				} else {
+					uploadRegion(dirtyMinX, dirtyMinY, width, height);
+				}
+			}
+			resetDirty();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Upload part of the pixmap to the texture, straight from the pixmap's memory.
+	 * With OpenGL ES 3.0 exactly the given rectangle is uploaded. Otherwise, the rows it covers are uploaded,
+	 * since they are the only sub-region that is contiguous in memory.
+	 *
+	 * @param x the x-coordinate of the region.
+	 * @param y the y-coordinate of the region.
+	 * @param width the width of the region.
+	 * @param height the height of the region.
+	 */
+	private void uploadRegion(int x, int y, int width, int height) {
+		ByteBuffer pixels = pixmap.getPixels();
+		int bytesPerPixel = pixels.capacity() / (SIZE * SIZE);
+
+		texture.bind();
+		Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+		if (Gdx.gl30 != null) {
+			Gdx.gl30.glPixelStorei(GL30.GL_UNPACK_ROW_LENGTH, SIZE);
+			pixels.position((y * SIZE + x) * bytesPerPixel);
+			Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x, y, width, height, pixmap.getGLFormat(), pixmap.getGLType(), pixels);
+			Gdx.gl30.glPixelStorei(GL30.GL_UNPACK_ROW_LENGTH, 0);
+		} else {
+			pixels.position(y * SIZE * bytesPerPixel);
+			Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, y, SIZE, height, pixmap.getGLFormat(), pixmap.getGLType(), pixels);
+		}
+		pixels.position(0);
+	}
+
+	/**
+	 * Add a rectangle to the part of the pixmap that needs to be uploaded.
+	 *
+	 * @param minX the smallest x-coordinate of the rectangle.
+	 * @param minY the smallest y-coordinate of the rectangle.
+	 * @param maxX the largest x-coordinate of the rectangle.
+	 * @param maxY the largest y-coordinate of the rectangle.
+	 */
+	private void markDirty(int minX, int minY, int maxX, int maxY) {
+		dirtyMinX = Math.min(dirtyMinX, minX);
+		dirtyMinY = Math.min(dirtyMinY, minY);
+		dirtyMaxX = Math.max(dirtyMaxX, maxX);
+		dirtyMaxY = Math.max(dirtyMaxY, maxY);
+	}
+
+	/** Mark the whole pixmap as uploaded. */
+	private void resetDirty() {
+		dirtyMinX = Integer.MAX_VALUE;
+		dirtyMinY = Integer.MAX_VALUE;
+		dirtyMaxX = Integer.MIN_VALUE;
+		dirtyMaxY = Integer.MIN_VALUE;
+	}
+
+	@Override
+	public void dispose() {
+		if (texture != null) {
+			texture.dispose();
+		}
+		pixmap.dispose();
+	}
+
+	/**
+	 * Recycles {@link CanvasTile}s, so that their pixmaps and textures are reused between canvases.
+	 * Tiles freed while the pool is full are disposed.
+	 * Tiles may be obtained from any thread, but must be freed on the rendering thread.
+	 */
+	public static class TilePool extends Pool<CanvasTile> implements Disposable {
+
+		/** Every tile created by the pool that has not been disposed, in use or not. */
+		private final Array<CanvasTile> tiles;
+
+		/**
+		 * Constructor for {@link TilePool}.
+		 *
+		 * @param max the most free tiles to keep.
+		 */
+		public TilePool(int max) {
+			super(16, max);
+			tiles = new Array<CanvasTile>(false, 16);
+		}
+
+		@Override
+		protected CanvasTile newObject() {
+			CanvasTile tile = new CanvasTile();
+			tiles.add(tile);
+			return tile;
+		}
+
+		@Override
+		public synchronized CanvasTile obtain() {
+			return super.obtain();
+		}
+
+		@Override
+		public synchronized void free(CanvasTile tile) {
+			if (getFree() >= max) {
+				tiles.removeValue(tile, true);
+				tile.dispose();
+			} else {
+				super.free(tile);
+			}
+		}
+
+		@Override
+		public synchronized void dispose() {
+			for (CanvasTile tile : tiles) {
+				tile.dispose();
+			}
+			tiles.clear();
+			clear();
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Draws a maze, recolouring each wire and gate for the electric state of its network.
+ * <br>
+ * Wires and gates only have tiles in their on colours. A shader swaps those colours for the colours of the cell's state,
+ * which is passed to it in the red part of the cell's vertex colour, so changing the state of a network changes no tiles.
+ * Cells are drawn without flipping or rotating, since the maps never use either.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class CircuitRenderer extends OrthogonalTiledMapRenderer {
+
+	/** The on colours, which the tiles are drawn in. The other rows of {@link #PALETTE} replace these. */
+	private static final int[] ON_COLOURS = {0x0c2b08ff, 0x2cb61aff, 0x6af458ff, 0x061704ff};
+	/** The colours of off wires. */
+	private static final int[] OFF_WIRE_COLOURS = {0x4e0909ff, 0xff1414ff, 0xfe7777ff, 0x2b0606ff};
+	/** The colours of off gates, which have a darker outline than off wires. */
+	private static final int[] OFF_GATE_COLOURS = {0x2b0606ff, 0xff1414ff, 0xfe7777ff, 0x2b0606ff};
+	/** The colours of unknown wires and gates. */
+	private static final int[] UNKNOWN_COLOURS = {0x2d3251ff, 0x58a4f4ff, 0x8fc1f7ff, 0x2d3251ff};
+	/**
+	 * The rows of the palette texture. The last row is the on colours, so that cells drawn in white,
+	 * like everything that is not a wire or gate, are left as they are.
+	 */
+	private static final int[][] PALETTE = {OFF_WIRE_COLOURS, OFF_GATE_COLOURS, UNKNOWN_COLOURS, ON_COLOURS};
+	/** The row of {@link #PALETTE} for off wires. */
+	private static final int OFF_WIRE_ROW = 0;
+	/** The row of {@link #PALETTE} for off gates. */
+	private static final int OFF_GATE_ROW = 1;
+	/** The row of {@link #PALETTE} for unknown wires and gates. */
+	private static final int UNKNOWN_ROW = 2;
+	/** The row of {@link #PALETTE} for on wires and gates. */
+	private static final int ON_ROW = 3;
+
+	/** The texture unit the palette is bound to. */
+	private static final int PALETTE_UNIT = 1;
+
+	/** The vertex shader, which is the same as the default {@link com.badlogic.gdx.graphics.g2d.SpriteBatch} one. */
+	private static final String VERTEX_SHADER = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+		+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+		+ "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+		+ "uniform mat4 u_projTrans;\n"
+		+ "varying vec4 v_color;\n"
+		+ "varying vec2 v_texCoords;\n"
+		+ "\n"
+		+ "void main() {\n"
+		+ "	v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+		+ "	v_color.a = v_color.a * (255.0 / 254.0);\n"
+		+ "	v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+		+ "	gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+		+ "}\n";
+
+	/** The fragment shader, which swaps the on colours for the colours in the palette row picked by the red part of the vertex colour. */
+	private static final String FRAGMENT_SHADER = "#ifdef GL_ES\n"
+		+ "precision mediump float;\n"
+		+ "#endif\n"
+		+ "varying vec4 v_color;\n"
+		+ "varying vec2 v_texCoords;\n"
+		+ "uniform sampler2D u_texture;\n"
+		+ "uniform sampler2D u_palette;\n"
+		+ "\n"
+		+ "void main() {\n"
+		+ "	vec4 texel = texture2D(u_texture, v_texCoords);\n"
+		+ "	float row = (floor(v_color.r * " + (PALETTE.length - 1) + ".0 + 0.5) + 0.5) / " + PALETTE.length + ".0;\n"
+		+ "	float onRow = (" + ON_ROW + ".0 + 0.5) / " + PALETTE.length + ".0;\n"
+		+ "	for (int i = 0; i < " + ON_COLOURS.length + "; i++) {\n"
+		+ "		float column = (float(i) + 0.5) / " + ON_COLOURS.length + ".0;\n"
+		+ "		vec3 on = texture2D(u_palette, vec2(column, onRow)).rgb;\n"
+		+ "		if (all(lessThan(abs(texel.rgb - on), vec3(0.002)))) {\n"
+		+ "			texel.rgb = texture2D(u_palette, vec2(column, row)).rgb;\n"
+		+ "			break;\n"
+		+ "		}\n"
+		+ "	}\n"
+		+ "	gl_FragColor = vec4(texel.rgb, texel.a * v_color.a);\n"
+		+ "}\n";
+
+	/** The shader that recolours the wires and gates. */
+	private final ShaderProgram shader;
+	/** The palette texture, with a row of colours for each electric state. */
+	private final Texture palette;
+	/** The shader the batch was using before the map was drawn. */
+	private ShaderProgram batchShader;
+
+	/** The electric state of each network in the map, from {@link MapFactory#getNetworkStates()}. */
+	private IntArray networkStates;
+
+	/**
+	 * Constructor for {@link CircuitRenderer}.
+	 *
+	 * @param map the map to draw, or {@code null} to set it later.
+	 * @param unitScale how many world units one pixel of a tile is.
+	 * @param batch the batch to draw with.
+	 */
+	public CircuitRenderer(TiledMap map, float unitScale, Batch batch) {
+		super(map, unitScale, batch);
+		shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+		if (!shader.isCompiled()) {
+			throw new IllegalArgumentException("Could not compile the circuit shader: " + shader.getLog());
+		}
+
+		Pixmap colours = new Pixmap(ON_COLOURS.length, PALETTE.length, Format.RGBA8888);
+		for (int r = 0; r < PALETTE.length; r++) {
+			for (int c = 0; c < ON_COLOURS.length; c++) {
+				colours.drawPixel(c, r, PALETTE[r][c]);
+			}
+		}
+		palette = new Texture(colours);
+		colours.dispose();
+	}
+
+	/**
+	 * Set the electric state of each network in the map. Changes to the states are drawn without calling this again.
+	 *
+	 * @param networkStates the states, from {@link MapFactory#getNetworkStates()}.
+	 */
+	public void setNetworkStates(IntArray networkStates) {
+		this.networkStates = networkStates;
+	}
+
+	@Override
+	protected void beginRender() {
+		batchShader = batch.getShader();
+		batch.setShader(shader);
+		super.beginRender();
+		palette.bind(PALETTE_UNIT);
+		Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+		shader.setUniformi("u_palette", PALETTE_UNIT);
+	}
+
+	@Override
+	protected void endRender() {
+		super.endRender();
+		batch.setShader(batchShader);
+		batchShader = null;
+	}
+
+	@Override
+	public void renderTileLayer(TiledMapTileLayer layer) {
+		float batchColour = batch.getPackedColor();
+		Color colour = batch.getColor();
+		float alpha = colour.a * layer.getOpacity();
+		float plain = Color.toFloatBits(colour.r, colour.g, colour.b, alpha);
+
+		float tileWidth = layer.getTileWidth() * unitScale;
+		float tileHeight = layer.getTileHeight() * unitScale;
+		int col1 = Math.max(0, (int) (viewBounds.x / tileWidth));
+		int col2 = Math.min(layer.getWidth(), (int) ((viewBounds.x + viewBounds.width + tileWidth) / tileWidth));
+		int row1 = Math.max(0, (int) (viewBounds.y / tileHeight));
+		int row2 = Math.min(layer.getHeight(), (int) ((viewBounds.y + viewBounds.height + tileHeight) / tileHeight));
+
+		for (int r = row1; r < row2; r++) {
+			for (int c = col1; c < col2; c++) {
+				Cell cell = layer.getCell(c, r);
+				if (cell == null || cell.getTile() == null) {
+					continue;
+				}
+				TiledMapTile tile = cell.getTile();
+				if (cell instanceof ElectricCell) {
+					int row = getRow(tile.getId(), networkStates.get(((ElectricCell) cell).getNetwork()));
+					batch.setColor(row / (float) (PALETTE.length - 1), 1, 1, alpha);
+				} else {
+					batch.setColor(plain);
+				}
+				TextureRegion region = tile.getTextureRegion();
+				batch.draw(region, c * tileWidth + tile.getOffsetX() * unitScale, r * tileHeight + tile.getOffsetY() * unitScale,
+					region.getRegionWidth() * unitScale, region.getRegionHeight() * unitScale);
+			}
+		}
+		batch.setColor(batchColour);
+	}
+
+	/**
+	 * Get the palette row to draw a wire or gate with.
+	 *
+	 * @param id the tile ID of the wire or gate.
+	 * @param state the electric state of its network.
+	 * @return the row of {@link #PALETTE}.
+	 */
+	private static int getRow(int id, int state) {
+		switch (state) {
+			case TileIDs.OFF:
+				return id >= TileIDs.GATE_RANGE ? OFF_GATE_ROW : OFF_WIRE_ROW;
+			case TileIDs.UNKNOWN:
+				return UNKNOWN_ROW;
+			default:
+				return ON_ROW;
+		}
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		shader.dispose();
+		palette.dispose();
+	}
+}
@@ -74,16 +74,22 @@ public class ContinueScreen implements Screen {
 	/** The current score label. */
 	private Label currentScoreLabel;
 
+	/** The dialog asking for the player's name for the high scores. */
+	private Dialog nameDialog;
+	/** The field for the player's name. */
+	private TextField nameField;
+
 	/** The player's name. */
 	private String name;
+	/** If the player won. */
+	private boolean won;
 
 	/**
-	 * The constructor for ContinueScreen.
+	 * The constructor for ContinueScreen. Call {@link #setWon(boolean)} before showing it.
 	 *
 	 * @param game the {@link AmazingMazeGame} instance that is managing this screen.
-	 * @param won if the player won.
 	 */
-	public ContinueScreen(final AmazingMazeGame game, final boolean won) {
+	public ContinueScreen(final AmazingMazeGame game) {
 		this.game = game;
 
 		stage = new Stage(new ScreenViewport(), this.game.batch);
@@ -95,14 +101,9 @@ public class ContinueScreen implements Screen {
 		optionTable.bottom();
 		labelTable.background(new TextureRegionDrawable(new TextureRegion(this.game.assets.manager.get(Assets.MINI_BACKGROUND, Texture.class))));
 
-		if (won) {
-			resultLabel = new Label("You got the antidote!", game.assets.skin, Assets.WHITE_SANS_STYLE);
-			resultDescriptionLabel = new Label("Continute searching for more to help others or quit the maze?", game.assets.skin, Assets.WHITE_SANS_STYLE);
-		} else {
-			resultLabel = new Label("You lose!", game.assets.skin, Assets.WHITE_SANS_STYLE);
-			resultDescriptionLabel = new Label("Go back to last checkpoint or quit?", game.assets.skin, Assets.WHITE_SANS_STYLE);
-		}
-		currentScoreLabel = new Label("Your current score: " + game.save.getScore(), game.assets.skin, Assets.WHITE_SANS_STYLE);
+		resultLabel = new Label("", game.assets.skin, Assets.WHITE_SANS_STYLE);
+		resultDescriptionLabel = new Label("", game.assets.skin, Assets.WHITE_SANS_STYLE);
+		currentScoreLabel = new Label("", game.assets.skin, Assets.WHITE_SANS_STYLE);
 
 		continueButton = new TextButton("Continue", game.assets.skin);
 		continueButton.addListener(new ChangeListener() {
@@ -119,7 +120,7 @@ public class ContinueScreen implements Screen {
 					} else {
 						game.save.setStartScore(game.save.getScore());
 					}
-					game.setScreen(new MazeScreen(game, false));
+					game.playLevel(null);
 				}
 			}
 		});
@@ -144,12 +145,30 @@ public class ContinueScreen implements Screen {
 		optionTable.add(quitButton).minSize(Gdx.graphics.getWidth() / 8, Gdx.graphics.getHeight() / 20).maxSize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight() / 8).prefSize(Gdx.graphics.getWidth() / 5, Gdx.graphics.getHeight() / 10).pad(20).padBottom(40);
 		stage.addActor(labelTable);
 		stage.addActor(optionTable);
+
+		setupHighScoreDialog();
 	}
 
 	/**
-	 * Displays the high score dialog.
+	 * Set the screen up for the end of a level.
+	 *
+	 * @param won if the player won.
 	 */
-	public void highScoreDialog() {
+	public void setWon(boolean won) {
+		this.won = won;
+		if (won) {
+			resultLabel.setText("You got the antidote!");
+			resultDescriptionLabel.setText("Continute searching for more to help others or quit the maze?");
+		} else {
+			resultLabel.setText("You lose!");
+			resultDescriptionLabel.setText("Go back to last checkpoint or quit?");
+		}
+		currentScoreLabel.setText("Your current score: " + game.save.getScore());
+		nameDialog.hide(null);
+	}
+
+	/** Create the high score dialog. */
+	private void setupHighScoreDialog() {
 		Label.LabelStyle labelStyle = new Label.LabelStyle(game.assets.getFont(Assets.MONO_REGULAR, Assets.SMALL_FONT_SIZE), Color.WHITE);
 		final Dialog dialog = new Dialog("High Score", game.assets.skin);
 		final TextButton okButton = new TextButton("OK", game.assets.skin);
@@ -158,7 +177,7 @@ public class ContinueScreen implements Screen {
 		label.setScale(.5f);
 		label.setWrap(true);
 		label.setAlignment(Align.center);
-		final TextField nameField = new TextField("", game.assets.skin);
+		nameField = new TextField("", game.assets.skin);
 		dialog.add(label).width(500).pad(50);
 		dialog.add(nameField);
 		dialog.add(okButton).bottom();
@@ -168,6 +187,7 @@ public class ContinueScreen implements Screen {
 				name = formatString(nameField.getText());
 				if (!name.equals("")) {
 					if (key == (char) 13) {
+						dialog.hide(null);
 						displayHighScores(name);
 					}
 				}
@@ -191,6 +211,7 @@ public class ContinueScreen implements Screen {
 				name = formatString(nameField.getText());
 				if (!name.equals("")) {
 					if (keycode == Keys.ENTER) {
+						dialog.hide(null);
 						displayHighScores(name);
 						return true;
 					}
@@ -198,7 +219,16 @@ public class ContinueScreen implements Screen {
 				return false;
 			}
 		});
-		dialog.show(stage);
+		nameDialog = dialog;
+	}
+
+	/**
+	 * Displays the high score dialog.
+	 */
+	public void highScoreDialog() {
+		nameField.setText("");
+		game.assets.refreshFonts(nameDialog);
+		nameDialog.show(stage);
 	}
 
 	/**
@@ -210,11 +240,15 @@ public class ContinueScreen implements Screen {
 		return name;
 	}
 
-	/** Add the score to the high scores list, reset the save file, then go to the high scores screen. */
+	/** Add the score to the high scores list and the classroom leaderboard, reset the save file, then go to the high scores screen. */
 	public void displayHighScores(String name) {
-		game.save.addHighScore(new HighScore(name, game.save.getScore()));
+		HighScore score = new HighScore(name, game.save.getScore());
+		game.save.addHighScore(score);
+		if (game.leaderboard != null) {
+			game.leaderboard.submit(score);
+		}
 		game.save.resetSave();
-		game.setScreen(game.highScoresScreen);
+		game.transition.start(game.highScoresScreen);
 	}
 
 	/**
@@ -247,6 +281,7 @@ public class ContinueScreen implements Screen {
 	@Override
 	public void resize(int width, int height) {
 		stage.getViewport().update(width, height, true);
+		game.assets.refreshFonts(stage);
 	}
 
 	@Override
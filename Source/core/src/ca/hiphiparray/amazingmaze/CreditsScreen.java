@@ -30,6 +30,8 @@ import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
 
 import ca.hiphiparray.amazingmaze.MusicManager.Song;
 
@@ -122,15 +124,16 @@ public class CreditsScreen implements Screen {
 		this.game = game;
 
 		setupComponents();
-		createActions();
 		components = new Actor[] {gameLogo, codeGroup, artGroup, storyGroup, musicGroup, thanksGroup, companyLogo};
 		assert components.length == COMPONENT_COUNT : "Number of components does not match COMPONENT_COUNT.";
 		assert HEADERS.length == COMPONENT_COUNT : "Number of headers does not match COMPONENT_COUNT.";
-		updateComponents();
 	}
 
-	/** Create the actions of the credits actors. */
+	/** Create the actions of the credits actors, replacing any that are left from the last time the credits were shown. */
 	private void createActions() {
+		for (Actor component : components) {
+			component.clearActions();
+		}
 		gameLogo.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(ITEM_DELAY), Actions.fadeOut(1f)));
 		codeGroup.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(ITEM_DELAY), Actions.fadeOut(1f)));
 		artGroup.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(ITEM_DELAY), Actions.fadeOut(1f)));
@@ -145,7 +148,7 @@ public class CreditsScreen implements Screen {
 	 * Add all actors to the stage.
 	 */
 	private void setupComponents() {
-		stage = new Stage();
+		stage = new Stage(new ScalingViewport(Scaling.stretch, Gdx.graphics.getWidth(), Gdx.graphics.getHeight()), game.batch);
 		table = new Table();
 		table.top();
 		table.setFillParent(true);
@@ -185,7 +188,7 @@ public class CreditsScreen implements Screen {
 	private void advanceCredits() {
 		currentComponentIndex++;
 		if (currentComponentIndex >= COMPONENT_COUNT) {
-			game.setScreen(game.menuScreen);
+			game.transition.start(game.menuScreen);
 			return;
 		}
 
@@ -200,6 +203,7 @@ public class CreditsScreen implements Screen {
 	private void updateComponents() {
 		table.clear();
 		header.setText(HEADERS[currentComponentIndex]);
+		header.clearActions();
 		header.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(ITEM_DELAY), Actions.fadeOut(1f)));
 		table.add(header);
 		table.row();
@@ -210,6 +214,11 @@ public class CreditsScreen implements Screen {
 	public void show() {
 		game.music.setSong(Song.CREDITS);
 		Gdx.input.setInputProcessor(null);
+
+		// Start the credits over.
+		currentComponentIndex = 0;
+		createActions();
+		updateComponents();
 	}
 
 	@Override
@@ -228,7 +237,7 @@ public class CreditsScreen implements Screen {
 
 	@Override
 	public void resize(int width, int height) {
-
+		game.assets.refreshFonts(stage);
 	}
 
 	@Override
@@ -243,7 +252,6 @@ public class CreditsScreen implements Screen {
 
 	@Override
 	public void hide() {
-		dispose();
 	}
 
 	@Override
@@ -0,0 +1,165 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+
+/**
+ * Computes signed distance fields from high resolution glyph bitmaps.
+ * The exact Euclidean distance transform of Felzenszwalb and Huttenlocher is used, so the cost is linear in the number of pixels.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+final class DistanceField {
+
+	/** A distance larger than any distance that can occur in a glyph. */
+	private static final float INFINITY = 1e20f;
+
+	/** Coverage values above this are considered inside of the glyph. */
+	private static final int THRESHOLD = 127;
+
+	/** Not instantiable. */
+	private DistanceField() {
+	}
+
+	/**
+	 * Create a distance field for a glyph.
+	 * The result is {@code 2 * spread} pixels larger than the scaled down glyph in each dimension,
+	 * and the glyph starts {@code spread} pixels from its left and top edges.
+	 *
+	 * @param source the pixmap holding the glyph, with coverage in the alpha channel.
+	 * @param x the x coordinate of the glyph in {@code source}.
+	 * @param y the y coordinate of the glyph in {@code source}.
+	 * @param width the width of the glyph in {@code source}.
+	 * @param height the height of the glyph in {@code source}.
+	 * @param upscale how many times larger the glyph in {@code source} is than the field to create.
+	 * @param spread how far, in pixels of the field, the field extends outside of the glyph.
+	 * @return a white pixmap whose alpha is the distance field, where 0.5 is the edge of the glyph.
+	 * The caller is responsible for disposing it.
+	 */
+	static Pixmap generate(Pixmap source, int x, int y, int width, int height, int upscale, int spread) {
+		final int outWidth = (width + upscale - 1) / upscale + 2 * spread;
+		final int outHeight = (height + upscale - 1) / upscale + 2 * spread;
+		final int gridWidth = outWidth * upscale;
+		final int gridHeight = outHeight * upscale;
+		final int border = spread * upscale;
+
+		float[] inside = new float[gridWidth * gridHeight];
+		float[] outside = new float[gridWidth * gridHeight];
+		for (int i = 0; i < inside.length; i++) {
+			outside[i] = INFINITY;
+		}
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				if ((source.getPixel(x + col, y + row) & 0xFF) > THRESHOLD) {
+					int i = (row + border) * gridWidth + col + border;
+					inside[i] = INFINITY;
+					outside[i] = 0;
+				}
+			}
+		}
+
+		int length = Math.max(gridWidth, gridHeight);
+		float[] f = new float[length];
+		float[] d = new float[length];
+		int[] v = new int[length];
+		float[] z = new float[length + 1];
+		transform(inside, gridWidth, gridHeight, f, d, v, z);
+		transform(outside, gridWidth, gridHeight, f, d, v, z);
+
+		Pixmap field = new Pixmap(outWidth, outHeight, Format.RGBA8888);
+		final float scale = 1f / (2f * border);
+		final int centre = upscale / 2;
+		for (int row = 0; row < outHeight; row++) {
+			for (int col = 0; col < outWidth; col++) {
+				int i = (row * upscale + centre) * gridWidth + col * upscale + centre;
+				float distance = (float) (Math.sqrt(inside[i]) - Math.sqrt(outside[i]));
+				float alpha = Math.max(0f, Math.min(1f, 0.5f + distance * scale));
+				field.drawPixel(col, row, 0xFFFFFF00 | Math.round(alpha * 255));
+			}
+		}
+		return field;
+	}
+
+	/**
+	 * Replace each value in a grid with the squared distance to the nearest zero value, in place.
+	 *
+	 * @param grid the grid, where 0 marks the points to measure from and {@link #INFINITY} marks all other points.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param f scratch space at least as long as the largest dimension.
+	 * @param d scratch space at least as long as the largest dimension.
+	 * @param v scratch space at least as long as the largest dimension.
+	 * @param z scratch space longer than the largest dimension.
+	 */
+	private static void transform(float[] grid, int width, int height, float[] f, float[] d, int[] v, float[] z) {
+		for (int col = 0; col < width; col++) {
+			for (int row = 0; row < height; row++) {
+				f[row] = grid[row * width + col];
+			}
+			transform(f, height, d, v, z);
+			for (int row = 0; row < height; row++) {
+				grid[row * width + col] = d[row];
+			}
+		}
+		for (int row = 0; row < height; row++) {
+			System.arraycopy(grid, row * width, f, 0, width);
+			transform(f, width, d, v, z);
+			System.arraycopy(d, 0, grid, row * width, width);
+		}
+	}
+
+	/**
+	 * The one dimensional squared distance transform.
+	 *
+	 * @param f the input values.
+	 * @param n how many values to transform.
+	 * @param d the output values.
+	 * @param v scratch space for the locations of the parabolas in the lower envelope.
+	 * @param z scratch space for the boundaries between the parabolas in the lower envelope.
+	 */
+	private static void transform(float[] f, int n, float[] d, int[] v, float[] z) {
+		int k = 0;
+		v[0] = 0;
+		z[0] = -INFINITY;
+		z[1] = INFINITY;
+		for (int q = 1; q < n; q++) {
+			float s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+			while (s <= z[k]) {
+				k--;
+				s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+			}
+			k++;
+			v[k] = q;
+			z[k] = s;
+			z[k + 1] = INFINITY;
+		}
+		k = 0;
+		for (int q = 0; q < n; q++) {
+			while (z[k + 1] < q) {
+				k++;
+			}
+			float r = q - v[k];
+			d[q] = r * r + f[v[k]];
+		}
+	}
+}
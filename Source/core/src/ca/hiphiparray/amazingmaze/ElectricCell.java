@@ -0,0 +1,51 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+
+/**
+ * A {@link Cell} for a gate or wire, which shares its electric state with the rest of its network.
+ * The state is not part of the tile, so changing the state of a whole network does not change any cells.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class ElectricCell extends Cell {
+
+	/** The network this cell is part of. */
+	private final int network;
+
+	/**
+	 * Create a new electric cell.
+	 *
+	 * @param network the index of the network in {@link MapFactory#getNetworkStates()}.
+	 */
+	public ElectricCell(int network) {
+		this.network = network;
+	}
+
+	/**
+	 * @return the index of the network in {@link MapFactory#getNetworkStates()}.
+	 */
+	public int getNetwork() {
+		return network;
+	}
+}
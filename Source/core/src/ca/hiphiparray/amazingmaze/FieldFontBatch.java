@@ -0,0 +1,209 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A {@link SpriteBatch} that draws distance field fonts without flushing for every label.
+ * <br>
+ * The distance field shader needs a smoothing uniform that depends on the scale of the font, and must be 0 for everything else.
+ * libGDX sets it before each label and resets it afterwards, flushing the batch both times.
+ * This batch remembers the value the uniform has, so labels with the same scale are drawn in one batch.
+ * It is reset when the batch switches to a texture that is not a page of the font, which flushes the batch anyway.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class FieldFontBatch extends SpriteBatch {
+
+	/** The name of the smoothing uniform in {@link DistanceFieldFont#createDistanceFieldShader()}. */
+	private static final String SMOOTHING_UNIFORM = "u_smoothing";
+
+	/** The distance field shader, or {@code null} if distance field fonts are not used. */
+	private final ShaderProgram fieldShader;
+	/** The value of the smoothing uniform in {@link #fieldShader}. */
+	private float smoothing;
+	/** The pages of the font that was last drawn, or {@code null} if none has been. */
+	private Array<TextureRegion> smoothedPages;
+
+	/**
+	 * Constructor for {@link FieldFontBatch}.
+	 *
+	 * @param fieldShader the distance field shader to draw with, or {@code null} to use the default shader.
+	 */
+	public FieldFontBatch(ShaderProgram fieldShader) {
+		this.fieldShader = fieldShader;
+		if (fieldShader != null) {
+			setShader(fieldShader);
+		}
+	}
+
+	/**
+	 * Set the smoothing to draw a font with. The batch is only flushed if the smoothing changes.
+	 *
+	 * @param smoothing the smoothing.
+	 * @param pages the pages of the font.
+	 * @return if the smoothing was set, or {@code false} if the batch is not using the distance field shader.
+	 */
+	private boolean smooth(float smoothing, Array<TextureRegion> pages) {
+		if (fieldShader == null || getShader() != fieldShader) {
+			return false;
+		}
+		smoothedPages = pages;
+		if (this.smoothing != smoothing) {
+			flush();
+			fieldShader.setUniformf(SMOOTHING_UNIFORM, smoothing);
+			this.smoothing = smoothing;
+		}
+		return true;
+	}
+
+	@Override
+	protected void switchTexture(Texture texture) {
+		super.switchTexture(texture);
+		if (smoothing != 0 && getShader() == fieldShader && !isPage(texture)) {
+			fieldShader.setUniformf(SMOOTHING_UNIFORM, 0);
+			smoothing = 0;
+		}
+	}
+
+	/**
+	 * Check if a texture is a page of the font that was last drawn.
+	 *
+	 * @param texture the texture.
+	 * @return if it is a page.
+	 */
+	private boolean isPage(Texture texture) {
+		if (smoothedPages != null) {
+			for (int i = 0; i < smoothedPages.size; i++) {
+				if (smoothedPages.get(i).getTexture() == texture) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A distance field font whose labels are drawn without flushing a {@link FieldFontBatch}.
+	 * Drawing it with any other batch works like a {@link DistanceFieldFont}.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	public static class FieldFont extends DistanceFieldFont {
+
+		/**
+		 * Constructor for {@link FieldFont}.
+		 *
+		 * @param data the glyphs and metrics.
+		 * @param pages the pages the glyphs are on.
+		 * @param integer if glyphs should be drawn at whole pixel positions.
+		 */
+		public FieldFont(BitmapFontData data, Array<TextureRegion> pages, boolean integer) {
+			super(data, pages, integer);
+		}
+
+		@Override
+		public BitmapFontCache newFontCache() {
+			return new FieldFontCache(this, usesIntegerPositions());
+		}
+	}
+
+	/**
+	 * Draws the text of a {@link FieldFont}.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	private static class FieldFontCache extends BitmapFontCache {
+
+		/**
+		 * Constructor for {@link FieldFontCache}.
+		 *
+		 * @param font the font to draw.
+		 * @param integer if glyphs should be drawn at whole pixel positions.
+		 */
+		public FieldFontCache(FieldFont font, boolean integer) {
+			super(font, integer);
+		}
+
+		@Override
+		public void draw(Batch batch) {
+			if (smooth(batch)) {
+				super.draw(batch);
+			} else {
+				setSmoothing(batch, getSmoothing());
+				super.draw(batch);
+				setSmoothing(batch, 0);
+			}
+		}
+
+		@Override
+		public void draw(Batch batch, int start, int end) {
+			if (smooth(batch)) {
+				super.draw(batch, start, end);
+			} else {
+				setSmoothing(batch, getSmoothing());
+				super.draw(batch, start, end);
+				setSmoothing(batch, 0);
+			}
+		}
+
+		/**
+		 * Set the smoothing on a {@link FieldFontBatch}.
+		 *
+		 * @param batch the batch that will draw the text.
+		 * @return if the smoothing was set, or {@code false} if it must be set on the shader of the batch directly.
+		 */
+		private boolean smooth(Batch batch) {
+			return batch instanceof FieldFontBatch && ((FieldFontBatch) batch).smooth(getSmoothing(), getFont().getRegions());
+		}
+
+		/**
+		 * Get the smoothing for the current scale of the font.
+		 *
+		 * @return the smoothing.
+		 */
+		private float getSmoothing() {
+			FieldFont font = (FieldFont) getFont();
+			return font.getDistanceFieldSmoothing() * font.getScaleX();
+		}
+
+		/**
+		 * Flush a batch and set the smoothing on its shader, like {@link DistanceFieldFont} does.
+		 *
+		 * @param batch the batch.
+		 * @param smoothing the smoothing.
+		 */
+		private static void setSmoothing(Batch batch, float smoothing) {
+			batch.flush();
+			batch.getShader().setUniformf(SMOOTHING_UNIFORM, smoothing);
+		}
+	}
+}
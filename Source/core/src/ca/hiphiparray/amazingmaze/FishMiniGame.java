@@ -19,6 +19,8 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze;
 
+import java.util.concurrent.locks.LockSupport;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Input.Keys;
@@ -32,7 +34,6 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.InputListener;
@@ -48,7 +49,9 @@ import com.badlogic.gdx.scenes.scene2d.ui.TextField.TextFieldListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 import ca.hiphiparray.amazingmaze.MusicManager.Song;
@@ -109,13 +112,13 @@ public class FishMiniGame implements Screen, InputProcessor {
 	private final int[] fishValue = {5, 10, 20, 50, 100};
 	/** Fish images. */
 	private Image[] fishImage;
+	/** Labels showing how many of each type of fish were collected. */
+	private Label[] fishLabels;
 
 	/** Custom class for Pixmap manipulation. */
 	private Canvas canvas;
 	/** Number of pixels the pixmap drawing should be shifted. */
 	private final static int shift = -80;
-	/** Saves last drawing point. */
-	private Vector2 previous;
 	/** Whether the mouse has been pressed and left down. */
 	private boolean leftDown;
 
@@ -125,38 +128,37 @@ public class FishMiniGame implements Screen, InputProcessor {
 	private final static Color clearColor = Color.DARK_GRAY;
 	/** If the game is paused. */
 	private boolean paused;
+	/** The last frame drawn before the game was paused, shown behind the pause menu. */
+	private FrozenFrame frozenFrame;
+
+	/** How many lives the player had left at the end of the last level. */
+	private int lives;
 
-	/** The {@link Player} instance that completed the last level. */
-	private Player player;
+	/** The dialog explaining the minigame. */
+	private Dialog helpDialog;
+	/** The dialog showing the result of an answer. */
+	private Dialog resultDialog;
+	/** The message in {@link #resultDialog}. */
+	private Label resultLabel;
+	/** If the answer in {@link #resultDialog} was valid, so closing it moves on. */
+	private boolean validAnswer;
 
 	/**
-	 * Constructor for FishMiniGame.
+	 * Constructor for FishMiniGame. Call {@link #startRound(Player)} before showing it.
 	 *
 	 * @param game the {@link AmazingMazeGame} instance that is managing this screen.
-	 * @param player the {@link Player} instance that completed the last level.
 	 */
-	public FishMiniGame(final AmazingMazeGame game, Player player) {
+	public FishMiniGame(final AmazingMazeGame game) {
 		this.game = game;
-		this.player = player;
+		this.frozenFrame = new FrozenFrame();
 		fishNumber = new int[5];
 
-		fishNumber[0] = this.player.blueCollected;
-		fishNumber[1] = this.player.purpleCollected;
-		fishNumber[2] = this.player.greenCollected;
-		fishNumber[3] = this.player.redCollected;
-		fishNumber[4] = this.player.orangeCollected;
-
-		answer = 0;
-		for (int i = 0; i < fishNumber.length; i++) {
-			answer += fishNumber[i] * fishValue[i];
-		}
-
 		stage = new Stage(new ScreenViewport(), this.game.batch);
 
 		menuTable = new Table();
 		fishTable = new Table();
 
-		canvas = new Canvas(new Pixmap(Gdx.graphics.getWidth(), Gdx.graphics.getHeight() + shift, Pixmap.Format.RGB565));
+		canvas = new Canvas(game.canvasTiles, Gdx.graphics.getWidth(), Gdx.graphics.getHeight() + shift);
 
 		menuTable.setFillParent(true);
 		menuTable.top();
@@ -202,27 +204,8 @@ public class FishMiniGame implements Screen, InputProcessor {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (helpButton.isPressed()) {
-					Label.LabelStyle labelStyle = new Label.LabelStyle(game.assets.getFont(Assets.MONO_REGULAR, Assets.SMALL_FONT_SIZE), Color.WHITE);
-					final Dialog dialog = new Dialog("Help", game.assets.skin);
-					final TextButton okButton = new TextButton("OK", game.assets.skin);
-					dialog.getButtonTable().bottom();
-					Label label = new Label("Find the total value of fish that you retrieved!\n" + "Each colour corresponds to the colour of Canadian money.\n" + "The numbers correspond to each number of fish you got.\n\n" + "In case you forgot: blue is 5, purple is 10, green is 20, red is 50, and orange is 100.", labelStyle);
-					label.setScale(.5f);
-					label.setWrap(true);
-					label.setAlignment(Align.center);
-					dialog.add(label).width(500).pad(50);
-					dialog.add(okButton).bottom();
-					okButton.addListener(new ChangeListener() {
-						@Override
-						public void changed(ChangeEvent event, Actor actor) {
-							if (okButton.isPressed()) {
-								dialog.hide();
-								canvas.setColor(drawColor);
-							}
-						}
-					});
-					dialog.key(Keys.ENTER, true);
-					dialog.show(stage);
+					game.assets.refreshFonts(helpDialog);
+					helpDialog.show(stage);
 				}
 			}
 		});
@@ -280,16 +263,58 @@ public class FishMiniGame implements Screen, InputProcessor {
 		fishTable.add(checkButton).pad(10).size(64);
 		fishTable.row();
 
+		fishLabels = new Label[5];
 		for (int i = 0; i < 5; i++) {
-			fishTable.add(new Label(fishNumber[i] + "", labelStyle)).pad(30).center();
+			fishLabels[i] = new Label("", labelStyle);
+			fishTable.add(fishLabels[i]).pad(30).center();
 		}
 		fishTable.row();
 
 		setupPauseMenu();
+		setupHelpDialog();
+		setupResultDialog();
 		input = new InputMultiplexer(stage, this);
 		input.addProcessor(pauseMenu);
 	}
 
+	/**
+	 * Start counting the fish collected in a level. The screen must not be showing.
+	 *
+	 * @param player the {@link Player} instance that completed the level.
+	 */
+	public void startRound(Player player) {
+		fishNumber[0] = player.blueCollected;
+		fishNumber[1] = player.purpleCollected;
+		fishNumber[2] = player.greenCollected;
+		fishNumber[3] = player.redCollected;
+		fishNumber[4] = player.orangeCollected;
+		lives = player.getLives();
+
+		answer = 0;
+		for (int i = 0; i < fishNumber.length; i++) {
+			answer += fishNumber[i] * fishValue[i];
+			fishLabels[i].setText(Integer.toString(fishNumber[i]));
+		}
+
+		answerField.setText("");
+		canvas.reset();
+		leftDown = false;
+		if (paused) {
+			paused = false;
+			frozenFrame.release();
+		}
+	}
+
+	/** Go to the next level, or to the {@link ContinueScreen} at the end of a set of levels. */
+	private void nextScreen() {
+		if ((game.save.getLevel() - 1) % 5 == 0) {
+			game.continueScreen.setWon(true);
+			game.transition.start(game.continueScreen);
+		} else {
+			game.playLevel(null);
+		}
+	}
+
 	/** Create the pause menu. */
 	private void setupPauseMenu() {
 		pauseMenu = new Stage(new ScreenViewport(), game.batch);
@@ -303,7 +328,7 @@ public class FishMiniGame implements Screen, InputProcessor {
 		resumeButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
-				paused = false;
+				setPaused(false);
 			}
 		});
 		table.add(resumeButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
@@ -315,7 +340,7 @@ public class FishMiniGame implements Screen, InputProcessor {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				game.settingsScreen.setSourceScreen(sourceScreen);
-				game.setScreen(game.settingsScreen);
+				game.transition.start(game.settingsScreen);
 			}
 		});
 		table.add(settingsButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
@@ -326,85 +351,97 @@ public class FishMiniGame implements Screen, InputProcessor {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				game.save.setLevel(game.save.getLevel() - 1);
-				game.setScreen(game.menuScreen);
+				game.transition.start(game.menuScreen);
 			}
 		});
 		table.add(quitButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
 	}
 
-	/**
-	 * Displays the results dialog.
-	 */
-	public void dialog() {
-		message = formatString(answerField.getText());
+	/** Create the help dialog. */
+	private void setupHelpDialog() {
+		Label.LabelStyle labelStyle = new Label.LabelStyle(game.assets.getFont(Assets.MONO_REGULAR, Assets.SMALL_FONT_SIZE), Color.WHITE);
+		final Dialog dialog = new Dialog("Help", game.assets.skin);
+		final TextButton okButton = new TextButton("OK", game.assets.skin);
+		dialog.getButtonTable().bottom();
+		Label label = new Label("Find the total value of fish that you retrieved!\n" + "Each colour corresponds to the colour of Canadian money.\n" + "The numbers correspond to each number of fish you got.\n\n" + "In case you forgot: blue is 5, purple is 10, green is 20, red is 50, and orange is 100.", labelStyle);
+		label.setScale(.5f);
+		label.setWrap(true);
+		label.setAlignment(Align.center);
+		dialog.add(label).width(500).pad(50);
+		dialog.add(okButton).bottom();
+		okButton.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				if (okButton.isPressed()) {
+					dialog.hide();
+					canvas.setColor(drawColor);
+				}
+			}
+		});
+		dialog.key(Keys.ENTER, true);
+		helpDialog = dialog;
+	}
+
+	/** Create the results dialog. Its message is set by {@link #dialog()} each time it is shown. */
+	private void setupResultDialog() {
 		Label.LabelStyle labelStyle = new Label.LabelStyle(game.assets.getFont(Assets.MONO_REGULAR, Assets.SMALL_FONT_SIZE), Color.WHITE);
 		final Dialog dialog = new Dialog("Results", game.assets.skin);
 		final TextButton okButton = new TextButton("OK", game.assets.skin);
 		dialog.getButtonTable().bottom();
-		if (checkAnswer() == -1) {
-			Label label = new Label("Invalid answer. Please try again.", labelStyle);
-			label.setScale(.5f);
-			label.setWrap(true);
-			label.setAlignment(Align.center);
-			dialog.add(label).width(500).pad(50);
-			dialog.add(okButton).bottom();
-			okButton.addListener(new ChangeListener() {
-				@Override
-				public void changed(ChangeEvent event, Actor actor) {
-					if (okButton.isPressed()) {
+		resultLabel = new Label("", labelStyle);
+		resultLabel.setScale(.5f);
+		resultLabel.setWrap(true);
+		resultLabel.setAlignment(Align.center);
+		dialog.add(resultLabel).width(500).pad(50);
+		dialog.add(okButton).bottom();
+		okButton.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				if (okButton.isPressed()) {
+					if (validAnswer) {
+						dialog.hide(null);
+						nextScreen();
+					} else {
 						dialog.hide();
 						canvas.setColor(drawColor);
 					}
 				}
-			});
-			dialog.addListener(new InputListener() {
-				@Override
-				public boolean keyDown(InputEvent event, int keycode) {
-					if (keycode == Keys.ENTER) {
+			}
+		});
+		dialog.addListener(new InputListener() {
+			@Override
+			public boolean keyDown(InputEvent event, int keycode) {
+				if (keycode == Keys.ENTER) {
+					if (validAnswer) {
+						dialog.hide(null);
+						nextScreen();
+					} else {
 						dialog.hide();
-						return true;
 					}
-					return false;
+					return true;
 				}
-			});
+				return false;
+			}
+		});
+		resultDialog = dialog;
+	}
+
+	/**
+	 * Displays the results dialog.
+	 */
+	public void dialog() {
+		message = formatString(answerField.getText());
+		validAnswer = checkAnswer() != -1;
+		if (!validAnswer) {
+			resultLabel.setText("Invalid answer. Please try again.");
 		} else {
-			Label label = new Label("Your answer was: " + message + ". " + "The correct answer was: " + answer + ". " + "You get " + checkAnswer() + " back!", labelStyle);
+			resultLabel.setText("Your answer was: " + message + ". " + "The correct answer was: " + answer + ". " + "You get " + checkAnswer() + " back!");
+			game.save.getGameplayLog().fishAnswered(game.save.getLevel() - 1, message, answer);
 			game.save.addScore(checkAnswer());
-			game.save.setLives(player.getLives());
-			label.setScale(.5f);
-			label.setWrap(true);
-			label.setAlignment(Align.center);
-			dialog.add(label).width(500).pad(50);
-			dialog.add(okButton).bottom();
-			okButton.addListener(new ChangeListener() {
-				@Override
-				public void changed(ChangeEvent event, Actor actor) {
-					if (okButton.isPressed()) {
-						dialog.cancel();
-						if ((game.save.getLevel() - 1) % 5 == 0) {
-							game.setScreen(new ContinueScreen(game, true));
-						} else {
-							game.setScreen(new MazeScreen(game, false));
-						}
-					}
-				}
-			});
-			dialog.addListener(new InputListener() {
-				@Override
-				public boolean keyDown(InputEvent event, int keycode) {
-					if (keycode == Keys.ENTER) {
-						if ((game.save.getLevel() - 1) % 5 == 0) {
-							game.setScreen(new ContinueScreen(game, true));
-						} else {
-							game.setScreen(new MazeScreen(game, false));
-						}
-						return true;
-					}
-					return false;
-				}
-			});
+			game.save.setLives(lives);
 		}
-		dialog.show(stage);
+		game.assets.refreshFonts(resultDialog);
+		resultDialog.show(stage);
 	}
 
 	/**
@@ -455,23 +492,55 @@ public class FishMiniGame implements Screen, InputProcessor {
 
 	@Override
 	public void render(float delta) {
+		if (paused) {
+			pauseMenu.act();
+			if (!frozenFrame.isCaptured()) { // Draw the game one last time, into the frozen frame.
+				frozenFrame.begin();
+				drawGame();
+				frozenFrame.end();
+			}
+
+			Gdx.gl.glClearColor(1, 1, 1, 1);
+			Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+			frozenFrame.draw(game.batch);
+			pauseMenu.draw();
+			return;
+		}
+
+		stage.act(delta);
+
+		drawGame();
+	}
+
+	/** Draw the canvas and the rest of the stage. */
+	private void drawGame() {
 		Gdx.gl.glClearColor(1, 1, 1, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
 		canvas.update();
-
-		stage.act(delta);
 		stage.draw();
+	}
 
-		if (paused) {
-			pauseMenu.act();
-			pauseMenu.draw();
-		}
+	/**
+	 * Pause or resume the game.
+	 * While paused, the game is not rendered, a frozen copy of its last frame is shown behind the pause menu instead,
+	 * and the screen is only redrawn when something changes.
+	 *
+	 * @param paused if the game should be paused.
+	 */
+	private void setPaused(boolean paused) {
+		this.paused = paused;
+		frozenFrame.release();
+		Gdx.graphics.setContinuousRendering(!paused);
 	}
 
 	@Override
 	public void resize(int width, int height) {
 		stage.getViewport().update(width, height, true);
+		canvas.resize(width, height + shift);
+		frozenFrame.release(); // Capture the paused game again at the new size.
+		game.assets.refreshFonts(stage);
+		game.assets.refreshFonts(pauseMenu);
 	}
 
 	@Override
@@ -489,10 +558,21 @@ public class FishMiniGame implements Screen, InputProcessor {
 	@Override
 	public void dispose() {
 		stage.dispose();
+		pauseMenu.dispose();
 		canvas.dispose();
+		frozenFrame.dispose();
 	}
 
-	/** Custom Canvas class for Pixmap manipulation. */
+	/**
+	 * Custom Canvas class for drawing.
+	 * The canvas is split into {@link CanvasTile}s, which are only taken from the pool where something is drawn.
+	 * <p>
+	 * Input only queues timestamped samples. A worker thread rasterizes them into the tile pixmaps,
+	 * and {@link #update()} uploads the finished regions on the rendering thread, so drawing never holds up a frame.
+	 * <p>
+	 * The worker also records every stroke in a {@link StrokeList}, in coordinates relative to the size of the canvas.
+	 * The tiles are only a cache of the strokes, so they can be redrawn after an undo or when the canvas is resized.
+	 */
 	private static class Canvas extends Actor implements Disposable {
 
 		/** Radius of the drawing tool. */
@@ -500,27 +580,454 @@ public class FishMiniGame implements Screen, InputProcessor {
 		/** Radius of the erasing tool. */
 		private static final int eraserSize = 5;
 
-		/** The current brush size. */
-		private int brushSize;
+		/** If strokes should be smoothed with Catmull-Rom splines instead of joining the samples with straight lines. */
+		private static final boolean smoothStrokes = true;
+		/** The length of the straight pieces that smoothed strokes are made of, in pixels. */
+		private static final float smoothStep = 4;
+
+		/** How many samples can wait for the worker. Must be a power of two. */
+		private static final int queueSize = 1024;
+
+		/** Sample kind that starts a stroke. */
+		private static final int STROKE_BEGIN = 0;
+		/** Sample kind that continues a stroke. */
+		private static final int STROKE_CONTINUE = 1;
+		/** Sample kind that ends a stroke. */
+		private static final int STROKE_END = 2;
+		/** Sample kind that switches to the pencil. */
+		private static final int USE_PENCIL = 3;
+		/** Sample kind that switches to the eraser. */
+		private static final int USE_ERASER = 4;
+		/** Sample kind that clears the canvas. */
+		private static final int CLEAR = 5;
+		/** Sample kind that undoes the last stroke. */
+		private static final int UNDO = 6;
+		/** Sample kind that redoes the last undone stroke. */
+		private static final int REDO = 7;
+		/** Sample kind that resizes the canvas. Its coordinates are the new width and height. */
+		private static final int RESIZE = 8;
+		/** Sample kind that forgets every stroke and goes back to the pencil, for a new round. */
+		private static final int RESET = 9;
+
+		/** The pool to take tiles from. */
+		private final CanvasTile.TilePool pool;
+		/** The tiles of the canvas, by row and then column. Tiles that have not been drawn on are {@code null}. Only used by the worker. */
+		private CanvasTile[][] tiles;
+		/**
+		 * The tiles that are in use, so they can be updated and drawn without checking every slot.
+		 * Changes to this, {@link #usedPositions} and {@link #releasedTiles} are synchronized on it.
+		 */
+		private final Array<CanvasTile> usedTiles;
+		/** The top-left corner of each used tile, as {@code column, row} pairs matching {@link #usedTiles}. */
+		private final IntArray usedPositions;
+		/** Tiles cleared by the worker, waiting to be returned to the pool on the rendering thread. */
+		private final Array<CanvasTile> releasedTiles;
+
+		/** The width of the canvas, in pixels. Only changed by the worker, while synchronized on {@link #usedTiles}. */
+		private int canvasWidth;
+		/** The height of the canvas, in pixels. Only changed by the worker, while synchronized on {@link #usedTiles}. */
+		private int canvasHeight;
+
+		/** Texture of a single clear pixel, drawn over the whole canvas under the tiles. */
+		private final Texture background;
+
+		/** The current drawing colour. Only used by the worker. */
+		private final Color brushColor;
+
+		/** Draws the strokes with the current brush size onto the tiles. Only used by the worker. */
+		private BrushRasterizer brush;
+		/** The sample kind of the current tool, {@link #USE_PENCIL} or {@link #USE_ERASER}. Only used by the worker. */
+		private int tool;
+		/** Every stroke that has been drawn. Only used by the worker. */
+		private final StrokeList strokes;
+
+		/** Samples waiting to be rasterized. */
+		private final SampleQueue queue;
+		/** The thread that rasterizes the samples. */
+		private final Thread worker;
+		/** If the worker should keep running. */
+		private volatile boolean running;
+		/** The time of the last sample the worker has finished with, in nanoseconds. */
+		private volatile long rasterizedTime;
+
+		/** The x-coordinates of the last four points of the current stroke, oldest first. Only used by the worker. */
+		private final int[] strokeX;
+		/** The y-coordinates of the last four points of the current stroke, oldest first. Only used by the worker. */
+		private final int[] strokeY;
+		/** How many points the current stroke has. Only used by the worker. */
+		private int strokePoints;
 
-		/** Canvas' pixmap. */
-		private Pixmap pixmap;
+		/**
+		 * The Canvas constructor.
+		 * No tiles are allocated until something is drawn.
+		 *
+		 * @param pool the pool to take tiles from.
+		 * @param width the width of the canvas, in pixels.
+		 * @param height the height of the canvas, in pixels.
+		 */
+		public Canvas(CanvasTile.TilePool pool, int width, int height) {
+			this.pool = pool;
+			this.canvasWidth = width;
+			this.canvasHeight = height;
+			int columns = (width + CanvasTile.SIZE - 1) / CanvasTile.SIZE;
+			int rows = (height + CanvasTile.SIZE - 1) / CanvasTile.SIZE;
+			this.tiles = new CanvasTile[rows][columns];
+			this.usedTiles = new Array<CanvasTile>(false, 16);
+			this.usedPositions = new IntArray(false, 32);
+			this.releasedTiles = new Array<CanvasTile>(false, 16);
+
+			Pixmap pixel = new Pixmap(1, 1, Pixmap.Format.RGB565);
+			pixel.setColor(clearColor);
+			pixel.fill();
+			this.background = new Texture(pixel);
+			pixel.dispose();
+
+			this.brushColor = new Color(drawColor);
+			this.brush = createBrush(width, height, pencilSize);
+			this.tool = USE_PENCIL;
+			this.strokes = new StrokeList();
+			this.strokeX = new int[4];
+			this.strokeY = new int[4];
+
+			this.queue = new SampleQueue(queueSize);
+			this.running = true;
+			this.worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					rasterizeSamples();
+				}
+			}, "Canvas rasterizer");
+			this.worker.setDaemon(true);
+			this.worker.start();
+		}
 
-		/** Texture that updates from the pixmap. */
-		private Texture texture;
+		/**
+		 * Create a brush that draws onto the tiles.
+		 *
+		 * @param width the width of the canvas.
+		 * @param height the height of the canvas.
+		 * @param radius the radius of the brush.
+		 * @return the brush.
+		 */
+		private BrushRasterizer createBrush(int width, int height, int radius) {
+			return new BrushRasterizer(width, height, radius) {
+				@Override
+				protected void fillSpan(int minX, int maxX, int y) {
+					int row = y / CanvasTile.SIZE;
+					int tileY = y - row * CanvasTile.SIZE;
+					for (int column = minX / CanvasTile.SIZE; column <= maxX / CanvasTile.SIZE; column++) {
+						int tileX = column * CanvasTile.SIZE;
+						getTile(column, row).fillSpan(Math.max(minX, tileX) - tileX, Math.min(maxX, tileX + CanvasTile.SIZE - 1) - tileX, tileY);
+					}
+				}
+			};
+		}
 
-		/** Whether the pixmap has been manipulated. */
-		private boolean pixmapChanged;
+		/**
+		 * Queue a sample for the worker.
+		 * If the queue is full, stroke continuations are dropped, which only makes the stroke less detailed.
+		 * Anything else waits for room, which only happens if the worker falls far behind.
+		 *
+		 * @param kind the kind of sample.
+		 * @param x the x-coordinate of the sample.
+		 * @param y the y-coordinate of the sample.
+		 */
+		private void queueSample(int kind, int x, int y) {
+			long time = Gdx.input.getCurrentEventTime();
+			while (!queue.offer(kind, x, y, time)) {
+				if (kind == STROKE_CONTINUE) {
+					return;
+				}
+				Thread.yield();
+			}
+			LockSupport.unpark(worker);
+		}
 
-		/** The Canvas constructor. */
-		public Canvas(Pixmap pixmap) {
-			this.pixmap = pixmap;
-			this.clear();
-			pixmap.setColor(drawColor);
+		/** Rasterize samples as they are queued, until the canvas is disposed. Runs on the worker. */
+		private void rasterizeSamples() {
+			SampleQueue.Sample sample = new SampleQueue.Sample();
+			while (running) {
+				if (!queue.poll(sample)) {
+					LockSupport.park(this);
+					continue;
+				}
+				switch (sample.kind) {
+					case STROKE_BEGIN:
+						strokes.begin(tool);
+						recordPoint(sample.x, sample.y);
+						startStroke(sample.x, sample.y);
+						break;
+					case STROKE_CONTINUE:
+						if (strokePoints > 0 && extendStroke(sample.x, sample.y)) {
+							recordPoint(sample.x, sample.y);
+						}
+						break;
+					case STROKE_END:
+						if (strokePoints == 0) {
+							strokes.begin(tool);
+							recordPoint(sample.x, sample.y);
+							startStroke(sample.x, sample.y);
+						} else if (extendStroke(sample.x, sample.y)) {
+							recordPoint(sample.x, sample.y);
+						}
+						finishStroke();
+						break;
+					case USE_PENCIL:
+					case USE_ERASER:
+						tool = sample.kind;
+						useTool(tool);
+						break;
+					case CLEAR:
+						strokes.begin(CLEAR);
+						releaseTiles();
+						break;
+					case UNDO:
+						if (strokePoints == 0 && strokes.undo()) {
+							redraw();
+						}
+						break;
+					case REDO:
+						if (strokePoints == 0 && strokes.redo()) {
+							drawStrokes(strokes.size() - 1, strokes.size());
+						}
+						break;
+					case RESIZE:
+						changeSize(sample.x, sample.y);
+						break;
+					case RESET:
+						strokes.clear();
+						strokePoints = 0;
+						releaseTiles();
+						tool = USE_PENCIL;
+						useTool(tool);
+						break;
+				}
+				rasterizedTime = sample.time;
+			}
+		}
+
+		/**
+		 * Record a point of the current stroke in {@link #strokes}. Runs on the worker.
+		 *
+		 * @param x the x-coordinate of the point, in pixels.
+		 * @param y the y-coordinate of the point, in pixels.
+		 */
+		private void recordPoint(int x, int y) {
+			strokes.add((float) x / canvasWidth, (float) y / canvasHeight);
+		}
+
+		/**
+		 * Start drawing a stroke. Runs on the worker.
+		 *
+		 * @param x the x-coordinate of the first point.
+		 * @param y the y-coordinate of the first point.
+		 */
+		private void startStroke(int x, int y) {
+			strokePoints = 0;
+			addStrokePoint(x, y);
+			brush.drawDot(x, y);
+		}
+
+		/**
+		 * Draw the current stroke to a new point. Runs on the worker.
+		 *
+		 * @param x the x-coordinate of the point.
+		 * @param y the y-coordinate of the point.
+		 * @return if the point was added, {@code false} if it is the same as the last point.
+		 */
+		private boolean extendStroke(int x, int y) {
+			if (!addStrokePoint(x, y)) {
+				return false;
+			}
+			drawStroke();
+			return true;
+		}
 
-			this.texture = new Texture(pixmap);
-			this.pixmapChanged = false;
-			this.brushSize = pencilSize;
+		/** Finish drawing the current stroke. Runs on the worker. */
+		private void finishStroke() {
+			if (smoothStrokes && strokePoints >= 2) {
+				// Finish the last segment, which was waiting for a point after it.
+				int first = strokePoints >= 3 ? 1 : 2;
+				drawCurve(strokeX[first], strokeY[first], strokeX[2], strokeY[2], strokeX[3], strokeY[3], strokeX[3], strokeY[3]);
+			}
+			strokePoints = 0;
+		}
+
+		/**
+		 * Draw some of the recorded strokes. Runs on the worker.
+		 *
+		 * @param from the index of the first stroke to draw.
+		 * @param to the index after the last stroke to draw.
+		 */
+		private void drawStrokes(int from, int to) {
+			for (int stroke = from; stroke < to; stroke++) {
+				int strokeTool = strokes.getTool(stroke);
+				if (strokeTool == CLEAR) {
+					releaseTiles();
+					continue;
+				}
+				useTool(strokeTool);
+				int start = strokes.getStart(stroke);
+				for (int point = start; point < strokes.getEnd(stroke); point++) {
+					int x = Math.round(strokes.getX(point) * canvasWidth);
+					int y = Math.round(strokes.getY(point) * canvasHeight);
+					if (point == start) {
+						startStroke(x, y);
+					} else {
+						extendStroke(x, y);
+					}
+				}
+				finishStroke();
+			}
+			useTool(tool);
+		}
+
+		/** Clear the tiles and draw every stroke that is shown again. Runs on the worker. */
+		private void redraw() {
+			releaseTiles();
+			int from = strokes.size();
+			while (from > 0 && strokes.getTool(from - 1) != CLEAR) { // Nothing before the last clear is visible.
+				from--;
+			}
+			drawStrokes(from, strokes.size());
+		}
+
+		/**
+		 * Resize the canvas, redrawing the strokes to fit. Runs on the worker.
+		 *
+		 * @param width the new width, in pixels.
+		 * @param height the new height, in pixels.
+		 */
+		private void changeSize(int width, int height) {
+			if (width == canvasWidth && height == canvasHeight) {
+				return;
+			}
+			releaseTiles();
+			synchronized (usedTiles) {
+				canvasWidth = width;
+				canvasHeight = height;
+			}
+			tiles = new CanvasTile[(height + CanvasTile.SIZE - 1) / CanvasTile.SIZE][(width + CanvasTile.SIZE - 1) / CanvasTile.SIZE];
+			brush = createBrush(width, height, brush.getRadius());
+			redraw();
+		}
+
+		/**
+		 * Add a point to the current stroke. Runs on the worker.
+		 *
+		 * @param x the x-coordinate of the point.
+		 * @param y the y-coordinate of the point.
+		 * @return if the point was added, {@code false} if it is the same as the last point.
+		 */
+		private boolean addStrokePoint(int x, int y) {
+			if (strokePoints > 0 && strokeX[3] == x && strokeY[3] == y) {
+				return false;
+			}
+			System.arraycopy(strokeX, 1, strokeX, 0, 3);
+			System.arraycopy(strokeY, 1, strokeY, 0, 3);
+			strokeX[3] = x;
+			strokeY[3] = y;
+			strokePoints++;
+			return true;
+		}
+
+		/** Draw the part of the current stroke that the newest point completes. Runs on the worker. */
+		private void drawStroke() {
+			if (strokePoints < 2) {
+				return;
+			}
+			if (!smoothStrokes) {
+				brush.drawLine(strokeX[2], strokeY[2], strokeX[3], strokeY[3]);
+			} else if (strokePoints >= 3) {
+				// A Catmull-Rom segment needs the points on both sides of it, so the stroke is drawn one point behind.
+				int first = strokePoints >= 4 ? 0 : 1;
+				drawCurve(strokeX[first], strokeY[first], strokeX[1], strokeY[1], strokeX[2], strokeY[2], strokeX[3], strokeY[3]);
+			}
+		}
+
+		/**
+		 * Draw the Catmull-Rom segment from (x1, y1) to (x2, y2) as a series of short lines. Runs on the worker.
+		 *
+		 * @param x0 the x-coordinate of the point before the segment.
+		 * @param y0 the y-coordinate of the point before the segment.
+		 * @param x1 the x-coordinate of the start of the segment.
+		 * @param y1 the y-coordinate of the start of the segment.
+		 * @param x2 the x-coordinate of the end of the segment.
+		 * @param y2 the y-coordinate of the end of the segment.
+		 * @param x3 the x-coordinate of the point after the segment.
+		 * @param y3 the y-coordinate of the point after the segment.
+		 */
+		private void drawCurve(int x0, int y0, int x1, int y1, int x2, int y2, int x3, int y3) {
+			int steps = Math.max(1, (int) Math.ceil(Math.hypot(x2 - x1, y2 - y1) / smoothStep));
+			int lastX = x1;
+			int lastY = y1;
+			for (int i = 1; i <= steps; i++) {
+				float t = (float) i / steps;
+				float t2 = t * t;
+				float t3 = t2 * t;
+				int x = Math.round(0.5f * (2 * x1 + (x2 - x0) * t + (2 * x0 - 5 * x1 + 4 * x2 - x3) * t2 + (3 * x1 - x0 - 3 * x2 + x3) * t3));
+				int y = Math.round(0.5f * (2 * y1 + (y2 - y0) * t + (2 * y0 - 5 * y1 + 4 * y2 - y3) * t2 + (3 * y1 - y0 - 3 * y2 + y3) * t3));
+				brush.drawLine(lastX, lastY, x, y);
+				lastX = x;
+				lastY = y;
+			}
+		}
+
+		/**
+		 * Change the colour and size of the brush to match a tool. Runs on the worker.
+		 *
+		 * @param kind {@link #USE_PENCIL} or {@link #USE_ERASER}.
+		 */
+		private void useTool(int kind) {
+			Color color = kind == USE_PENCIL ? drawColor : clearColor;
+			if (color.equals(brushColor)) {
+				return;
+			}
+			brushColor.set(color);
+			synchronized (usedTiles) {
+				for (CanvasTile tile : usedTiles) {
+					tile.setColor(color);
+				}
+			}
+			brush.setRadius(kind == USE_PENCIL ? pencilSize : eraserSize);
+		}
+
+		/**
+		 * Get the tile at the given position, taking a new one from the pool if it has not been drawn on yet.
+		 * Runs on the worker.
+		 *
+		 * @param column the column of the tile.
+		 * @param row the row of the tile.
+		 * @return the tile.
+		 */
+		private CanvasTile getTile(int column, int row) {
+			CanvasTile tile = tiles[row][column];
+			if (tile == null) {
+				tile = pool.obtain();
+				tile.fill(clearColor);
+				tile.setColor(brushColor);
+				tiles[row][column] = tile;
+				synchronized (usedTiles) {
+					usedTiles.add(tile);
+					usedPositions.add(column);
+					usedPositions.add(row);
+				}
+			}
+			return tile;
+		}
+
+		/** Stop using every tile, leaving them for {@link #update()} to return to the pool. Runs on the worker. */
+		private void releaseTiles() {
+			synchronized (usedTiles) {
+				releasedTiles.addAll(usedTiles);
+				usedTiles.clear();
+				usedPositions.clear();
+			}
+			for (CanvasTile[] row : tiles) {
+				for (int i = 0; i < row.length; i++) {
+					row[i] = null;
+				}
+			}
 		}
 
 		/**
@@ -530,78 +1037,139 @@ public class FishMiniGame implements Screen, InputProcessor {
 		 */
 		@Override
 		public void setColor(Color color) {
-			pixmap.setColor(color);
-			if (color.equals(drawColor)) {
-				brushSize = pencilSize;
-			} else {
-				brushSize = eraserSize;
-			}
+			queueSample(color.equals(drawColor) ? USE_PENCIL : USE_ERASER, 0, 0);
 		}
 
 		@Override
 		public void draw(Batch batch, float parentAlpha) {
-			batch.draw(texture, 0, 0);
+			synchronized (usedTiles) {
+				batch.draw(background, 0, 0, canvasWidth, canvasHeight);
+				for (int i = 0; i < usedTiles.size; i++) {
+					Texture texture = usedTiles.get(i).getTexture();
+					if (texture == null) {
+						continue;
+					}
+					// Tile rows go down from the top of the canvas, but the batch draws up from the bottom.
+					int x = usedPositions.get(2 * i) * CanvasTile.SIZE;
+					int y = canvasHeight - (usedPositions.get(2 * i + 1) + 1) * CanvasTile.SIZE;
+					batch.draw(texture, x, y);
+				}
+			}
 		}
 
-		/** Updates the texture. */
+		/** Updates the tile textures with what the worker has drawn, and returns cleared tiles to the pool. */
 		public void update() {
-			if (pixmapChanged) {
-				texture.draw(pixmap, 0, 0);
-				pixmapChanged = false;
+			synchronized (usedTiles) {
+				for (CanvasTile tile : usedTiles) {
+					tile.update();
+				}
+				for (CanvasTile tile : releasedTiles) {
+					pool.free(tile);
+				}
+				releasedTiles.clear();
 			}
 		}
 
-		/** Clears the pixmap. */
+		/**
+		 * Get how far the worker has got.
+		 *
+		 * @return the time of the last sample that has been rasterized, from {@link com.badlogic.gdx.Input#getCurrentEventTime()}.
+		 */
+		public long getRasterizedTime() {
+			return rasterizedTime;
+		}
+
+		/** Clears the canvas. */
 		@Override
 		public void clear() {
-			pixmap.setColor(clearColor);
-			pixmap.fill();
-			pixmapChanged = true;
+			queueSample(CLEAR, 0, 0);
 		}
 
 		/**
-		 * Draw a dot on the pixmap.
+		 * Start a stroke.
 		 *
-		 * @param x The x-coordinate.
-		 * @param y The y-coordinate.
+		 * @param x The x-coordinate on the screen.
+		 * @param y The y-coordinate on the screen.
 		 */
-		private void drawDot(Vector2 spot) {
-			pixmap.fillCircle((int) spot.x, (int) spot.y + shift, brushSize);
-			pixmapChanged = true;
+		public void beginStroke(int x, int y) {
+			queueSample(STROKE_BEGIN, x, y + shift);
 		}
 
 		/**
-		 * Draws a line when mouse is dragged.
+		 * Continue the current stroke when the mouse is dragged.
 		 *
-		 * @param from
-		 *            Where line starts.
-		 * @param to
-		 *            Where line ends.
+		 * @param x The x-coordinate on the screen.
+		 * @param y The y-coordinate on the screen.
 		 */
-		public void drawLine(Vector2 from, Vector2 to) {
-			for (float i = 0; i < 1f; i += brushSize / (100f * to.dst(from))) {
-				Vector2 line = from.lerp(to, i);
-				drawDot(line);
+		public void continueStroke(int x, int y) {
+			queueSample(STROKE_CONTINUE, x, y + shift);
+		}
+
+		/**
+		 * End the current stroke.
+		 *
+		 * @param x The x-coordinate on the screen.
+		 * @param y The y-coordinate on the screen.
+		 */
+		public void endStroke(int x, int y) {
+			queueSample(STROKE_END, x, y + shift);
+		}
+
+		/** Undo the last stroke or clear. Ignored in the middle of a stroke. */
+		public void undo() {
+			queueSample(UNDO, 0, 0);
+		}
+
+		/** Redo the last stroke or clear that was undone. Ignored in the middle of a stroke. */
+		public void redo() {
+			queueSample(REDO, 0, 0);
+		}
+
+		/**
+		 * Resize the canvas, scaling what has been drawn to fit.
+		 *
+		 * @param width the new width, in pixels.
+		 * @param height the new height, in pixels.
+		 */
+		public void resize(int width, int height) {
+			if (width > 0 && height > 0) {
+				queueSample(RESIZE, width, height);
 			}
+		}
 
-			drawDot(to);
-			pixmapChanged = true;
+		/** Forget everything that has been drawn, so the canvas can be used again. Unlike {@link #clear()}, this can not be undone. */
+		public void reset() {
+			queueSample(RESET, 0, 0);
 		}
 
+		/** Stops the worker and returns every tile to the pool. Must be called on the rendering thread. */
 		@Override
 		public void dispose() {
-			texture.dispose();
-			pixmap.dispose();
+			running = false;
+			LockSupport.unpark(worker);
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			releaseTiles();
+			update();
+			background.dispose();
 		}
 
 	}
 
 	@Override
 	public boolean keyDown(int keycode) {
+		boolean control = Gdx.input.isKeyPressed(Keys.CONTROL_LEFT) || Gdx.input.isKeyPressed(Keys.CONTROL_RIGHT);
 		if (keycode == Keys.ENTER) {
 			dialog();
+		} else if (!paused && control && keycode == Keys.Z) {
+			canvas.undo();
+		} else if (!paused && control && keycode == Keys.Y) {
+			canvas.redo();
 		} else if (keycode == game.save.getPauseButton()) {
-			paused = !paused;
+			setPaused(!paused);
 		}
 		return true;
 	}
@@ -619,9 +1187,7 @@ public class FishMiniGame implements Screen, InputProcessor {
 	@Override
 	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
 		if (!paused && button == Input.Buttons.LEFT) {
-			Vector2 current = new Vector2(screenX, screenY);
-			canvas.drawDot(current);
-			previous = current;
+			canvas.beginStroke(screenX, screenY);
 			leftDown = true;
 			return true;
 		}
@@ -631,8 +1197,7 @@ public class FishMiniGame implements Screen, InputProcessor {
 	@Override
 	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
 		if (!paused && button == Input.Buttons.LEFT) {
-			canvas.drawDot(new Vector2(screenX, screenY));
-			previous = null;
+			canvas.endStroke(screenX, screenY);
 			leftDown = false;
 			return true;
 		}
@@ -642,9 +1207,7 @@ public class FishMiniGame implements Screen, InputProcessor {
 	@Override
 	public boolean touchDragged(int screenX, int screenY, int pointer) {
 		if (!paused && leftDown) {
-			Vector2 current = new Vector2(screenX, screenY);
-			canvas.drawLine(previous, current);
-			previous = current;
+			canvas.continueStroke(screenX, screenY);
 			return true;
 		}
 		return false;
@@ -0,0 +1,116 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * A copy of the last frame drawn before the game was paused.
+ * Pause menus draw it behind themselves instead of rendering the paused game every frame.
+ * <br>
+ * To capture a frame, draw the scene between {@link #begin()} and {@link #end()}.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class FrozenFrame implements Disposable {
+
+	/** The colour the frozen frame is tinted with, to dim it behind the pause menu. */
+	private static final Color DIM_COLOUR = new Color(0.5f, 0.5f, 0.5f, 1);
+
+	/** The frame buffer holding the frame, or {@code null} if nothing has been captured yet. */
+	private FrameBuffer buffer;
+	/** The projection used to draw the frame over the whole screen. */
+	private final Matrix4 projection;
+	/** If {@link #buffer} holds a frame that is ready to be drawn. */
+	private boolean captured;
+
+	/** Constructor for {@link FrozenFrame}. */
+	public FrozenFrame() {
+		projection = new Matrix4();
+		captured = false;
+	}
+
+	/**
+	 * Check if there is a captured frame to draw.
+	 *
+	 * @return if {@link #draw(Batch)} can be used.
+	 */
+	public boolean isCaptured() {
+		return captured;
+	}
+
+	/** Start capturing a frame. Everything drawn until {@link #end()} is called goes into the frame instead of the screen. */
+	public void begin() {
+		int width = Gdx.graphics.getBackBufferWidth();
+		int height = Gdx.graphics.getBackBufferHeight();
+		if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+			if (buffer != null) {
+				buffer.dispose();
+			}
+			buffer = new FrameBuffer(Format.RGB888, width, height, false);
+		}
+		buffer.begin();
+	}
+
+	/** Finish capturing a frame. */
+	public void end() {
+		buffer.end();
+		captured = true;
+	}
+
+	/**
+	 * Draw the captured frame, dimmed, over the whole screen.
+	 *
+	 * @param batch the batch to draw with. It must not be drawing already.
+	 */
+	public void draw(Batch batch) {
+		Texture texture = buffer.getColorBufferTexture();
+		projection.setToOrtho2D(0, 0, texture.getWidth(), texture.getHeight());
+		batch.setProjectionMatrix(projection);
+		batch.setColor(DIM_COLOUR);
+		batch.begin();
+		// Frame buffer textures are upside down.
+		batch.draw(texture, 0, 0, texture.getWidth(), texture.getHeight(), 0, 0, texture.getWidth(), texture.getHeight(), false, true);
+		batch.end();
+		batch.setColor(Color.WHITE);
+	}
+
+	/** Forget the captured frame, so that a new one is captured the next time the game is paused. */
+	public void release() {
+		captured = false;
+	}
+
+	@Override
+	public void dispose() {
+		if (buffer != null) {
+			buffer.dispose();
+			buffer = null;
+		}
+		captured = false;
+	}
+}
@@ -0,0 +1,347 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Records what happens while students play, to find out where they struggle.
+ * <br>
+ * Events are kept in columns: one array for the type of every event, one for the level, and so on.
+ * Recording an event only stores it in those arrays, so it costs nothing noticeable on the rendering thread.
+ * Once {@link #BLOCK_SIZE} events have been recorded, the columns are appended to the log file as a block,
+ * using the {@link SaveWriter}. Every block ends with a CRC-32, so a block that was only partly written is ignored.
+ * <br>
+ * A block is made of:
+ * <ul>
+ * <li>{@link #MAGIC}, the time the session started in milliseconds, and the number of events.</li>
+ * <li>The type of each event, as a byte.</li>
+ * <li>The level of each event, the first argument of each event, and the second argument of each event, as ints.</li>
+ * <li>The value of each event, as a float.</li>
+ * <li>The CRC-32 of everything before it, as an int.</li>
+ * </ul>
+ * The log is read back with {@link #read(FileHandle, GameplayStats)}, one block at a time, so reading it takes the same memory however long it is.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class GameplayLog {
+
+	/** A level was finished. The value is how long it took, in seconds. */
+	public static final byte LEVEL_FINISHED = 1;
+	/** The player ran into a wire that was on. The first argument is the split column of the wire. */
+	public static final byte DIED = 2;
+	/**
+	 * A gate was marked. The first argument is the split column of the gate, the second is the new electric state,
+	 * and the value is 1 if the gate had already been marked on or off.
+	 */
+	public static final byte GATE_MARKED = 3;
+	/** A fish minigame answer was given. The first argument is the answer given and the second is the correct answer. */
+	public static final byte FISH_ANSWERED = 4;
+
+	/** The number that every block starts with. */
+	private static final int MAGIC = 0x414D5A4C;
+	/** How many events are written together as a block. */
+	private static final int BLOCK_SIZE = 256;
+	/** The size of an event in a block, in bytes. */
+	private static final int EVENT_BYTES = 1 + 4 + 4 + 4 + 4;
+
+	/** The log file. */
+	private final FileHandle file;
+	/** Appends the blocks to {@link #file}. */
+	private final SaveWriter writer;
+	/** The time this session started, in milliseconds since the epoch. */
+	private final long session;
+
+	/** The type of each recorded event. */
+	private final byte[] types;
+	/** The level of each recorded event. */
+	private final int[] levels;
+	/** The first argument of each recorded event. */
+	private final int[] firstArguments;
+	/** The second argument of each recorded event. */
+	private final int[] secondArguments;
+	/** The value of each recorded event. */
+	private final float[] values;
+	/** How many events have been recorded since the last block was written. */
+	private int size;
+
+	/**
+	 * Constructor for {@link GameplayLog}.
+	 *
+	 * @param file the log file, which blocks are appended to.
+	 * @param writer the writer to append the blocks with.
+	 */
+	public GameplayLog(FileHandle file, SaveWriter writer) {
+		this.file = file;
+		this.writer = writer;
+		this.session = System.currentTimeMillis();
+		types = new byte[BLOCK_SIZE];
+		levels = new int[BLOCK_SIZE];
+		firstArguments = new int[BLOCK_SIZE];
+		secondArguments = new int[BLOCK_SIZE];
+		values = new float[BLOCK_SIZE];
+	}
+
+	/**
+	 * Record that a level was finished.
+	 *
+	 * @param level the level.
+	 * @param seconds how long it took, in seconds of play.
+	 */
+	public void levelFinished(int level, float seconds) {
+		record(LEVEL_FINISHED, level, 0, 0, seconds);
+	}
+
+	/**
+	 * Record that the player ran into a wire that was on.
+	 *
+	 * @param level the level.
+	 * @param column the split column of the wire.
+	 */
+	public void died(int level, int column) {
+		record(DIED, level, column, 0, 0);
+	}
+
+	/**
+	 * Record that a gate was marked.
+	 *
+	 * @param level the level.
+	 * @param column the split column of the gate.
+	 * @param state the electric state it was marked with.
+	 * @param remarked if the gate had already been marked on or off.
+	 */
+	public void gateMarked(int level, int column, int state, boolean remarked) {
+		record(GATE_MARKED, level, column, state, remarked ? 1 : 0);
+	}
+
+	/**
+	 * Record an answer to the fish minigame.
+	 *
+	 * @param level the level the minigame came after.
+	 * @param given the answer given.
+	 * @param correct the correct answer.
+	 */
+	public void fishAnswered(int level, int given, int correct) {
+		record(FISH_ANSWERED, level, given, correct, 0);
+	}
+
+	/**
+	 * Record an event, and write the block of events if it is full.
+	 *
+	 * @param type the type of the event.
+	 * @param level the level.
+	 * @param first the first argument.
+	 * @param second the second argument.
+	 * @param value the value.
+	 */
+	private void record(byte type, int level, int first, int second, float value) {
+		types[size] = type;
+		levels[size] = level;
+		firstArguments[size] = first;
+		secondArguments[size] = second;
+		values[size] = value;
+		size++;
+		if (size == BLOCK_SIZE) {
+			flush();
+		}
+	}
+
+	/** Queue the events recorded so far to be appended to the log. */
+	public void flush() {
+		if (size == 0) {
+			return;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + size * EVENT_BYTES + 4);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeLong(session);
+			out.writeInt(size);
+			out.write(types, 0, size);
+			writeColumn(out, levels);
+			writeColumn(out, firstArguments);
+			writeColumn(out, secondArguments);
+			for (int i = 0; i < size; i++) {
+				out.writeFloat(values[i]);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(bytes.toByteArray());
+			out.writeInt((int) crc.getValue());
+		} catch (IOException e) {
+			throw new GdxRuntimeException(e); // Writing to memory does not fail.
+		}
+		writer.append(file, bytes.toByteArray());
+		size = 0;
+	}
+
+	/**
+	 * Write the recorded part of a column.
+	 *
+	 * @param out the stream to write to.
+	 * @param column the column to write.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeColumn(DataOutputStream out, int[] column) throws IOException {
+		for (int i = 0; i < size; i++) {
+			out.writeInt(column[i]);
+		}
+	}
+
+	/**
+	 * Read every event in a log into the given statistics, in a single pass.
+	 * A block that is damaged or was only partly written is skipped, and reading carries on from the next {@link #MAGIC}
+	 * that starts a block whose CRC-32 matches. So blocks appended after a crash are still read.
+	 *
+	 * @param file the log file.
+	 * @param stats the statistics to add the events to.
+	 * @return the statistics.
+	 */
+	public static GameplayStats read(FileHandle file, GameplayStats stats) {
+		if (!file.exists()) {
+			return stats;
+		}
+		byte[] block = new byte[16 + BLOCK_SIZE * EVENT_BYTES + 4];
+		int filled = 0; // How much of block has been read from the file.
+		long skipped = 0;
+		InputStream in = new BufferedInputStream(file.read());
+		try {
+			CRC32 crc = new CRC32();
+			while (true) {
+				filled = fill(in, block, filled, 16);
+				if (filled < 16) {
+					skipped += filled;
+					break;
+				}
+				int count = readInt(block, 12);
+				int length = 16 + count * EVENT_BYTES;
+				boolean valid = readInt(block, 0) == MAGIC && count > 0 && count <= BLOCK_SIZE;
+				if (valid) {
+					filled = fill(in, block, filled, length + 4);
+					if (filled < length + 4) {
+						valid = false;
+					} else {
+						crc.reset();
+						crc.update(block, 0, length);
+						valid = readInt(block, length) == (int) crc.getValue();
+					}
+				}
+				if (!valid) {
+					int next = findMagic(block, 1, filled);
+					skipped += next;
+					filled -= next;
+					System.arraycopy(block, next, block, 0, filled);
+					continue;
+				}
+
+				int levelsStart = 16 + count;
+				int firstStart = levelsStart + 4 * count;
+				int secondStart = firstStart + 4 * count;
+				int valuesStart = secondStart + 4 * count;
+				for (int i = 0; i < count; i++) {
+					stats.add(block[16 + i], readInt(block, levelsStart + 4 * i), readInt(block, firstStart + 4 * i), readInt(block, secondStart + 4 * i),
+						Float.intBitsToFloat(readInt(block, valuesStart + 4 * i)));
+				}
+				filled -= length + 4;
+				System.arraycopy(block, length + 4, block, 0, filled);
+			}
+		} catch (IOException e) {
+			Gdx.app.error("GameplayLog", "Could not finish reading " + file, e);
+		} catch (GdxRuntimeException e) {
+			Gdx.app.error("GameplayLog", "Could not read " + file, e);
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+		if (skipped > 0) {
+			Gdx.app.error("GameplayLog", "Skipped " + skipped + " damaged bytes in " + file);
+		}
+		return stats;
+	}
+
+	/**
+	 * Read from a stream until an array holds enough bytes, or the stream ends.
+	 *
+	 * @param in the stream to read from.
+	 * @param bytes the array to read into.
+	 * @param filled how many bytes the array already holds.
+	 * @param wanted how many bytes the array should hold.
+	 * @return how many bytes the array holds now. Less than {@code wanted} if the stream ended.
+	 * @throws IOException if reading failed.
+	 */
+	private static int fill(InputStream in, byte[] bytes, int filled, int wanted) throws IOException {
+		while (filled < wanted) {
+			int read = in.read(bytes, filled, wanted - filled);
+			if (read < 0) {
+				break;
+			}
+			filled += read;
+		}
+		return filled;
+	}
+
+	/**
+	 * Find where the next block could start in an array.
+	 *
+	 * @param bytes the array.
+	 * @param from the first position to check.
+	 * @param end how many bytes of the array are used.
+	 * @return the position of the next {@link #MAGIC}. If there is none, the position of the last bytes that could be the start of one.
+	 */
+	private static int findMagic(byte[] bytes, int from, int end) {
+		for (int i = from; i <= end - 4; i++) {
+			if (readInt(bytes, i) == MAGIC) {
+				return i;
+			}
+		}
+		return Math.max(from, end - 3);
+	}
+
+	/**
+	 * Read every event in this log into new statistics.
+	 * Events that have not been written yet are flushed first, but may still be missing if the {@link SaveWriter} has not written them yet.
+	 *
+	 * @return the statistics.
+	 */
+	public GameplayStats read() {
+		flush();
+		return read(file, new GameplayStats());
+	}
+
+	/**
+	 * Read a big-endian int from an array.
+	 *
+	 * @param bytes the array.
+	 * @param offset where the int starts.
+	 * @return the int.
+	 */
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+}
@@ -0,0 +1,213 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+/**
+ * Statistics about how students play, computed from a {@link GameplayLog} in a single pass.
+ * <br>
+ * Memory use is fixed no matter how many events are added. Level times are counted in a histogram
+ * whose buckets grow by {@link #TIME_GROWTH} each, so percentiles are accurate to within a few percent.
+ * Levels from {@link #LEVELS} - 1 up are counted together, and so are split columns from {@link #COLUMNS} - 1 up.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class GameplayStats {
+
+	/** How many levels are counted separately. */
+	public static final int LEVELS = 64;
+	/** How many split columns are counted separately. */
+	public static final int COLUMNS = 32;
+	/** How many buckets the level time histogram has. The last one holds every time over about 40 minutes. */
+	private static final int TIME_BUCKETS = 160;
+	/** How much longer the times in each level time bucket are than in the one before. */
+	private static final double TIME_GROWTH = 1.05;
+	/** The natural logarithm of {@link #TIME_GROWTH}. */
+	private static final double LOG_TIME_GROWTH = Math.log(TIME_GROWTH);
+
+	/** How many times each level was finished. */
+	private final int[] finished;
+	/** The histogram of how long each level took. */
+	private final int[][] times;
+	/** How many times the player died at each split column of each level. */
+	private final int[][] deaths;
+	/** How many times gates were marked on each level. */
+	private final int[] gateMarks;
+	/** How many times gates that were already marked on or off were marked again on each level. */
+	private final int[] gateRemarks;
+	/** How many fish minigame answers were given after each level. */
+	private final int[] fishAnswers;
+	/** How many fish minigame answers after each level were exactly right. */
+	private final int[] fishExact;
+	/** The sum of the relative errors of the fish minigame answers after each level. */
+	private final double[] fishError;
+
+	/** Constructor for {@link GameplayStats}. */
+	public GameplayStats() {
+		finished = new int[LEVELS];
+		times = new int[LEVELS][TIME_BUCKETS];
+		deaths = new int[LEVELS][COLUMNS];
+		gateMarks = new int[LEVELS];
+		gateRemarks = new int[LEVELS];
+		fishAnswers = new int[LEVELS];
+		fishExact = new int[LEVELS];
+		fishError = new double[LEVELS];
+	}
+
+	/**
+	 * Add an event. Unknown types of events are ignored.
+	 *
+	 * @param type the type of the event, one of the constants in {@link GameplayLog}.
+	 * @param level the level.
+	 * @param first the first argument.
+	 * @param second the second argument.
+	 * @param value the value.
+	 */
+	public void add(byte type, int level, int first, int second, float value) {
+		level = clamp(level, LEVELS);
+		switch (type) {
+			case GameplayLog.LEVEL_FINISHED:
+				finished[level]++;
+				times[level][Math.min(TIME_BUCKETS - 1, (int) (Math.log1p(Math.max(0, value)) / LOG_TIME_GROWTH))]++;
+				break;
+			case GameplayLog.DIED:
+				deaths[level][clamp(first, COLUMNS)]++;
+				break;
+			case GameplayLog.GATE_MARKED:
+				gateMarks[level]++;
+				if (value != 0) {
+					gateRemarks[level]++;
+				}
+				break;
+			case GameplayLog.FISH_ANSWERED:
+				fishAnswers[level]++;
+				if (first == second) {
+					fishExact[level]++;
+				}
+				fishError[level] += Math.abs(first - second) / (double) Math.max(1, second);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Clamp an index into [0, count - 1].
+	 *
+	 * @param index the index.
+	 * @param count the number of indices.
+	 * @return the clamped index.
+	 */
+	private static int clamp(int index, int count) {
+		return Math.max(0, Math.min(count - 1, index));
+	}
+
+	/**
+	 * Get how many times a level was finished.
+	 *
+	 * @param level the level.
+	 * @return how many times it was finished.
+	 */
+	public int getFinished(int level) {
+		return finished[clamp(level, LEVELS)];
+	}
+
+	/**
+	 * Get a percentile of how long a level took to finish.
+	 *
+	 * @param level the level.
+	 * @param percentile the percentile, in the range [0, 1]. 0.5 gives the median.
+	 * @return the time, in seconds, or 0 if the level was never finished.
+	 */
+	public float getTime(int level, float percentile) {
+		level = clamp(level, LEVELS);
+		if (finished[level] == 0) {
+			return 0;
+		}
+		int rank = Math.max(1, (int) Math.ceil(percentile * finished[level]));
+		int seen = 0;
+		int bucket = 0;
+		for (; bucket < TIME_BUCKETS - 1; bucket++) {
+			seen += times[level][bucket];
+			if (seen >= rank) {
+				break;
+			}
+		}
+		return (float) Math.expm1((bucket + 0.5) * LOG_TIME_GROWTH);
+	}
+
+	/**
+	 * Get how many times the player died at a split column of a level.
+	 *
+	 * @param level the level.
+	 * @param column the split column.
+	 * @return the number of deaths.
+	 */
+	public int getDeaths(int level, int column) {
+		return deaths[clamp(level, LEVELS)][clamp(column, COLUMNS)];
+	}
+
+	/**
+	 * Get how many times the player died on a level.
+	 *
+	 * @param level the level.
+	 * @return the number of deaths.
+	 */
+	public int getDeaths(int level) {
+		int total = 0;
+		for (int count : deaths[clamp(level, LEVELS)]) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * Get the fraction of gate markings on a level that changed a gate that was already marked on or off.
+	 *
+	 * @param level the level.
+	 * @return the fraction, or 0 if no gates were marked.
+	 */
+	public float getGateRemarkRate(int level) {
+		level = clamp(level, LEVELS);
+		return gateMarks[level] == 0 ? 0 : gateRemarks[level] / (float) gateMarks[level];
+	}
+
+	/**
+	 * Get the fraction of fish minigame answers after a level that were not exactly right.
+	 *
+	 * @param level the level.
+	 * @return the fraction, or 0 if no answers were given.
+	 */
+	public float getFishErrorRate(int level) {
+		level = clamp(level, LEVELS);
+		return fishAnswers[level] == 0 ? 0 : 1 - fishExact[level] / (float) fishAnswers[level];
+	}
+
+	/**
+	 * Get the average relative error of the fish minigame answers after a level.
+	 *
+	 * @param level the level.
+	 * @return the average of |given - correct| / correct, or 0 if no answers were given.
+	 */
+	public float getFishRelativeError(int level) {
+		level = clamp(level, LEVELS);
+		return fishAnswers[level] == 0 ? 0 : (float) (fishError[level] / fishAnswers[level]);
+	}
+}
@@ -40,6 +40,9 @@ import com.badlogic.gdx.utils.viewport.ScreenViewport;
  */
 public class HelpScreen extends MazeScreen {
 
+	/** The instructions shown at the start of the tutorial. */
+	private static final String INSTRUCTIONS = "Check the logic gates to find the state of each wire and make your way through the maze. Be careful to avoid\nany wires that are on, as that means that they are electrified!";
+
 	/** The label for the instructions. */
 	private Label instruct;
 	/** The label telling the users about the click options. */
@@ -56,13 +59,13 @@ public class HelpScreen extends MazeScreen {
 	private Table truthTable;
 
 	/**
-	 * Creates the help screen.
+	 * Creates the help screen. Call {@link #setLevel(LevelSnapshot)} and prepare it before showing it.
 	 *
 	 * @param game The instance for the AmazingMazeGame used.
 	 */
 	public HelpScreen(final AmazingMazeGame game) {
 		super(game, true);
-		instruct = new Label("Check the logic gates to find the state of each wire and make your way through the maze. Be careful to avoid\nany wires that are on, as that means that they are electrified!", game.assets.skin, Assets.HUD_STYLE);
+		instruct = new Label(INSTRUCTIONS, game.assets.skin, Assets.HUD_STYLE);
 		instruct.setAlignment(Align.center);
 		clicks = new Label("Mark the wires by clicking on the gates. Left click = on. Right click = off. Middle click = unknown.", game.assets.skin, Assets.HUD_STYLE);
 		clicks.setAlignment(Align.center);
@@ -144,9 +147,15 @@ public class HelpScreen extends MazeScreen {
 		}
 	}
 
+	@Override
+	public void attach() {
+		super.attach();
+		instruct.setText(INSTRUCTIONS);
+	}
+
 	@Override
 	public void nextScreen() {
-		super.game.setScreen(super.game.menuScreen);
+		super.game.transition.start(super.game.menuScreen);
 	}
 
 	@Override
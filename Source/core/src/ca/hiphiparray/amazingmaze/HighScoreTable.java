@@ -0,0 +1,440 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Every score each player has got, and the best scores overall.
+ * <br>
+ * The scores are kept in an append-only journal. Each record is its length, its contents, and a CRC32 checksum of its contents.
+ * Loading checks the length and checksum of each record. Where they do not match, it looks for the next record that does,
+ * so a flipped bit only loses the record it is in. Damage at the end, left by a write that was interrupted, is cut off.
+ * The journal is never compacted while it has damaged records in the middle or could not be read,
+ * since that would drop the scores in them. Otherwise it is compacted on load once most of it is records that are skipped.
+ * <br>
+ * The best scores are kept in a bounded min-heap, so adding a score takes O(log K) time for K best scores.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class HighScoreTable {
+
+	/** Record type for a score. */
+	private static final byte SCORE_RECORD = 1;
+	/** The longest a valid record can be, in bytes. Anything longer must be corrupt. */
+	private static final int MAX_RECORD_LENGTH = 1024;
+	/** How many bytes of skipped records the journal must have before it is compacted on load. */
+	private static final int MIN_COMPACT_WASTE = 4096;
+
+	/** The journal file. */
+	private final FileHandle journal;
+	/** Writes to the journal in the background. */
+	private final SaveWriter writer;
+
+	/** The best scores, as a min-heap ordered by score. */
+	private final HighScore[] heap;
+	/** How many scores are in {@link #heap}. */
+	private int heapSize;
+	/** The best scores, from best to worst, padded with empty entries. {@code null} if it needs to be rebuilt. */
+	private HighScore[] topScores;
+
+	/** Every score of each player, oldest first. */
+	private final ObjectMap<String, IntArray> history;
+
+	/** If every score in the journal is in the table, so the journal can be compacted without losing any. */
+	private boolean complete;
+	/** How long the journal is, in bytes, counting records that are queued to be added. */
+	private long journalLength;
+	/** How long the journal would be after being compacted, in bytes. */
+	private long liveLength;
+
+	/** Used to checksum records. */
+	private final CRC32 checksum;
+	/** Used to build the contents of a record. */
+	private final ByteArrayOutputStream contentBytes;
+	/** Writes to {@link #contentBytes}. */
+	private final DataOutputStream contentOut;
+	/** Used to build whole records. */
+	private final ByteArrayOutputStream recordBytes;
+	/** Writes to {@link #recordBytes}. */
+	private final DataOutputStream recordOut;
+
+	/**
+	 * Constructor for {@link HighScoreTable}. The table starts empty, call {@link #load()} to read the journal.
+	 *
+	 * @param journal the journal file.
+	 * @param writer writes to the journal in the background.
+	 * @param size how many of the best scores to keep track of.
+	 */
+	public HighScoreTable(FileHandle journal, SaveWriter writer, int size) {
+		this.journal = journal;
+		this.writer = writer;
+		this.heap = new HighScore[size];
+		this.history = new ObjectMap<String, IntArray>();
+		this.checksum = new CRC32();
+		this.contentBytes = new ByteArrayOutputStream(64);
+		this.contentOut = new DataOutputStream(contentBytes);
+		this.recordBytes = new ByteArrayOutputStream(64);
+		this.recordOut = new DataOutputStream(recordBytes);
+	}
+
+	/**
+	 * Replace the table with the contents of the journal.
+	 * A damaged end of the journal is cut off. Damage in the middle is skipped, and the journal is then never compacted,
+	 * since the damaged records can not be kept. Otherwise, the journal is compacted once most of it is records that are skipped.
+	 * If the journal could not be read, nothing is loaded and the journal is left alone.
+	 *
+	 * @return if the journal exists.
+	 */
+	public boolean load() {
+		clear();
+		writer.recover(journal);
+		if (!journal.exists()) {
+			complete = true;
+			return false;
+		}
+
+		byte[] bytes;
+		try {
+			bytes = journal.readBytes();
+		} catch (GdxRuntimeException e) {
+			Gdx.app.error("HighScoreTable", "Could not read " + journal.path() + ", so it will not be compacted", e);
+			return true;
+		}
+
+		int position = 0;
+		int end = 0; // The end of the last valid record.
+		boolean skipped = false;
+		while (position < bytes.length) {
+			int length = getRecordLength(bytes, position);
+			if (length < 0) {
+				int next = findRecord(bytes, position + 1);
+				if (next < 0) {
+					break; // Nothing valid follows, so this is the damaged end of the journal.
+				}
+				Gdx.app.error("HighScoreTable", "Skipping " + (next - position) + " damaged bytes in " + journal.path());
+				skipped = true;
+				position = next;
+				continue;
+			}
+			if (readRecord(bytes, position + 4, length)) {
+				liveLength += length + 8;
+			}
+			position += length + 8;
+			end = position;
+		}
+		journalLength = end;
+		complete = !skipped;
+
+		if (end < bytes.length) {
+			Gdx.app.log("HighScoreTable", "Dropping damaged end of " + journal.path());
+			writer.write(journal, Arrays.copyOf(bytes, end));
+		} else if (complete && journalLength - liveLength >= MIN_COMPACT_WASTE && journalLength - liveLength > liveLength) {
+			Gdx.app.log("HighScoreTable", "Compacting " + journal.path());
+			compact();
+		}
+		return true;
+	}
+
+	/**
+	 * Check if a valid record starts at a position in the journal.
+	 *
+	 * @param bytes the journal.
+	 * @param position where the record would start.
+	 * @return the length of the contents of the record, or -1 if there is no valid record there.
+	 */
+	private int getRecordLength(byte[] bytes, int position) {
+		if (bytes.length - position < 8) {
+			return -1;
+		}
+		int length = readInt(bytes, position);
+		if (length <= 0 || length > MAX_RECORD_LENGTH || length > bytes.length - position - 8) {
+			return -1;
+		}
+		checksum.reset();
+		checksum.update(bytes, position + 4, length);
+		if ((int) checksum.getValue() != readInt(bytes, position + 4 + length)) {
+			return -1;
+		}
+		return length;
+	}
+
+	/**
+	 * Find the next valid record in the journal.
+	 *
+	 * @param bytes the journal.
+	 * @param from the first position to check.
+	 * @return where the record starts, or -1 if there are no more valid records.
+	 */
+	private int findRecord(byte[] bytes, int from) {
+		for (int position = from; position <= bytes.length - 8; position++) {
+			if (getRecordLength(bytes, position) >= 0) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Read a big-endian int.
+	 *
+	 * @param bytes the bytes to read from.
+	 * @param position where the int starts.
+	 * @return the int.
+	 */
+	private static int readInt(byte[] bytes, int position) {
+		return (bytes[position] << 24) | ((bytes[position + 1] & 0xFF) << 16) | ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+	}
+
+	/**
+	 * Apply a record from the journal.
+	 *
+	 * @param bytes the journal.
+	 * @param offset where the contents of the record start.
+	 * @param length how long the contents are.
+	 * @return if the record was applied, or {@code false} if it was skipped.
+	 */
+	private boolean readRecord(byte[] bytes, int offset, int length) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+		try {
+			if (in.readByte() != SCORE_RECORD) { // Unknown record types are skipped.
+				return false;
+			}
+			String name = in.readUTF();
+			int score = in.readInt();
+			put(name, score);
+			return true;
+		} catch (IOException e) {
+			Gdx.app.error("HighScoreTable", "Skipping malformed record in " + journal.path(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Add a score to the table and the journal.
+	 *
+	 * @param score the score to add.
+	 */
+	public void add(HighScore score) {
+		put(score.getName(), score.getScore());
+		recordBytes.reset();
+		writeScore(score.getName(), score.getScore());
+		writer.append(journal, recordBytes.toByteArray());
+		journalLength += recordBytes.size();
+		liveLength += recordBytes.size();
+	}
+
+	/**
+	 * Add a score to the table.
+	 *
+	 * @param name the name of the player.
+	 * @param score the score they got.
+	 */
+	private void put(String name, int score) {
+		IntArray scores = history.get(name);
+		if (scores == null) {
+			scores = new IntArray();
+			history.put(name, scores);
+		}
+		scores.add(score);
+
+		if (heapSize < heap.length) {
+			heap[heapSize] = new HighScore(name, score);
+			siftUp(heapSize++);
+		} else if (heap.length > 0 && score > heap[0].getScore()) {
+			heap[0] = new HighScore(name, score);
+			siftDown(0);
+		} else {
+			return;
+		}
+		topScores = null;
+	}
+
+	/**
+	 * Move a heap entry up until its parent is no larger.
+	 *
+	 * @param index the index of the entry.
+	 */
+	private void siftUp(int index) {
+		HighScore entry = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (heap[parent].getScore() <= entry.getScore()) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = entry;
+	}
+
+	/**
+	 * Move a heap entry down until its children are no smaller.
+	 *
+	 * @param index the index of the entry.
+	 */
+	private void siftDown(int index) {
+		HighScore entry = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heap[child + 1].getScore() < heap[child].getScore()) {
+				child++;
+			}
+			if (entry.getScore() <= heap[child].getScore()) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = entry;
+	}
+
+	/**
+	 * Write a score record to {@link #recordBytes}.
+	 *
+	 * @param name the name of the player.
+	 * @param score the score they got.
+	 */
+	private void writeScore(String name, int score) {
+		try {
+			contentBytes.reset();
+			contentOut.writeByte(SCORE_RECORD);
+			contentOut.writeUTF(name);
+			contentOut.writeInt(score);
+			byte[] contents = contentBytes.toByteArray();
+
+			checksum.reset();
+			checksum.update(contents, 0, contents.length);
+			recordOut.writeInt(contents.length);
+			recordOut.write(contents);
+			recordOut.writeInt((int) checksum.getValue());
+		} catch (IOException e) {
+			throw new GdxRuntimeException(e); // Writing to memory cannot fail.
+		}
+	}
+
+	/**
+	 * Rewrite the journal with one record per score, dropping anything that is no longer needed.
+	 * Does nothing if the journal could not be read or has damaged records, since the scores that were not read would be lost.
+	 */
+	public void compact() {
+		if (!complete) {
+			Gdx.app.log("HighScoreTable", "Not compacting " + journal.path() + " since not every record could be read");
+			return;
+		}
+		recordBytes.reset();
+		for (ObjectMap.Entry<String, IntArray> entry : history.entries()) {
+			for (int i = 0; i < entry.value.size; i++) {
+				writeScore(entry.key, entry.value.get(i));
+			}
+		}
+		writer.write(journal, recordBytes.toByteArray());
+		journalLength = recordBytes.size();
+		liveLength = journalLength;
+	}
+
+	/** Remove every score, from the table and the journal. */
+	public void reset() {
+		clear();
+		complete = true;
+		writer.write(journal, new byte[0]);
+	}
+
+	/** Remove every score from the table, without changing the journal. */
+	private void clear() {
+		Arrays.fill(heap, null);
+		heapSize = 0;
+		history.clear();
+		topScores = null;
+		complete = false;
+		journalLength = 0;
+		liveLength = 0;
+	}
+
+	/**
+	 * Get the best scores.
+	 *
+	 * @return the best scores, from best to worst. Unused places are filled with empty entries. Must not be changed.
+	 */
+	public HighScore[] getTopScores() {
+		if (topScores == null) {
+			topScores = new HighScore[heap.length];
+			System.arraycopy(heap, 0, topScores, 0, heapSize);
+			Arrays.sort(topScores, 0, heapSize, Collections.reverseOrder());
+			for (int i = heapSize; i < topScores.length; i++) {
+				topScores[i] = new HighScore();
+			}
+		}
+		return topScores;
+	}
+
+	/**
+	 * Get every score a player has got.
+	 *
+	 * @param name the name of the player.
+	 * @return their scores, oldest first, or {@code null} if they have none. Must not be changed.
+	 */
+	public IntArray getHistory(String name) {
+		return history.get(name);
+	}
+
+	/**
+	 * Get the best score a player has got.
+	 *
+	 * @param name the name of the player.
+	 * @return their best score, or -1 if they have none.
+	 */
+	public int getBest(String name) {
+		IntArray scores = history.get(name);
+		int best = -1;
+		if (scores != null) {
+			for (int i = 0; i < scores.size; i++) {
+				best = Math.max(best, scores.get(i));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Get the names of every player with a score.
+	 *
+	 * @return the names.
+	 */
+	public ObjectMap.Keys<String> getNames() {
+		return history.keys();
+	}
+}
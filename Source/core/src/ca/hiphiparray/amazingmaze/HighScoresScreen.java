@@ -64,6 +64,33 @@ public class HighScoresScreen implements Screen {
 	public void show() {
 		Gdx.input.setInputProcessor(stage);
 		game.music.setSong(Song.MENU);
+
+		final HighScore[] localScores = game.save.getHighScores();
+		showScores("High Scores", localScores, true);
+		if (game.leaderboard != null) {
+			game.leaderboard.fetchTop(localScores.length, new LeaderboardClient.Listener() {
+				@Override
+				public void received(HighScore[] scores) {
+					if (scores != null && game.getScreen() == HighScoresScreen.this) {
+						HighScore[] padded = new HighScore[localScores.length];
+						for (int i = 0; i < padded.length; i++) {
+							padded[i] = i < scores.length ? scores[i] : new HighScore();
+						}
+						showScores("Classroom High Scores", padded, false);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Lay out the screen with the given high scores.
+	 *
+	 * @param title the title to show above the scores.
+	 * @param scores the high scores, best first.
+	 * @param local if the scores are the ones kept on this computer, which can be reset.
+	 */
+	private void showScores(String title, HighScore[] scores, boolean local) {
 		stage.clear();
 
 		table = new Table();
@@ -71,11 +98,10 @@ public class HighScoresScreen implements Screen {
 		table.top();
 		stage.addActor(table);
 
-		Label header = new Label("High Scores", game.assets.skin, Assets.SANS_HEADER_STYLE);
+		Label header = new Label(title, game.assets.skin, Assets.SANS_HEADER_STYLE);
 		table.add(header).pad(Gdx.graphics.getHeight() / 20).colspan(3);
 		table.row();
 
-		HighScore[] scores = game.save.getHighScores();
 		for (int i = 0; i < scores.length; i++) {
 			Label position = new Label(Integer.toString(i + 1) + ". ", game.assets.skin);
 			Label name = new Label(scores[i].getName(), game.assets.skin);
@@ -96,19 +122,21 @@ public class HighScoresScreen implements Screen {
 			public void changed(ChangeEvent event, Actor actor) {
 				if (resetButton.isPressed()) {
 					game.save.resetScores();
-					game.setScreen(game.highScoresScreen);
+					game.transition.start(game.highScoresScreen);
 				}
 			}
 		});
-		table.add(resetButton).colspan(3);
-		table.row();
+		if (local) {
+			table.add(resetButton).colspan(3);
+			table.row();
+		}
 
 		final TextButton menuButton = new TextButton("Main Menu", game.assets.skin);
 		menuButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (menuButton.isPressed()) {
-					game.setScreen(game.menuScreen);
+					game.transition.start(game.menuScreen);
 				}
 			}
 		});
@@ -126,7 +154,7 @@ public class HighScoresScreen implements Screen {
 
 	@Override
 	public void resize(int width, int height) {
-
+		game.assets.refreshFonts(stage);
 	}
 
 	@Override
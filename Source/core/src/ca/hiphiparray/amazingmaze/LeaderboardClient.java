@@ -0,0 +1,220 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Talks to a shared classroom leaderboard server.
+ * <br>
+ * Requests are sent one at a time on a background thread, in the order they were made, so a score that was submitted
+ * is always included in the next top scores that are fetched. Every request uses its own short-lived connection,
+ * with short timeouts so an unreachable server is noticed quickly.
+ * <br>
+ * The server speaks a small binary protocol over TCP. Each request starts with one of {@link #SUBMIT}, {@link #TOP} or {@link #RANK}.
+ * Strings are sent with {@link DataOutputStream#writeUTF(String)} and numbers as big-endian ints.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class LeaderboardClient implements Disposable {
+
+	/** The port the leaderboard server listens on by default. */
+	public static final int DEFAULT_PORT = 47800;
+
+	/** Submit a score: the player's name, then the score. The reply is the rank of the score, starting from 1. */
+	public static final byte SUBMIT = 1;
+	/** Get the top scores: how many to get. The reply is how many there are, then the name and score of each, best first. */
+	public static final byte TOP = 2;
+	/** Get the rank a score would have: the score. The reply is the rank, starting from 1. */
+	public static final byte RANK = 3;
+
+	/** How long to wait for the server to accept a connection, in milliseconds. */
+	private static final int CONNECT_TIMEOUT = 500;
+	/** How long to wait for the server to reply, in milliseconds. */
+	private static final int READ_TIMEOUT = 2000;
+
+	/**
+	 * Receives the top scores from the server.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	public interface Listener {
+		/**
+		 * Called on the rendering thread once the server has replied.
+		 *
+		 * @param scores the top scores, best first, or {@code null} if the server could not be reached.
+		 */
+		void received(HighScore[] scores);
+	}
+
+	/** The address of the server. */
+	private final InetSocketAddress address;
+	/** Runs the requests, one at a time. */
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor for {@link LeaderboardClient}.
+	 *
+	 * @param host the host name or address of the server.
+	 * @param port the port of the server.
+	 */
+	public LeaderboardClient(String host, int port) {
+		address = InetSocketAddress.createUnresolved(host, port);
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "Leaderboard client");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Submit a score to the server in the background.
+	 * If the server can not be reached, the score is only kept in the local high scores.
+	 *
+	 * @param score the score to submit.
+	 */
+	public void submit(final HighScore score) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Socket socket = null;
+				try {
+					socket = connect();
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+					out.writeByte(SUBMIT);
+					out.writeUTF(score.getName());
+					out.writeInt(score.getScore());
+					out.flush();
+					new DataInputStream(socket.getInputStream()).readInt();
+				} catch (IOException e) {
+					Gdx.app.error("LeaderboardClient", "Could not submit the score to " + address, e);
+				} finally {
+					close(socket);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Get the top scores from the server in the background.
+	 * The listener is always called, even if the server could not be reached or sent an invalid reply.
+	 *
+	 * @param count how many scores to get.
+	 * @param listener the listener to give the scores to, on the rendering thread.
+	 */
+	public void fetchTop(final int count, final Listener listener) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				HighScore[] scores = null;
+				Socket socket = null;
+				try {
+					socket = connect();
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+					out.writeByte(TOP);
+					out.writeInt(count);
+					out.flush();
+					DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+					int size = in.readInt();
+					if (size < 0 || size > Math.max(0, count)) {
+						throw new IOException("The server sent " + size + " scores when at most " + count + " were asked for");
+					}
+					HighScore[] received = new HighScore[size];
+					for (int i = 0; i < received.length; i++) {
+						String name = in.readUTF();
+						received[i] = new HighScore(name, in.readInt());
+					}
+					scores = received;
+				} catch (IOException e) {
+					Gdx.app.error("LeaderboardClient", "Could not get the top scores from " + address, e);
+				} catch (RuntimeException e) {
+					Gdx.app.error("LeaderboardClient", "Could not get the top scores from " + address, e);
+				} finally {
+					close(socket);
+
+					final HighScore[] result = scores;
+					Gdx.app.postRunnable(new Runnable() {
+						@Override
+						public void run() {
+							listener.received(result);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Open a connection to the server.
+	 *
+	 * @return the connected socket.
+	 * @throws IOException if the server could not be reached.
+	 */
+	private Socket connect() throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(READ_TIMEOUT);
+			socket.connect(new InetSocketAddress(address.getHostName(), address.getPort()), CONNECT_TIMEOUT);
+		} catch (IOException e) {
+			close(socket);
+			throw e;
+		}
+		return socket;
+	}
+
+	/**
+	 * Close a socket, ignoring any errors.
+	 * Sockets are not {@link java.io.Closeable} on Java 6, so {@link com.badlogic.gdx.utils.StreamUtils} can not be used.
+	 *
+	 * @param socket the socket to close, or {@code null}.
+	 */
+	private static void close(Socket socket) {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/** Stop accepting requests. Requests that were already made are still sent, as long as the game is running. */
+	@Override
+	public void dispose() {
+		executor.shutdown();
+	}
+}
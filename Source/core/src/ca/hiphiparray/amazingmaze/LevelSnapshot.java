@@ -0,0 +1,202 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import ca.hiphiparray.amazingmaze.Player.HorizontalDirection;
+import ca.hiphiparray.amazingmaze.Player.VerticalDirection;
+
+/**
+ * Everything needed to resume a level where the player left off, in a compact binary format.
+ * <br>
+ * The map itself is not stored. It is generated again from its seed, and only what the player changed is applied on top.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class LevelSnapshot {
+
+	/** The first four bytes of every snapshot. */
+	private static final int MAGIC = 0x414D5A53;
+	/** The version of the format. Snapshots of other versions are ignored. */
+	private static final byte VERSION = 1;
+
+	/** The level being played. */
+	protected int level;
+	/** The score at the start of the level. */
+	protected int score;
+	/** The score at the start of the set of levels. */
+	protected int startScore;
+	/** How many lives the player had at the start of the level. */
+	protected int lives;
+
+	/** The seed the map was generated with. */
+	protected long seed;
+	/** The width of the map, in tiles. */
+	protected int mapWidth;
+	/** The height of the map, in tiles. */
+	protected int mapHeight;
+
+	/** The x-coordinate of the player. */
+	protected float playerX;
+	/** The y-coordinate of the player. */
+	protected float playerY;
+	/** The horizontal direction the player is facing. */
+	protected HorizontalDirection horizontalDir;
+	/** The vertical direction the player is facing. */
+	protected VerticalDirection verticalDir;
+	/** How many lives the player has now. */
+	protected int playerLives;
+	/** How many fish of each colour have been collected, in the order blue, purple, green, red, orange. */
+	protected final int[] fishCollected;
+
+	/** The electric state the player has marked each gate with, in the order of the map's gate locations. */
+	protected final IntArray gateStates;
+	/** The items that have not been collected yet, as {@code x, y} pairs. */
+	protected final IntArray items;
+
+	/** Constructor for {@link LevelSnapshot}. */
+	public LevelSnapshot() {
+		fishCollected = new int[5];
+		gateStates = new IntArray();
+		items = new IntArray();
+		horizontalDir = HorizontalDirection.NONE;
+		verticalDir = VerticalDirection.NONE;
+	}
+
+	/**
+	 * Encode the snapshot. The last four bytes are a CRC32 checksum of the rest.
+	 *
+	 * @return the encoded snapshot.
+	 */
+	public byte[] toBytes() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + 4 * gateStates.size + 4 * items.size);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+
+			out.writeInt(level);
+			out.writeInt(score);
+			out.writeInt(startScore);
+			out.writeInt(lives);
+
+			out.writeLong(seed);
+			out.writeShort(mapWidth);
+			out.writeShort(mapHeight);
+
+			out.writeFloat(playerX);
+			out.writeFloat(playerY);
+			out.writeByte(horizontalDir.ordinal());
+			out.writeByte(verticalDir.ordinal());
+			out.writeInt(playerLives);
+			for (int i = 0; i < fishCollected.length; i++) {
+				out.writeInt(fishCollected[i]);
+			}
+
+			out.writeShort(gateStates.size);
+			for (int i = 0; i < gateStates.size; i++) {
+				out.writeByte(gateStates.get(i));
+			}
+			out.writeShort(items.size / 2);
+			for (int i = 0; i < items.size; i++) {
+				out.writeShort(items.get(i));
+			}
+
+			CRC32 checksum = new CRC32();
+			checksum.update(bytes.toByteArray());
+			out.writeInt((int) checksum.getValue());
+		} catch (IOException e) {
+			throw new GdxRuntimeException(e); // Writing to memory cannot fail.
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decode a snapshot.
+	 *
+	 * @param bytes the encoded snapshot.
+	 * @return the snapshot, or {@code null} if the bytes are not a valid snapshot.
+	 */
+	public static LevelSnapshot fromBytes(byte[] bytes) {
+		if (bytes.length < 9) {
+			return null;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes, 0, bytes.length - 4);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		try {
+			if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+				return null;
+			}
+			in.skipBytes(bytes.length - 9);
+			if (in.readInt() != (int) checksum.getValue()) {
+				Gdx.app.error("LevelSnapshot", "Ignoring corrupt snapshot");
+				return null;
+			}
+
+			in = new DataInputStream(new ByteArrayInputStream(bytes, 5, bytes.length - 9));
+			LevelSnapshot snapshot = new LevelSnapshot();
+			snapshot.level = in.readInt();
+			snapshot.score = in.readInt();
+			snapshot.startScore = in.readInt();
+			snapshot.lives = in.readInt();
+
+			snapshot.seed = in.readLong();
+			snapshot.mapWidth = in.readShort();
+			snapshot.mapHeight = in.readShort();
+
+			snapshot.playerX = in.readFloat();
+			snapshot.playerY = in.readFloat();
+			snapshot.horizontalDir = HorizontalDirection.values()[in.readByte()];
+			snapshot.verticalDir = VerticalDirection.values()[in.readByte()];
+			snapshot.playerLives = in.readInt();
+			for (int i = 0; i < snapshot.fishCollected.length; i++) {
+				snapshot.fishCollected[i] = in.readInt();
+			}
+
+			int gates = in.readShort();
+			for (int i = 0; i < gates; i++) {
+				snapshot.gateStates.add(in.readByte());
+			}
+			int items = in.readShort();
+			for (int i = 0; i < 2 * items; i++) {
+				snapshot.items.add(in.readShort());
+			}
+			return snapshot;
+		} catch (IOException e) {
+			Gdx.app.error("LevelSnapshot", "Ignoring malformed snapshot", e);
+			return null;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			Gdx.app.error("LevelSnapshot", "Ignoring malformed snapshot", e);
+			return null;
+		}
+	}
+}
@@ -58,6 +58,8 @@ public class MainMenuScreen implements Screen {
 	/** The Table container for the main menu buttons. */
 	private Table table;
 
+	/** Resume button, only shown if there is a level to resume. */
+	private TextButton resumeButton;
 	/** Play button. */
 	private TextButton playButton;
 	/** Help button. */
@@ -96,13 +98,30 @@ public class MainMenuScreen implements Screen {
 
 		menuTitle = new Image(this.game.assets.manager.get(Assets.GAME_LOGO, Texture.class));
 
+		// Resume
+		resumeButton = new TextButton("Resume", game.assets.skin);
+		resumeButton.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				if (resumeButton.isPressed()) {
+					LevelSnapshot snapshot = game.save.readSnapshot();
+					if (snapshot != null) {
+						game.playLevel(snapshot);
+					} else {
+						game.save.clearSnapshot();
+						layoutMenu(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+					}
+				}
+			}
+		});
+
 		// Play
 		playButton = new TextButton("Play", game.assets.skin);
 		playButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (playButton.isPressed()) {
-					game.setScreen(game.storyScreen);
+					game.transition.start(game.storyScreen);
 				}
 			}
 		});
@@ -113,7 +132,7 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (helpButton.isPressed()) {
-					game.setScreen(new HelpScreen(game));
+					game.playLevel(game.helpScreen, null);
 				}
 			}
 		});
@@ -124,7 +143,7 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (settingsButton.isPressed()) {
-					game.setScreen(game.settingsScreen);
+					game.transition.start(game.settingsScreen);
 				}
 			}
 		});
@@ -135,7 +154,7 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (creditsButton.isPressed()) {
-					game.setScreen(new CreditsScreen(game));
+					game.transition.start(game.creditsScreen);
 				}
 			}
 		});
@@ -167,6 +186,7 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (licenseButton.isPressed()) {
+					game.assets.refreshFonts(licenseDialog);
 					licenseDialog.show(menu);
 				}
 			}
@@ -178,7 +198,7 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (highScoresButton.isPressed()) {
-					game.setScreen(game.highScoresScreen);
+					game.transition.start(game.highScoresScreen);
 				}
 			}
 		});
@@ -189,7 +209,6 @@ public class MainMenuScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (quitButton.isPressed()) {
-					game.save.writeScores();
 					game.save.writeSettings();
 					Gdx.app.exit();
 				}
@@ -216,6 +235,7 @@ public class MainMenuScreen implements Screen {
 	@Override
 	public void resize(int width, int height) {
 		menu.getViewport().update(width, height, true);
+		game.assets.refreshFonts(menu);
 		layoutMenu(width, height);
 	}
 
@@ -235,6 +255,10 @@ public class MainMenuScreen implements Screen {
 		table.row();
 
 		// Add buttons.
+		if (game.save.hasSnapshot()) {
+			table.add(resumeButton).minSize(width / 4, height / 22).maxSize(width, height / 6).prefSize(width / 2.5f, height / 10).padBottom(10);
+			table.row();
+		}
 		table.add(playButton).minSize(width / 4, height / 22).maxSize(width, height / 6).prefSize(width / 2.5f, height / 10).padBottom(10);
 		table.row();
 		table.add(helpButton).minSize(width / 4, height / 22).maxSize(width, height / 8).prefSize(width / 2.5f, height / 10).padBottom(10);
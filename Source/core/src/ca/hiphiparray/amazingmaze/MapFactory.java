@@ -27,7 +27,9 @@ import java.util.Random;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 
 import ca.hiphiparray.amazingmaze.FishCell.FishColour;
 
@@ -52,11 +54,8 @@ public class MapFactory {
 	/** The random number generator used by this factory. */
 	private final Random random;
 
-	/**
-	 * Reference to an {@link Assets} instance to get images from.
-	 * Essentially, this is a reference to {@link AmazingMazeGame#assets}.
-	 */
-	private final Assets assets;
+	/** The tiles to build the maps from. Usually {@link Assets#tiles}. */
+	private final TiledMapTileSet tiles;
 
 	/** The name of the background layer. */
 	public static final String BACKGROUND_LAYER = "background";
@@ -78,6 +77,9 @@ public class MapFactory {
 	/** Array of locations of the gates. */
 	private Array<Point> gateLocations;
 
+	/** The electric state of each network of gates and wires, see {@link #getNetworkStates()}. */
+	private IntArray networkStates;
+
 	/**
 	 * Constructor for creation of a map factory.
 	 *
@@ -88,12 +90,26 @@ public class MapFactory {
 	 * @param tileSize The side length (in pixels) of the tiles.
 	 */
 	public MapFactory(final AmazingMazeGame game, long seed, int width, int height, int tileSize) {
-		this.assets = game.assets;
+		this(game.assets.tiles, seed, width, height);
+	}
+
+	/**
+	 * Constructor for creation of a map factory that builds maps from the given tiles.
+	 * The tiles do not need images, so maps can be generated without graphics.
+	 *
+	 * @param tiles the tiles to build the maps from. It must have a tile for every ID in {@link TileIDs} that the maps use.
+	 * @param seed The seed to use for generation by this factory.
+	 * @param width The width of the maps (in tiles) generated by this factory.
+	 * @param height The height of the maps (in tiles) generated by this factory.
+	 */
+	public MapFactory(TiledMapTileSet tiles, long seed, int width, int height) {
+		this.tiles = tiles;
 		this.random = new Random(seed);
 		this.width = width;
 		this.height = height;
 		this.gateLocations = new Array<Point>();
 		this.gateOn = new ArrayList<Circuit>();
+		this.networkStates = new IntArray();
 	}
 
 	/**
@@ -103,14 +119,14 @@ public class MapFactory {
 	 */
 	public TiledMap generateMap() {
 		TiledMap map = new TiledMap();
-		map.getTileSets().addTileSet(assets.tiles);
+		map.getTileSets().addTileSet(tiles);
 
 		TiledMapTileLayer backgroundLayer = new TiledMapTileLayer(width, height, MazeScreen.TILE_SIZE, MazeScreen.TILE_SIZE);
 		backgroundLayer.setName(BACKGROUND_LAYER);
 		for (int c = 0; c < backgroundLayer.getWidth(); c++) {
 			for (int r = 0; r < backgroundLayer.getHeight(); r++) {
 				Cell cell = new Cell();
-				cell.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.BACKGROUND)));
+				cell.setTile(tiles.getTile(TileIDs.computeID(TileIDs.BACKGROUND)));
 				backgroundLayer.setCell(c, r, cell);
 			}
 		}
@@ -137,30 +153,30 @@ public class MapFactory {
 				gateOn.add(lowerGate);
 			}
 
-			placeUpperCircuit(objectLayer, upperGate, highLocation);
-			placeLowerCircuit(objectLayer, lowerGate, lowLocation);
+			int upperNetwork = placeUpperCircuit(objectLayer, upperGate, highLocation);
+			int lowerNetwork = placeLowerCircuit(objectLayer, lowerGate, lowLocation);
 			int barrierLoc = randomInt(gateSpace + extraRoom, height - (gateSpace + extraRoom));
 			Cell cell = new Cell();
-			cell.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
+			cell.setTile(tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
 			objectLayer.setCell(col, barrierLoc, cell);
 			for (int r = barrierLoc - 1; r >= gateSpace; r--) { // Place the lower wires.
-				WireCell wire = new WireCell(!upperOutput);
-				wire.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, TileIDs.UNKNOWN)));
+				WireCell wire = new WireCell(!upperOutput, lowerNetwork);
+				wire.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 				wireLayer.setCell(col, r, wire);
 			}
 			for (int r = barrierLoc + 1; r < height - gateSpace; r++) { // Place the upper wires.
-				WireCell wire = new WireCell(upperOutput);
-				wire.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, TileIDs.UNKNOWN)));
+				WireCell wire = new WireCell(upperOutput, upperNetwork);
+				wire.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 				wireLayer.setCell(col, r, wire);
 			}
 		}
 		for (int c = 0; c < width; c++) {
 			if (!splits.contains(c)) {
 				Cell cell = new Cell();
-				cell.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
+				cell.setTile(tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
 				objectLayer.setCell(c, gateSpace, cell);
 				cell = new Cell();
-				cell.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
+				cell.setTile(tiles.getTile(TileIDs.computeID(TileIDs.BARRIER)));
 				objectLayer.setCell(c, height - gateSpace - 1, cell);
 			}
 		}
@@ -196,7 +212,7 @@ public class MapFactory {
 	private void placeCheese(TiledMapTileLayer layer, int col, int gateSpace) {
 		int row = randomInt(gateSpace + 1, height - gateSpace - 1);
 		Cell cheese = new Cell();
-		cheese.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.CHEESE)));
+		cheese.setTile(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.CHEESE)));
 		layer.setCell(col, row, cheese);
 	}
 
@@ -211,15 +227,15 @@ public class MapFactory {
 		FishCell fish;
 		double r = random.nextDouble();
 		if (r <= 0.2) {
-			fish = new FishCell(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.BLUE)), FishColour.BLUE);
+			fish = new FishCell(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.BLUE)), FishColour.BLUE);
 		} else if (r <= 0.4) {
-			fish = new FishCell(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.PURPLE)), FishColour.PURPLE);
+			fish = new FishCell(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.PURPLE)), FishColour.PURPLE);
 		} else if (r <= 0.6) {
-			fish = new FishCell(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.GREEN)), FishColour.GREEN);
+			fish = new FishCell(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.GREEN)), FishColour.GREEN);
 		} else if (r <= 0.8) {
-			fish = new FishCell(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.RED)), FishColour.RED);
+			fish = new FishCell(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.RED)), FishColour.RED);
 		} else {
-			fish = new FishCell(assets.tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.ORANGE)), FishColour.ORANGE);
+			fish = new FishCell(tiles.getTile(TileIDs.computeID(TileIDs.POWERUP_RANGE, TileIDs.FISH, TileIDs.ORANGE)), FishColour.ORANGE);
 		}
 
 		int row = randomInt(gateSpace + 1, height - gateSpace - 1);
@@ -233,28 +249,32 @@ public class MapFactory {
 	 * @param layer the layer to place the circuit on.
 	 * @param circuit the circuit to use.
 	 * @param location the location of the gate being placed.
+	 * @return the network of the gate, which its output wire should join.
 	 */
-	private void placeUpperCircuit(TiledMapTileLayer layer, Circuit circuit, Point location) {
-		Cell gate = new Cell();
-		gate.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.GATE_RANGE, Circuit.getID(circuit.getGate()), TileIDs.UNKNOWN, TileIDs.DOWN_GATE)));
+	private int placeUpperCircuit(TiledMapTileLayer layer, Circuit circuit, Point location) {
+		int network = addNetwork(TileIDs.UNKNOWN);
+		ElectricCell gate = new ElectricCell(network);
+		gate.setTile(tiles.getTile(TileIDs.computeID(TileIDs.GATE_RANGE, Circuit.getID(circuit.getGate()), TileIDs.DOWN_GATE)));
 		layer.setCell(location.x, location.y, gate);
 		gateLocations.add(new Point(location));
 
-		Cell inputAStart = new Cell();
-		int inputAPowerID = circuit.isInputA() ? TileIDs.ON : TileIDs.OFF;
-		inputAStart.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, inputAPowerID)));
+		int inputA = addNetwork(circuit.isInputA() ? TileIDs.ON : TileIDs.OFF);
+		ElectricCell inputAStart = new ElectricCell(inputA);
+		inputAStart.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 		layer.setCell(location.x - 1, location.y + 1, inputAStart);
-		Cell inputATurn = new Cell();
-		inputATurn.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, inputAPowerID, TileIDs.UP_RIGHT)));
+		ElectricCell inputATurn = new ElectricCell(inputA);
+		inputATurn.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.UP_RIGHT)));
 		layer.setCell(location.x - 1, location.y, inputATurn);
 
-		Cell inputBStart = new Cell();
-		int inputBPowerID = circuit.isInputB() ? TileIDs.ON : TileIDs.OFF;
-		inputBStart.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, inputBPowerID)));
+		int inputB = addNetwork(circuit.isInputB() ? TileIDs.ON : TileIDs.OFF);
+		ElectricCell inputBStart = new ElectricCell(inputB);
+		inputBStart.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 		layer.setCell(location.x + 1, location.y + 1, inputBStart);
-		Cell inputBTurn = new Cell();
-		inputBTurn.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, inputBPowerID, TileIDs.UP_LEFT)));
+		ElectricCell inputBTurn = new ElectricCell(inputB);
+		inputBTurn.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.UP_LEFT)));
 		layer.setCell(location.x + 1, location.y, inputBTurn);
+
+		return network;
 	}
 
 	/**
@@ -264,28 +284,43 @@ public class MapFactory {
 	 * @param layer the layer to place the circuit on.
 	 * @param circuit the circuit to use.
 	 * @param location the location of the gate being placed.
+	 * @return the network of the gate, which its output wire should join.
 	 */
-	private void placeLowerCircuit(TiledMapTileLayer layer, Circuit circuit, Point location) {
-		Cell gate = new Cell();
-		gate.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.GATE_RANGE, Circuit.getID(circuit.getGate()), TileIDs.UNKNOWN, TileIDs.UP_GATE)));
+	private int placeLowerCircuit(TiledMapTileLayer layer, Circuit circuit, Point location) {
+		int network = addNetwork(TileIDs.UNKNOWN);
+		ElectricCell gate = new ElectricCell(network);
+		gate.setTile(tiles.getTile(TileIDs.computeID(TileIDs.GATE_RANGE, Circuit.getID(circuit.getGate()), TileIDs.UP_GATE)));
 		layer.setCell(location.x, location.y, gate);
 		gateLocations.add(new Point(location));
 
-		Cell inputAStart = new Cell();
-		int inputAPowerID = circuit.isInputA() ? TileIDs.ON : TileIDs.OFF;
-		inputAStart.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, inputAPowerID)));
+		int inputA = addNetwork(circuit.isInputA() ? TileIDs.ON : TileIDs.OFF);
+		ElectricCell inputAStart = new ElectricCell(inputA);
+		inputAStart.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 		layer.setCell(location.x - 1, location.y - 1, inputAStart);
-		Cell inputATurn = new Cell();
-		inputATurn.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, inputAPowerID, TileIDs.DOWN_RIGHT)));
+		ElectricCell inputATurn = new ElectricCell(inputA);
+		inputATurn.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.DOWN_RIGHT)));
 		layer.setCell(location.x - 1, location.y, inputATurn);
 
-		Cell inputBStart = new Cell();
-		int inputBPowerID = circuit.isInputB() ? TileIDs.ON : TileIDs.OFF;
-		inputBStart.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL, inputBPowerID)));
+		int inputB = addNetwork(circuit.isInputB() ? TileIDs.ON : TileIDs.OFF);
+		ElectricCell inputBStart = new ElectricCell(inputB);
+		inputBStart.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.VERTICAL)));
 		layer.setCell(location.x + 1, location.y - 1, inputBStart);
-		Cell inputBTurn = new Cell();
-		inputBTurn.setTile(assets.tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, inputBPowerID, TileIDs.DOWN_LEFT)));
+		ElectricCell inputBTurn = new ElectricCell(inputB);
+		inputBTurn.setTile(tiles.getTile(TileIDs.computeID(TileIDs.WIRE_RANGE, TileIDs.TURN, TileIDs.DOWN_LEFT)));
 		layer.setCell(location.x + 1, location.y, inputBTurn);
+
+		return network;
+	}
+
+	/**
+	 * Add a network of gates and wires that share an electric state.
+	 *
+	 * @param state the electric state of the network, like {@link TileIDs#UNKNOWN}.
+	 * @return the index of the network.
+	 */
+	private int addNetwork(int state) {
+		networkStates.add(state);
+		return networkStates.size - 1;
 	}
 
 	/**
@@ -304,6 +339,16 @@ public class MapFactory {
 		return wires;
 	}
 
+	/**
+	 * Get the split column that an x-coordinate is in. Each column holds one wire and its gate.
+	 *
+	 * @param x the x-coordinate, in tiles.
+	 * @return the index of the column, starting from 0 at the first wire.
+	 */
+	public static int getSplitColumn(float x) {
+		return (int) ((x - START_DISTANCE + 1) / WIRE_DISTANCE);
+	}
+
 	/**
 	 * Get the {@link Array} of gate locations.
 	 *
@@ -322,6 +367,17 @@ public class MapFactory {
 		return gateOn;
 	}
 
+	/**
+	 * Get the electric state of each network, indexed by {@link ElectricCell#getNetwork()}.
+	 * A gate and its output wire are one network, and each input wire is another.
+	 * Marking a gate only needs its entry here to be changed, like {@link TileIDs#ON}.
+	 *
+	 * @return the network states.
+	 */
+	public IntArray getNetworkStates() {
+		return networkStates;
+	}
+
 	/**
 	 * Use {@link #random} to generate a random integer in the given range.
 	 *
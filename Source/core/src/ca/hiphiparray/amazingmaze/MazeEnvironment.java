@@ -0,0 +1,498 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Many copies of a maze level that can be played without graphics or input, for training reinforcement learning agents.
+ * <br>
+ * Each level is generated by {@link MapFactory} exactly as in the game, then turned into a grid.
+ * The player follows the same {@link MazeRules} as {@link Player}: objects block the way, running into a wire
+ * that is on costs a life and sends the player back to the start, fish are collected, cheese gives a life,
+ * and reaching the right edge finishes the level. Gates do not need to be marked, since marking them changes nothing.
+ * <br>
+ * Unlike {@link Player}, the player here moves one whole tile per step instead of moving smoothly,
+ * so they only touch the tile they are on: a wire kills them anywhere on its tile, and help mode is never on.
+ * Changes to how {@link Player} moves or touches things have to be made here as well.
+ * <br>
+ * All of the levels are stepped together, split between several threads. Their state is kept in parallel arrays,
+ * and their observations are written into one shared direct {@link ByteBuffer} in little-endian order:
+ * <ul>
+ * <li>For each level, {@link #STATE_BYTES} bytes: the player's x and y, lives, fish collected, steps taken,
+ * the reward of the last step as a float, if the level is done as a byte, and padding.</li>
+ * <li>Then for each level, one byte per tile, row by row from the bottom: what the player can see there, one of the {@code OBSERVE_} constants.
+ * Wires that are on look the same as wires that are off, as in the game.</li>
+ * </ul>
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class MazeEnvironment implements Disposable {
+
+	/** Do not move. */
+	public static final byte STAY = 0;
+	/** Move up. */
+	public static final byte UP = 1;
+	/** Move down. */
+	public static final byte DOWN = 2;
+	/** Move left. */
+	public static final byte LEFT = 3;
+	/** Move right. */
+	public static final byte RIGHT = 4;
+
+	/** An empty tile. */
+	public static final byte OBSERVE_EMPTY = 0;
+	/** A barrier. */
+	public static final byte OBSERVE_BARRIER = 1;
+	/** A wire that might be on or off. */
+	public static final byte OBSERVE_WIRE = 2;
+	/** A gate input that is on. */
+	public static final byte OBSERVE_INPUT_ON = 3;
+	/** A gate input that is off. */
+	public static final byte OBSERVE_INPUT_OFF = 4;
+	/** An AND gate. The other gates follow it in the order of {@link Circuit.LogicGate}: NAND, OR, NOR, and XOR. */
+	public static final byte OBSERVE_AND_GATE = 5;
+	/** A fish. */
+	public static final byte OBSERVE_FISH = 10;
+	/** A piece of cheese. */
+	public static final byte OBSERVE_CHEESE = 11;
+
+	/** The size of the state of each level in the observations, in bytes. */
+	public static final int STATE_BYTES = 28;
+
+	/** The reward for finishing a level. */
+	public static final float FINISH_REWARD = 1f;
+	/** The reward for running into a wire that is on. */
+	public static final float DEATH_REWARD = -1f;
+	/** The reward for collecting a fish or a piece of cheese. */
+	public static final float ITEM_REWARD = 0.1f;
+
+	/** A tile the player can walk on. */
+	private static final byte FREE = 0;
+	/** A tile the player can not walk into. */
+	private static final byte BLOCKED = 1;
+	/** A wire that is on. */
+	private static final byte LIVE_WIRE = 2;
+	/** A tile with a fish on it. */
+	private static final byte FISH = 3;
+	/** A tile with a piece of cheese on it. */
+	private static final byte CHEESE = 4;
+
+	/** How many levels there are. */
+	private final int count;
+	/** The width of the levels. */
+	private final int width;
+	/** The height of the levels. */
+	private final int height;
+	/** The tiles to generate the maps with, which have no images. */
+	private final TiledMapTileSet tiles;
+
+	/** What each tile of each level is, for moving the player. One {@link #width} by {@link #height} grid per level. */
+	private final byte[] grid;
+	/** The x-coordinate of the player in each level. */
+	private final int[] playerX;
+	/** The y-coordinate of the player in each level. */
+	private final int[] playerY;
+	/** How many lives the player has in each level. */
+	private final int[] lives;
+	/** How many fish the player has collected in each level. */
+	private final int[] fish;
+	/** How many steps have been taken in each level. */
+	private final int[] steps;
+	/** If each level is done. */
+	private final boolean[] done;
+
+	/** The observations of every level. */
+	private final ByteBuffer observations;
+
+	/** Runs the parts of each batch. */
+	private final ExecutorService workers;
+	/** How many parts each batch is split into. */
+	private final int parts;
+
+	/**
+	 * Constructor for {@link MazeEnvironment}. Every level starts out done, so they must be reset before being stepped.
+	 *
+	 * @param count how many levels to run.
+	 * @param level which level of the game to copy the size of. Levels get wider as the game goes on.
+	 * @param threads how many threads to step the levels with.
+	 */
+	public MazeEnvironment(int count, int level, int threads) {
+		this.count = count;
+		this.width = 16 * 2 + level * 5; // The same size as MazeScreen uses.
+		this.height = 9 * 2;
+		this.tiles = createTiles();
+
+		grid = new byte[count * width * height];
+		playerX = new int[count];
+		playerY = new int[count];
+		lives = new int[count];
+		fish = new int[count];
+		steps = new int[count];
+		done = new boolean[count];
+		Arrays.fill(done, true);
+
+		observations = ByteBuffer.allocateDirect(count * (STATE_BYTES + width * height)).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < count; i++) {
+			writeState(i, 0);
+		}
+
+		parts = Math.max(1, Math.min(threads, count));
+		workers = Executors.newFixedThreadPool(parts, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "Maze environment");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Create a tile set with a tile, without an image, for every ID that {@link MapFactory} might use.
+	 *
+	 * @return the tile set.
+	 */
+	private static TiledMapTileSet createTiles() {
+		TiledMapTileSet tiles = new TiledMapTileSet();
+		int[] ranges = {0, TileIDs.WIRE_RANGE, TileIDs.GATE_RANGE, TileIDs.POWERUP_RANGE};
+		for (int range : ranges) {
+			for (int hundreds = 0; hundreds <= 500; hundreds += 100) {
+				for (int tens = 0; tens <= 50; tens += 10) {
+					for (int ones = 0; ones <= 6; ones++) {
+						StaticTiledMapTile tile = new StaticTiledMapTile((TextureRegion) null);
+						tile.setId(TileIDs.computeID(range, hundreds, tens, ones));
+						tiles.putTile(tile.getId(), tile);
+					}
+				}
+			}
+		}
+		return tiles;
+	}
+
+	/**
+	 * Generate new levels and put the players at the start.
+	 *
+	 * @param first the first level to reset.
+	 * @param seeds the seed to generate each level with, starting from {@code first}. The seed of a level in the game is its number.
+	 */
+	public void reset(final int first, final long[] seeds) {
+		run(seeds.length, new Part() {
+			@Override
+			public void run(int start, int end) {
+				for (int i = start; i < end; i++) {
+					reset(first + i, seeds[i]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Generate a new level and put the player at the start.
+	 *
+	 * @param env the level to reset.
+	 * @param seed the seed to generate the level with.
+	 */
+	private void reset(int env, long seed) {
+		MapFactory factory = new MapFactory(tiles, seed, width, height);
+		TiledMap map = factory.generateMap();
+		IntArray states = factory.getNetworkStates();
+		TiledMapTileLayer objects = (TiledMapTileLayer) map.getLayers().get(MapFactory.OBJECT_LAYER);
+		TiledMapTileLayer wires = (TiledMapTileLayer) map.getLayers().get(MapFactory.WIRE_LAYER);
+		TiledMapTileLayer items = (TiledMapTileLayer) map.getLayers().get(MapFactory.ITEM_LAYER);
+
+		final int base = env * width * height;
+		final int mapBase = count * STATE_BYTES + base;
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
+				byte tile = FREE;
+				byte observed = OBSERVE_EMPTY;
+				Cell object = objects.getCell(c, r);
+				Cell wire = wires.getCell(c, r);
+				Cell item = items.getCell(c, r);
+				if (object != null) {
+					tile = BLOCKED;
+					observed = observeObject(object, states);
+				} else if (wire != null) {
+					tile = ((WireCell) wire).isOn() ? LIVE_WIRE : FREE;
+					observed = OBSERVE_WIRE;
+				} else if (item instanceof FishCell) {
+					tile = FISH;
+					observed = OBSERVE_FISH;
+				} else if (item != null) {
+					tile = CHEESE;
+					observed = OBSERVE_CHEESE;
+				}
+				grid[base + r * width + c] = tile;
+				observations.put(mapBase + r * width + c, observed);
+			}
+		}
+
+		playerX[env] = MazeRules.START_X;
+		playerY[env] = MazeRules.startY(height);
+		lives[env] = MazeRules.START_LIVES;
+		fish[env] = 0;
+		steps[env] = 0;
+		done[env] = false;
+		writeState(env, 0);
+	}
+
+	/**
+	 * Get what the player sees of an object.
+	 *
+	 * @param object the cell of the object.
+	 * @param states the electric state of each network, from {@link MapFactory#getNetworkStates()}.
+	 * @return the observation, one of the {@code OBSERVE_} constants.
+	 */
+	private static byte observeObject(Cell object, IntArray states) {
+		int id = object.getTile().getId();
+		if (id >= TileIDs.GATE_RANGE) {
+			return (byte) (OBSERVE_AND_GATE + (id - TileIDs.GATE_RANGE) / 100 - TileIDs.AND_GATE / 100);
+		} else if (id >= TileIDs.WIRE_RANGE) {
+			return states.get(((ElectricCell) object).getNetwork()) == TileIDs.ON ? OBSERVE_INPUT_ON : OBSERVE_INPUT_OFF;
+		}
+		return OBSERVE_BARRIER;
+	}
+
+	/**
+	 * Take one step in every level that is not done.
+	 *
+	 * @param actions the action for each level, one of {@link #STAY}, {@link #UP}, {@link #DOWN}, {@link #LEFT}, or {@link #RIGHT}, read from its position.
+	 */
+	public void step(final ByteBuffer actions) {
+		final int offset = actions.position();
+		run(count, new Part() {
+			@Override
+			public void run(int start, int end) {
+				for (int i = start; i < end; i++) {
+					step(i, actions.get(offset + i));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Take one step in a level.
+	 *
+	 * @param env the level.
+	 * @param action the action to take.
+	 */
+	private void step(int env, byte action) {
+		if (done[env]) {
+			writeState(env, 0);
+			return;
+		}
+		int x = playerX[env];
+		int y = playerY[env];
+		switch (action) {
+			case UP:
+				y++;
+				break;
+			case DOWN:
+				y--;
+				break;
+			case LEFT:
+				x--;
+				break;
+			case RIGHT:
+				x++;
+				break;
+			default:
+				break;
+		}
+		final int base = env * width * height;
+		if (x < 0 || x >= width || y < 0 || y >= height || grid[base + y * width + x] == BLOCKED) {
+			x = playerX[env];
+			y = playerY[env];
+		}
+
+		float reward = 0;
+		final int index = base + y * width + x;
+		switch (grid[index]) {
+			case LIVE_WIRE:
+				reward = DEATH_REWARD;
+				if (MazeRules.isGameOver(lives[env])) {
+					done[env] = true;
+				} else {
+					lives[env] = MazeRules.livesAfterDeath(lives[env], false);
+				}
+				x = MazeRules.START_X;
+				y = MazeRules.startY(height);
+				break;
+			case FISH:
+				reward = ITEM_REWARD;
+				fish[env]++;
+				grid[index] = FREE;
+				observations.put(count * STATE_BYTES + index, OBSERVE_EMPTY);
+				break;
+			case CHEESE:
+				reward = ITEM_REWARD;
+				lives[env] = MazeRules.livesAfterCheese(lives[env]);
+				grid[index] = FREE;
+				observations.put(count * STATE_BYTES + index, OBSERVE_EMPTY);
+				break;
+			default:
+				break;
+		}
+		if (MazeRules.isFinished(x, 1, width)) {
+			reward += FINISH_REWARD;
+			done[env] = true;
+		}
+
+		playerX[env] = x;
+		playerY[env] = y;
+		steps[env]++;
+		writeState(env, reward);
+	}
+
+	/**
+	 * Write the state of a level into the observations.
+	 *
+	 * @param env the level.
+	 * @param reward the reward of the last step.
+	 */
+	private void writeState(int env, float reward) {
+		final int at = env * STATE_BYTES;
+		observations.putInt(at, playerX[env]);
+		observations.putInt(at + 4, playerY[env]);
+		observations.putInt(at + 8, lives[env]);
+		observations.putInt(at + 12, fish[env]);
+		observations.putInt(at + 16, steps[env]);
+		observations.putFloat(at + 20, reward);
+		observations.put(at + 24, (byte) (done[env] ? 1 : 0));
+	}
+
+	/**
+	 * Split some work into {@link #parts} and wait for them all to finish.
+	 *
+	 * @param total how many levels the work covers.
+	 * @param part does the work for a range of levels.
+	 */
+	private void run(final int total, final Part part) {
+		final int size = (total + parts - 1) / parts;
+		final CountDownLatch finished = new CountDownLatch(parts);
+		for (int p = 0; p < parts; p++) {
+			final int start = Math.min(total, p * size);
+			final int end = Math.min(total, start + size);
+			if (p == parts - 1) { // Do the last part on this thread.
+				part.run(start, end);
+				finished.countDown();
+			} else {
+				workers.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							part.run(start, end);
+						} finally {
+							finished.countDown();
+						}
+					}
+				});
+			}
+		}
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Get the observations of every level. The buffer is shared and is changed by every step and reset.
+	 *
+	 * @return the observations, which should not be written to.
+	 */
+	public ByteBuffer getObservations() {
+		return observations;
+	}
+
+	/**
+	 * Get the size of the part of the observations that holds the state of every level.
+	 *
+	 * @return the size, in bytes.
+	 */
+	public int getStateSize() {
+		return count * STATE_BYTES;
+	}
+
+	/**
+	 * Get how many levels there are.
+	 *
+	 * @return the number of levels.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the width of the levels.
+	 *
+	 * @return the width, in tiles.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the levels.
+	 *
+	 * @return the height, in tiles.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void dispose() {
+		workers.shutdown();
+	}
+
+	/**
+	 * Some work that covers a range of levels.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	private interface Part {
+		/**
+		 * Do the work.
+		 *
+		 * @param start the first level.
+		 * @param end one past the last level.
+		 */
+		void run(int start, int end);
+	}
+}
@@ -0,0 +1,253 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.util.Arrays;
+
+/**
+ * The items in a maze, like fish and cheese, stored as entities with packed components.
+ * <br>
+ * Every component is a primitive array with one slot per living item, so collision and drawing loop over contiguous memory
+ * and an item costs no objects. Removing an item moves the last item into its slot.
+ * Items keep the same entity number for as long as they are alive, so they can be found again after other items were removed.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class MazeItems {
+
+	/** Kind of item that gives the player a life. */
+	public static final int CHEESE = 0;
+	/** Kind of item that is counted in the fish minigame. Its colour is the ordinal of its {@link FishCell.FishColour}. */
+	public static final int FISH = 1;
+	/** The colour of items that do not have one. */
+	public static final int NO_COLOUR = -1;
+	/** The side length of an item, in tiles. */
+	public static final float SIZE = 1;
+
+	/** The x-coordinate of each item. */
+	private float[] x;
+	/** The y-coordinate of each item. */
+	private float[] y;
+	/** The kind of each item. */
+	private int[] kind;
+	/** The colour of each item. */
+	private int[] colour;
+	/** The entity number of each item. */
+	private int[] entity;
+	/** How many items there are. */
+	private int size;
+
+	/** The slot of each entity, or -1 if it is not alive. */
+	private int[] slot;
+	/** How many entity numbers have been used. */
+	private int entities;
+
+	/**
+	 * Constructor for {@link MazeItems}.
+	 *
+	 * @param capacity how many items to make room for. More room is made as needed.
+	 */
+	public MazeItems(int capacity) {
+		capacity = Math.max(capacity, 1);
+		x = new float[capacity];
+		y = new float[capacity];
+		kind = new int[capacity];
+		colour = new int[capacity];
+		entity = new int[capacity];
+		slot = new int[capacity];
+	}
+
+	/**
+	 * Add an item.
+	 *
+	 * @param kind the kind of item, like {@link #FISH}.
+	 * @param colour the colour of the item, or {@link #NO_COLOUR}.
+	 * @param x the x-coordinate of the item.
+	 * @param y the y-coordinate of the item.
+	 * @return the entity number of the item.
+	 */
+	public int add(int kind, int colour, float x, float y) {
+		if (size == this.x.length) {
+			int capacity = 2 * size;
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.kind = Arrays.copyOf(this.kind, capacity);
+			this.colour = Arrays.copyOf(this.colour, capacity);
+			this.entity = Arrays.copyOf(this.entity, capacity);
+		}
+		if (entities == slot.length) {
+			slot = Arrays.copyOf(slot, 2 * entities);
+		}
+		int id = entities++;
+		this.x[size] = x;
+		this.y[size] = y;
+		this.kind[size] = kind;
+		this.colour[size] = colour;
+		this.entity[size] = id;
+		slot[id] = size;
+		size++;
+		return id;
+	}
+
+	/**
+	 * Remove an item, moving the last item into its slot.
+	 * When removing items while looping over them, loop backwards so that no item is skipped.
+	 *
+	 * @param i the slot of the item.
+	 */
+	public void remove(int i) {
+		slot[entity[i]] = -1;
+		int last = --size;
+		if (i != last) {
+			x[i] = x[last];
+			y[i] = y[last];
+			kind[i] = kind[last];
+			colour[i] = colour[last];
+			entity[i] = entity[last];
+			slot[entity[i]] = i;
+		}
+	}
+
+	/** Remove every item, and start the entity numbers over. */
+	public void clear() {
+		size = 0;
+		entities = 0;
+	}
+
+	/**
+	 * Make these items a copy of other items, keeping their entity numbers.
+	 *
+	 * @param other the items to copy.
+	 */
+	public void set(MazeItems other) {
+		if (x.length < other.size) {
+			x = new float[other.x.length];
+			y = new float[other.x.length];
+			kind = new int[other.x.length];
+			colour = new int[other.x.length];
+			entity = new int[other.x.length];
+		}
+		if (slot.length < other.entities) {
+			slot = new int[other.slot.length];
+		}
+		size = other.size;
+		entities = other.entities;
+		System.arraycopy(other.x, 0, x, 0, size);
+		System.arraycopy(other.y, 0, y, 0, size);
+		System.arraycopy(other.kind, 0, kind, 0, size);
+		System.arraycopy(other.colour, 0, colour, 0, size);
+		System.arraycopy(other.entity, 0, entity, 0, size);
+		System.arraycopy(other.slot, 0, slot, 0, entities);
+	}
+
+	/**
+	 * Get how many items there are. Their slots are from 0 up to this.
+	 *
+	 * @return the number of items.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the slot of an entity.
+	 *
+	 * @param entity the entity number.
+	 * @return the slot of the item, or -1 if it has been removed.
+	 */
+	public int indexOf(int entity) {
+		return entity >= 0 && entity < entities ? slot[entity] : -1;
+	}
+
+	/**
+	 * Check if an entity is alive.
+	 *
+	 * @param entity the entity number.
+	 * @return if the item has not been removed.
+	 */
+	public boolean isAlive(int entity) {
+		return indexOf(entity) >= 0;
+	}
+
+	/**
+	 * Check if a box overlaps an item.
+	 *
+	 * @param i the slot of the item.
+	 * @param boxX the x-coordinate of the box.
+	 * @param boxY the y-coordinate of the box.
+	 * @param width the width of the box.
+	 * @param height the height of the box.
+	 * @return if they overlap.
+	 */
+	public boolean overlaps(int i, float boxX, float boxY, float width, float height) {
+		return boxX < x[i] + SIZE && boxX + width > x[i] && boxY < y[i] + SIZE && boxY + height > y[i];
+	}
+
+	/**
+	 * Get the x-coordinate of an item.
+	 *
+	 * @param i the slot of the item.
+	 * @return the x-coordinate.
+	 */
+	public float getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Get the y-coordinate of an item.
+	 *
+	 * @param i the slot of the item.
+	 * @return the y-coordinate.
+	 */
+	public float getY(int i) {
+		return y[i];
+	}
+
+	/**
+	 * Get the kind of an item.
+	 *
+	 * @param i the slot of the item.
+	 * @return the kind, like {@link #FISH}.
+	 */
+	public int getKind(int i) {
+		return kind[i];
+	}
+
+	/**
+	 * Get the colour of an item.
+	 *
+	 * @param i the slot of the item.
+	 * @return the colour, or {@link #NO_COLOUR}.
+	 */
+	public int getColour(int i) {
+		return colour[i];
+	}
+
+	/**
+	 * Get the entity number of an item.
+	 *
+	 * @param i the slot of the item.
+	 * @return the entity number.
+	 */
+	public int getEntity(int i) {
+		return entity[i];
+	}
+}
@@ -0,0 +1,94 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+/**
+ * The rules of a maze level that do not depend on graphics or input.
+ * <br>
+ * They are shared by {@link Player}, which plays them in the game, and {@link MazeEnvironment}, which plays them without graphics,
+ * so that the two follow the same rules. Anything about how the player moves or what they touch is left to the caller.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public final class MazeRules {
+
+	/** How many lives the player has at the start of a new game. */
+	public static final int START_LIVES = 3;
+	/** The x coordinate the player starts at, and goes back to after dying. */
+	public static final int START_X = 0;
+
+	/** There are no instances of this class. */
+	private MazeRules() {
+	}
+
+	/**
+	 * Get the y coordinate the player starts at, and goes back to after dying.
+	 *
+	 * @param mapHeight the height of the map.
+	 * @return the starting y coordinate.
+	 */
+	public static int startY(int mapHeight) {
+		return mapHeight / 2;
+	}
+
+	/**
+	 * Check if running into a wire that is on ends the game.
+	 *
+	 * @param lives how many lives the player has.
+	 * @return if the player is out of lives.
+	 */
+	public static boolean isGameOver(int lives) {
+		return lives <= 0;
+	}
+
+	/**
+	 * Get how many lives the player has after running into a wire that is on, if it does not end the game.
+	 *
+	 * @param lives how many lives the player had.
+	 * @param help if help mode is on, which makes dying free.
+	 * @return how many lives the player has left.
+	 */
+	public static int livesAfterDeath(int lives, boolean help) {
+		return help ? lives : lives - 1;
+	}
+
+	/**
+	 * Get how many lives the player has after collecting a piece of cheese.
+	 *
+	 * @param lives how many lives the player had.
+	 * @return how many lives the player has now.
+	 */
+	public static int livesAfterCheese(int lives) {
+		return lives + 1;
+	}
+
+	/**
+	 * Check if the player has reached the end of the level.
+	 *
+	 * @param x the player's x coordinate.
+	 * @param size the player's width.
+	 * @param mapWidth the width of the map.
+	 * @return if the player has reached the right edge of the map.
+	 */
+	public static boolean isFinished(float x, float size, int mapWidth) {
+		return x + size >= mapWidth;
+	}
+}
@@ -30,11 +30,13 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.FloatCounter;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.scenes.scene2d.Actor;
@@ -45,9 +47,11 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
+import ca.hiphiparray.amazingmaze.FishCell.FishColour;
 import ca.hiphiparray.amazingmaze.MusicManager.Song;
 import ca.hiphiparray.amazingmaze.Player.HorizontalDirection;
 import ca.hiphiparray.amazingmaze.Player.VerticalDirection;
@@ -66,7 +70,7 @@ import ca.hiphiparray.amazingmaze.Player.VerticalDirection;
  * <br>
  * Time (Susie): 5 minutes
  */
-public class MazeScreen implements Screen, InputProcessor {
+public class MazeScreen implements PreparedScreen, InputProcessor {
 
 	/** The {@link AmazingMazeGame} instance that is managing this screen. */
 	protected final AmazingMazeGame game;
@@ -84,9 +88,11 @@ public class MazeScreen implements Screen, InputProcessor {
 	protected static final int TILE_SIZE = 16;
 	/** Constant to use when converting between world and screen units. */
 	private static final float MAP_SCALE = 1f / TILE_SIZE;
+	/** How many screens of 16 by 9 tiles the levels are, before getting longer as the levels go on. */
+	private static final int MAP_SIZE = 2;
 
 	/** The number of tiles wide the map is. */
-	protected final int mapWidth;
+	protected int mapWidth;
 	/** The number of tiles high the map is. */
 	protected int mapHeight;
 
@@ -94,7 +100,7 @@ public class MazeScreen implements Screen, InputProcessor {
 	protected TiledMap map;
 
 	/** The renderer for the map. */
-	private OrthogonalTiledMapRenderer mapRenderer;
+	private CircuitRenderer mapRenderer;
 
 	/** The camera. */
 	private OrthographicCamera camera;
@@ -103,72 +109,336 @@ public class MazeScreen implements Screen, InputProcessor {
 
 	/** The player. */
 	private Player player;
+	/** What is drawn for the player. The player itself, or a copy of it if the game logic runs on the {@link #simulation} thread. */
+	private Sprite playerView;
 
 	/** Array of bounding boxes for collision with objects. */
 	protected Array<Rectangle> obstacleBoxes;
 	/** Array of bounding boxes for collision with electrified wires. */
 	protected Array<Rectangle> wireBoxes;
-	/** Array of bounding boxes for collision with fish. */
-	protected Array<Rectangle> fishBoxes;
-	/** Array of bounding boxes for collision with cheese. */
-	protected Array<Rectangle> cheeseBoxes;
+	/** The fish and cheese the player can pick up. Only changed by the thread running the game logic. */
+	protected final MazeItems items;
+	/** The items that are drawn. The same as {@link #items}, or a copy of them if the game logic runs on the {@link #simulation} thread. */
+	private final MazeItems itemView;
+	/** What is drawn for each kind and colour of item, see {@link #getItemRegion(int, int)}. */
+	private final TextureRegion[] itemRegions;
 
 	/** Array of locations of the gates. */
 	private Array<Point> gateLocations;
 
 	/** ArrayList of gates of wires that are on. */
 	protected ArrayList<Circuit> gateOn;
+	/** The electric state each gate and wire is marked with, see {@link MapFactory#getNetworkStates()}. */
+	private IntArray networkStates;
 
+	/** Label to show which level is being played. */
+	private Label levelLabel;
 	/** Label to show how many lives the player has left. */
 	private Label livesLeft;
 
 	/** If the game is paused. */
 	private boolean paused;
+	/** The last frame drawn before the game was paused, shown behind the pause menu. */
+	private FrozenFrame frozenFrame;
 
 	/** If the game is in tutorial mode. */
 	protected boolean help;
 
+	/** How often the level is snapshotted so it can be resumed, in seconds of play. */
+	private static final float SNAPSHOT_INTERVAL = 5f;
+	/** The seed the map was generated with. */
+	private long seed;
+	/** The level being played. */
+	private int level;
+	/** How many lives the player starts the level with. */
+	private int lives;
+	/** The snapshot to resume the next level from, or {@code null} to start it from the beginning. */
+	private LevelSnapshot pendingSnapshot;
+	/** If a level was chosen with {@link #setLevel(LevelSnapshot)} that {@link #prepare()} has not generated yet. */
+	private boolean levelPending;
+	/** How long the level has been played since the last snapshot, in seconds. */
+	private float snapshotTime;
+	/** How long the level has been played in this session, in seconds. */
+	private float levelTime;
+	/** Streams this level to the teacher, or {@code null} if nobody is watching or this is the tutorial. */
+	private final SpectatorStream spectator;
+
+	/** Runs the game logic on its own thread, or {@code null} if it is run on the rendering thread. */
+	private MazeSimulation simulation;
+	/** Reused to take events out of the {@link #simulation}. */
+	private final SampleQueue.Sample event;
+
+	/** Steering input: the player's horizontal direction changed to the direction with the ordinal in the x-coordinate. */
+	private static final int HORIZONTAL = 1;
+	/** Steering input: the player's vertical direction changed to the direction with the ordinal in the x-coordinate. */
+	private static final int VERTICAL = 2;
+	/** How many steering inputs can wait to be applied. */
+	private static final int STEERING_CAPACITY = 64;
+	/** How old an input event can be before its time is assumed to be from a different clock, in nanoseconds. */
+	private static final long MAX_INPUT_AGE = 1000000000L;
 	/**
-	 * Constructor for the maze screen.
+	 * Steering input, timestamped when it happened so it can be applied at the right moment within a step.
+	 * Filled in by the rendering thread and emptied by whichever thread runs the game logic.
+	 */
+	private final SampleQueue steering;
+	/** The steering input being applied. Only used by the thread running the game logic. */
+	private final SampleQueue.Sample steer;
+	/** If {@link #steer} holds an input that happens after the last step, so it must be applied in a later one. */
+	private boolean steerPending;
+	/** When the oldest input that has been applied but not yet published happened, in nanoseconds, or 0 if there is none. */
+	private long inputTime;
+	/** When the oldest input in the frame being drawn happened, in nanoseconds, or 0 if there is none. */
+	private long shownInputTime;
+	/** The last frame taken from the {@link #simulation}. */
+	private long shownTick;
+
+	/** If the left button is being held down. */
+	private boolean leftHeld;
+	/** If the right button is being held down. */
+	private boolean rightHeld;
+	/** If the up button is being held down. */
+	private boolean upHeld;
+	/** If the down button is being held down. */
+	private boolean downHeld;
+
+	/**
+	 * Constructor for the maze screen. Call {@link #setLevel(LevelSnapshot)} and prepare it before showing it.
 	 *
 	 * @param game the {@link AmazingMazeGame} instance that is managing this screen.
 	 * @param help if this is the tutorial level.
 	 */
 	public MazeScreen(final AmazingMazeGame game, boolean help) {
-		final int mapSize = 2;
 		this.game = game;
 		this.paused = false;
+		this.frozenFrame = new FrozenFrame();
 		this.help = help;
 
-		this.mapWidth = 16 * mapSize + game.save.getLevel() * 5;
-		this.mapHeight = 9 * mapSize;
-
 		camera = new OrthographicCamera();
-		camera.setToOrtho(false, 16 * mapSize, this.mapHeight);
+		viewport = new ExtendViewport(0, 9 * MAP_SIZE, 16 * MAP_SIZE, 9 * MAP_SIZE, camera);
+		mapRenderer = new CircuitRenderer(null, MAP_SCALE, game.batch);
+
+		obstacleBoxes = new Array<Rectangle>(false, 16);
+		wireBoxes = new Array<Rectangle>(false, 16);
+		items = new MazeItems(16);
+		itemRegions = new TextureRegion[1 + FishColour.values().length];
+
+		player = new Player(game.assets.manager.get(Assets.GAME_ATLAS_LOCATION, TextureAtlas.class).findRegion(Assets.PLACEHOLDER), this);
+		player.setScale(MAP_SCALE);
+		event = new SampleQueue.Sample();
+		steering = new SampleQueue(STEERING_CAPACITY);
+		steer = new SampleQueue.Sample();
+		if (game.simulationThread && !help) {
+			itemView = new MazeItems(16);
+			playerView = new Sprite(player);
+			simulation = new MazeSimulation(this, player);
+		} else {
+			itemView = items;
+			playerView = player;
+		}
+
+		if (!help) {
+			setupHUD();
+		}
+		setupPauseMenu();
+		input = new InputMultiplexer(pauseMenu, this);
+
+		spectator = help ? null : game.spectator;
+	}
+
+	/**
+	 * Choose the next level to play on this screen, replacing the one that was being played. The screen must not be showing.
+	 * The level is the current level in the save, unless it is resumed from a snapshot.
+	 * It is generated by {@link #prepare()}, so move to the screen with {@link ScreenTransition#start(com.badlogic.gdx.Screen)}.
+	 *
+	 * @param snapshot the snapshot to resume from, or {@code null} to start the level from the beginning.
+	 */
+	public void setLevel(LevelSnapshot snapshot) {
+		if (snapshot != null) {
+			game.save.setLevel(snapshot.level);
+			game.save.setScore(snapshot.score);
+			game.save.setStartScore(snapshot.startScore);
+			game.save.setLives(snapshot.lives);
+		}
+		if (paused) {
+			paused = false;
+			frozenFrame.release();
+			if (simulation != null) {
+				simulation.release();
+			}
+		}
+		level = game.save.getLevel();
+		lives = game.save.getLives();
+		pendingSnapshot = snapshot;
+		levelPending = true;
+	}
+
+	@Override
+	public boolean needsPrepare() {
+		return levelPending;
+	}
 
-		viewport = new ExtendViewport(0, this.mapHeight, this.mapWidth, this.mapHeight, camera);
+	/** Generate the level chosen with {@link #setLevel(LevelSnapshot)}, and put the player at its start. */
+	@Override
+	public void prepare() {
+		LevelSnapshot snapshot = pendingSnapshot;
+		pendingSnapshot = null;
 
-		MapFactory factory;
+		mapWidth = 16 * MAP_SIZE + level * 5;
+		mapHeight = 9 * MAP_SIZE;
 		if (!help) {
-			factory = new MapFactory(game, game.save.getLevel(), this.mapWidth, this.mapHeight, TILE_SIZE);
+			seed = level;
 		} else {
-			this.mapHeight = this.mapHeight * 5 / 8;
-			factory = new MapFactory(game, -3, this.mapWidth, this.mapHeight, TILE_SIZE);
+			mapHeight = mapHeight * 5 / 8;
+			seed = -3;
+		}
+		if (snapshot != null && (snapshot.seed != seed || snapshot.mapWidth != mapWidth || snapshot.mapHeight != mapHeight)) {
+			Gdx.app.error("MazeScreen", "Snapshot does not match level " + level + ", starting it over");
+			snapshot = null;
 		}
+		if (map != null) {
+			map.dispose();
+		}
+		MapFactory factory = new MapFactory(game, seed, mapWidth, mapHeight, TILE_SIZE);
 		map = factory.generateMap();
 		gateLocations = factory.getGateLocations();
 		gateOn = factory.getGateOn();
+		networkStates = factory.getNetworkStates();
+		if (snapshot != null) {
+			restoreMap(snapshot);
+		}
 		createBoundingBoxes();
 
-		mapRenderer = new OrthogonalTiledMapRenderer(map, MAP_SCALE, game.batch);
-		player = new Player(game.assets.manager.get(Assets.GAME_ATLAS_LOCATION, TextureAtlas.class).findRegion(Assets.PLACEHOLDER), this);
-		player.setScale(MAP_SCALE);
+		player.reset(lives);
+		if (snapshot != null) {
+			player.restoreFrom(snapshot);
+		}
+		levelPending = false;
+	}
+
+	/** Show the level generated by {@link #prepare()}, and reset everything else for it. */
+	@Override
+	public void attach() {
+		camera.setToOrtho(false, 16 * MAP_SIZE, 9 * MAP_SIZE);
+		viewport.setMaxWorldWidth(mapWidth);
+		mapRenderer.setMap(map);
+		mapRenderer.setNetworkStates(networkStates);
+
+		playerView.setRegion(player.getFrame());
+		playerView.setPosition(player.getX(), player.getY());
+		if (itemView != items) {
+			itemView.set(items);
+		}
+		while (steering.poll(steer)) { // Input from the last level.
+		}
+		steerPending = false;
+		inputTime = 0;
+		shownInputTime = 0;
+		if (simulation != null) {
+			simulation.reset();
+		}
+		snapshotTime = 0;
+		levelTime = 0;
 
 		if (!help) {
-			setupHUD();
+			levelLabel.setText("Level " + level);
+			updateLives(-2);
+		}
+		saveSnapshot(); // Replace any snapshot of an earlier game.
+
+		if (spectator != null) {
+			spectator.beginLevel();
 		}
-		setupPauseMenu();
-		input = new InputMultiplexer(pauseMenu, this);
+	}
+
+	/**
+	 * Apply the changes the player made to the map before the snapshot was taken.
+	 *
+	 * @param snapshot the snapshot to restore from.
+	 */
+	private void restoreMap(LevelSnapshot snapshot) {
+		if (snapshot.gateStates.size == gateLocations.size) {
+			for (int i = 0; i < gateLocations.size; i++) {
+				Point gate = gateLocations.get(i);
+				markGate(gate.x, gate.y, snapshot.gateStates.get(i));
+			}
+		}
+
+		boolean[] remaining = new boolean[mapWidth * mapHeight];
+		for (int i = 0; i < snapshot.items.size; i += 2) {
+			int x = snapshot.items.get(i);
+			int y = snapshot.items.get(i + 1);
+			if (x >= 0 && x < mapWidth && y >= 0 && y < mapHeight) {
+				remaining[y * mapWidth + x] = true;
+			}
+		}
+		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(MapFactory.ITEM_LAYER);
+		for (int r = 0; r < mapHeight; r++) {
+			for (int c = 0; c < mapWidth; c++) {
+				if (!remaining[r * mapWidth + c]) {
+					layer.setCell(c, r, null);
+				}
+			}
+		}
+	}
+
+	/** Discard the snapshot of the level, once it can no longer be resumed. Does nothing in the tutorial. */
+	private void discardSnapshot() {
+		if (!help) {
+			game.save.clearSnapshot();
+		}
+	}
+
+	/** Queue a snapshot of the level to be saved, so the player can resume it later. Does nothing in the tutorial. */
+	private void saveSnapshot() {
+		snapshotTime = 0;
+		if (!help) {
+			game.save.writeSnapshot(createSnapshot());
+		}
+	}
+
+	/**
+	 * Take a snapshot of the level.
+	 *
+	 * @return the snapshot.
+	 */
+	private LevelSnapshot createSnapshot() {
+		if (simulation != null) {
+			simulation.hold();
+			applySimulationEvents();
+		}
+		try {
+			return fillSnapshot();
+		} finally {
+			if (simulation != null) {
+				simulation.release();
+			}
+		}
+	}
+
+	/**
+	 * Take a snapshot of the level, while the game logic is not running.
+	 *
+	 * @return the snapshot.
+	 */
+	private LevelSnapshot fillSnapshot() {
+		LevelSnapshot snapshot = new LevelSnapshot();
+		snapshot.level = game.save.getLevel();
+		snapshot.score = game.save.getScore();
+		snapshot.startScore = game.save.getStartScore();
+		snapshot.lives = game.save.getLives();
+		snapshot.seed = seed;
+		snapshot.mapWidth = mapWidth;
+		snapshot.mapHeight = mapHeight;
+		player.saveTo(snapshot);
+
+		for (Point gate : gateLocations) {
+			snapshot.gateStates.add(getGateState(gate.x, gate.y));
+		}
+		for (int i = 0; i < items.size(); i++) {
+			snapshot.items.add((int) items.getX(i));
+			snapshot.items.add((int) items.getY(i));
+		}
+		return snapshot;
 	}
 
 	/** Create the pause menu. */
@@ -184,7 +454,7 @@ public class MazeScreen implements Screen, InputProcessor {
 		resumeButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
-				paused = false;
+				setPaused(false);
 			}
 		});
 		table.add(resumeButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
@@ -196,7 +466,7 @@ public class MazeScreen implements Screen, InputProcessor {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				game.settingsScreen.setSourceScreen(sourceScreen);
-				game.setScreen(game.settingsScreen);
+				game.transition.start(game.settingsScreen);
 			}
 		});
 		table.add(settingsButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
@@ -206,7 +476,12 @@ public class MazeScreen implements Screen, InputProcessor {
 		quitButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
-				game.setScreen(game.menuScreen);
+				saveSnapshot();
+				if (spectator != null) {
+					spectator.levelOver(SpectatorStream.QUIT);
+					spectator.update(0); // Nothing else sends it until the next level starts.
+				}
+				game.transition.start(game.menuScreen);
 			}
 		});
 		table.add(quitButton).pad(10).width(Gdx.graphics.getWidth() / 4).height(Gdx.graphics.getHeight() / 8);
@@ -221,8 +496,8 @@ public class MazeScreen implements Screen, InputProcessor {
 		table.top().left();
 		hud.addActor(table);
 
-		Label level = new Label("Level " + game.save.getLevel(), game.assets.skin, Assets.HUD_STYLE);
-		table.add(level).colspan(2);
+		levelLabel = new Label("", game.assets.skin, Assets.HUD_STYLE);
+		table.add(levelLabel).colspan(2);
 		table.row();
 
 		Image lifeIcon = new Image(game.assets.manager.get(Assets.LIFE_HUD_IMAGE, Texture.class));
@@ -230,13 +505,11 @@ public class MazeScreen implements Screen, InputProcessor {
 
 		livesLeft = new Label("", game.assets.skin, Assets.HUD_STYLE);
 		table.add(livesLeft);
-
-		updateLives(-2);
 	}
 
 	/** Create the bounding boxes for collision detection. */
 	private void createBoundingBoxes() {
-		obstacleBoxes = new Array<Rectangle>(false, 16);
+		obstacleBoxes.clear();
 		TiledMapTileLayer objects = (TiledMapTileLayer) map.getLayers().get(MapFactory.OBJECT_LAYER);
 		for (int r = 0; r < mapHeight; r++) {
 			for (int c = 0; c < mapWidth; c++) {
@@ -246,7 +519,7 @@ public class MazeScreen implements Screen, InputProcessor {
 				}
 			}
 		}
-		wireBoxes = new Array<Rectangle>(false, 16);
+		wireBoxes.clear();
 		TiledMapTileLayer wires = (TiledMapTileLayer) map.getLayers().get(MapFactory.WIRE_LAYER);
 		for (int r = 0; r < mapHeight; r++) {
 			for (int c = 0; c < mapWidth; c++) {
@@ -256,21 +529,35 @@ public class MazeScreen implements Screen, InputProcessor {
 				}
 			}
 		}
-		fishBoxes = new Array<Rectangle>(false, 16);
-		cheeseBoxes = new Array<Rectangle>(false, 16);
-		TiledMapTileLayer items = (TiledMapTileLayer) map.getLayers().get(MapFactory.ITEM_LAYER);
+		items.clear();
+		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(MapFactory.ITEM_LAYER);
 		for (int r = 0; r < mapHeight; r++) {
 			for (int c = 0; c < mapWidth; c++) {
-				Cell item = items.getCell(c, r);
+				Cell item = layer.getCell(c, r);
 				if (item != null) {
+					int kind = MazeItems.CHEESE;
+					int colour = MazeItems.NO_COLOUR;
 					if (item.getClass() == FishCell.class) {
-						fishBoxes.add(new Rectangle(c, r, 1, 1));
-					} else {
-						cheeseBoxes.add(new Rectangle(c, r, 1, 1));
+						kind = MazeItems.FISH;
+						colour = ((FishCell) item).getColour().ordinal();
 					}
+					items.add(kind, colour, c, r);
+					itemRegions[getItemRegion(kind, colour)] = item.getTile().getTextureRegion();
 				}
 			}
 		}
+		map.getLayers().remove(layer); // The items are drawn from the item storage instead.
+	}
+
+	/**
+	 * Get where the picture of an item is kept in {@link #itemRegions}.
+	 *
+	 * @param kind the kind of item.
+	 * @param colour the colour of the item.
+	 * @return the index of its picture.
+	 */
+	private static int getItemRegion(int kind, int colour) {
+		return kind == MazeItems.FISH ? 1 + colour : 0;
 	}
 
 	@Override
@@ -278,24 +565,46 @@ public class MazeScreen implements Screen, InputProcessor {
 		Gdx.input.setCursorCatched(false);
 		Gdx.input.setInputProcessor(input);
 		game.music.setSong(Song.MAZE);
+		if (simulation != null && !paused) {
+			simulation.start();
+		}
 	}
 
 	@Override
 	public void render(float delta) {
-		// Update the game state
-		if (!paused) {
-			update(delta);
-			hud.act();
-		} else {
+		if (paused) {
 			pauseMenu.act();
+			if (!frozenFrame.isCaptured()) { // Draw the game one last time, into the frozen frame.
+				frozenFrame.begin();
+				drawGame();
+				frozenFrame.end();
+			}
+
+			Gdx.gl.glClearColor(0, 0, 0, 1);
+			Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+			frozenFrame.draw(game.batch);
+			pauseMenu.draw();
+			return;
 		}
 
-		// Do the rendering.
+		// Update the game state
+		update(delta);
+		hud.act();
+
+		drawGame();
+		if (shownInputTime != 0) {
+			game.inputLatency.put((System.nanoTime() - shownInputTime) / 1e6f);
+			shownInputTime = 0;
+		}
+	}
+
+	/** Draw the map, the player, and the HUD. */
+	private void drawGame() {
 		Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-		Vector3 target = new Vector3(player.getX(), mapHeight / 2, 0);
-		target.x = Math.min(player.getX(), mapWidth - viewport.getWorldWidth() / 2);
+		Vector3 target = new Vector3(playerView.getX(), mapHeight / 2, 0);
+		target.x = Math.min(playerView.getX(), mapWidth - viewport.getWorldWidth() / 2);
 		target.x = Math.max(viewport.getWorldWidth() / 2, target.x);
 
 		camera.position.lerp(target, 0.25f);
@@ -304,13 +613,37 @@ public class MazeScreen implements Screen, InputProcessor {
 
 		mapRenderer.render();
 		game.batch.begin();
-		player.draw(game.batch);
+		for (int i = 0; i < itemView.size(); i++) {
+			TextureRegion region = itemRegions[getItemRegion(itemView.getKind(i), itemView.getColour(i))];
+			game.batch.draw(region, itemView.getX(i), itemView.getY(i), MazeItems.SIZE, MazeItems.SIZE);
+		}
+		playerView.draw(game.batch);
 		game.batch.end();
 		hud.draw();
+	}
 
+	/**
+	 * Pause or resume the game.
+	 * While paused, the game is not rendered, a frozen copy of its last frame is shown behind the pause menu instead,
+	 * and the screen is only redrawn when something changes.
+	 *
+	 * @param paused if the game should be paused.
+	 */
+	private void setPaused(boolean paused) {
+		if (simulation != null && paused != this.paused) {
+			if (paused) {
+				simulation.hold();
+			} else {
+				simulation.release();
+				simulation.start(); // In case it was stopped while the game was paused.
+			}
+		}
+		this.paused = paused;
 		if (paused) {
-			pauseMenu.draw();
+			saveSnapshot();
 		}
+		frozenFrame.release();
+		Gdx.graphics.setContinuousRendering(!paused);
 	}
 
 	/**
@@ -319,27 +652,186 @@ public class MazeScreen implements Screen, InputProcessor {
 	 * @param delta the time passed since the last frame.
 	 */
 	private void update(float delta) {
-		player.update(delta);
-		if (player.getX() + 1 * Player.PLAYER_SIZE >= mapWidth) {
+		boolean finished;
+		boolean dead;
+		if (simulation == null) {
+			long now = System.nanoTime();
+			step(now - (long) (delta * 1e9), now);
+			finished = isFinished();
+			dead = player.isDead();
+			showInput(takeInputTime());
+		} else {
+			MazeSimulation.Frame frame = simulation.getFrame();
+			if (frame.tick != shownTick) {
+				shownTick = frame.tick;
+				showInput(frame.inputTime);
+			}
+			applySimulationEvents();
+			if (frame.region != null) {
+				playerView.setRegion(frame.region);
+			}
+			playerView.setPosition(frame.x, frame.y);
+			finished = frame.finished;
+			dead = frame.dead;
+			if (finished || dead) {
+				simulation.stop();
+				applySimulationEvents();
+			}
+		}
+		if (spectator != null) {
+			if (spectator.needsKeyframe()) {
+				spectator.keyframe(createSnapshot().toBytes());
+			}
+			spectator.position(playerView.getX(), playerView.getY());
+		}
+		if (finished) {
+			if (!help) {
+				game.save.getGameplayLog().levelFinished(game.save.getLevel(), levelTime);
+			}
+			if (spectator != null) {
+				spectator.levelOver(SpectatorStream.FINISHED);
+				spectator.update(delta);
+			}
+			discardSnapshot();
 			nextScreen();
-			dispose();
-		} else if (player.isDead()) {
-			game.setScreen(new ContinueScreen(game, false));
-			dispose();
+		} else if (dead) {
+			if (spectator != null) {
+				spectator.levelOver(SpectatorStream.DIED);
+				spectator.update(delta);
+			}
+			discardSnapshot();
+			game.continueScreen.setWon(false);
+			game.transition.start(game.continueScreen);
+		} else {
+			snapshotTime += delta;
+			if (snapshotTime >= SNAPSHOT_INTERVAL) {
+				saveSnapshot();
+			}
+			if (spectator != null) {
+				spectator.update(delta);
+			}
+		}
+	}
+
+	/**
+	 * Run the game logic, applying steering input at the moment it happened within the step.
+	 * Called on the {@link #simulation} thread if there is one.
+	 *
+	 * @param start when the step starts, from {@link System#nanoTime()}.
+	 * @param end when the step ends, from {@link System#nanoTime()}.
+	 */
+	protected void step(long start, long end) {
+		long time = start;
+		while (steerPending || steering.poll(steer)) {
+			if (steer.time > end) { // Happens after this step.
+				steerPending = true;
+				break;
+			}
+			steerPending = false;
+			if (steer.time > time) {
+				advance(steer.time - time);
+				time = steer.time;
+			}
+			if (steer.kind == HORIZONTAL) {
+				player.setHorizontalDir(HorizontalDirection.values()[steer.x]);
+			} else {
+				player.setVerticalDir(VerticalDirection.values()[steer.x]);
+			}
+			if (inputTime == 0) {
+				inputTime = steer.time;
+			}
+		}
+		advance(end - time);
+	}
+
+	/**
+	 * Move the game logic forward.
+	 *
+	 * @param nanos how long to move it forward, in nanoseconds.
+	 */
+	private void advance(long nanos) {
+		if (nanos > 0) {
+			float delta = nanos / 1e9f;
+			player.update(delta);
+			levelTime += delta;
 		}
 	}
 
+	/**
+	 * Get when the oldest input applied since the last call happened. Called on the {@link #simulation} thread if there is one.
+	 *
+	 * @return the time in nanoseconds, or 0 if no input has been applied.
+	 */
+	protected long takeInputTime() {
+		long time = inputTime;
+		inputTime = 0;
+		return time;
+	}
+
+	/**
+	 * Remember that the frame about to be drawn is the first to show an input, so the latency can be measured once it is drawn.
+	 *
+	 * @param time when the input happened, in nanoseconds, or 0 if there is none.
+	 */
+	private void showInput(long time) {
+		if (time != 0 && shownInputTime == 0) {
+			shownInputTime = time;
+		}
+	}
+
+	/**
+	 * Check if the player has reached the end of the level.
+	 *
+	 * @return if the level is finished.
+	 */
+	protected boolean isFinished() {
+		return MazeRules.isFinished(player.getX(), Player.PLAYER_SIZE, mapWidth);
+	}
+
+	/** Apply the changes the {@link #simulation} thread made to what is shown on the screen. */
+	protected void applySimulationEvents() {
+		if (simulation == null) {
+			return;
+		}
+		while (simulation.poll(event)) {
+			switch (event.kind) {
+				case MazeSimulation.ITEM_COLLECTED:
+					itemCollected(event.x);
+					break;
+				case MazeSimulation.LIVES:
+					showLives(event.x);
+					break;
+				case MazeSimulation.DIED:
+					playerDied(event.x);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Check if this is being called from the {@link #simulation} thread, so changes to what is shown on the screen must be sent to the rendering thread.
+	 *
+	 * @return if the current thread is the simulation thread.
+	 */
+	private boolean onSimulationThread() {
+		return simulation != null && simulation.isSimulationThread();
+	}
+
 	/** Advance the game to the next screen. */
 	public void nextScreen() {
 		game.save.setLevel(game.save.getLevel() + 1);
 		game.save.setLives(player.getLives());
-		game.setScreen(new FishMiniGame(game, player));
+		game.fishMiniGame.startRound(player);
+		game.transition.start(game.fishMiniGame);
 	}
 
 	@Override
 	public void resize(int width, int height) {
 		viewport.update(width, height);
 		hud.getViewport().update(width, height);
+		frozenFrame.release(); // Capture the paused game again at the new size.
+		game.assets.refreshFonts(hud);
+		game.assets.refreshFonts(pauseMenu);
 	}
 
 	@Override
@@ -352,27 +844,46 @@ public class MazeScreen implements Screen, InputProcessor {
 
 	@Override
 	public void hide() {
+		if (simulation != null) {
+			simulation.stop();
+		}
+		leftHeld = rightHeld = upHeld = downHeld = false; // Keys released on another screen are never seen here.
+		FloatCounter latency = game.inputLatency;
+		if (latency.count > 0) {
+			Gdx.app.debug("MazeScreen", String.format("Input to motion latency: %.1f ms average, %.1f ms max over %d inputs", latency.average, latency.max, latency.count));
+		}
 	}
 
 	@Override
 	public void dispose() {
+		if (simulation != null) {
+			simulation.dispose();
+		}
 		mapRenderer.dispose();
-		map.dispose();
+		if (map != null) {
+			map.dispose();
+		}
 		hud.dispose();
+		pauseMenu.dispose();
+		frozenFrame.dispose();
 	}
 
 	@Override
 	public boolean keyDown(int keycode) {
 		if (keycode == game.save.getLeftButton()) {
-			player.setHorizontalDir(HorizontalDirection.LEFT);
+			leftHeld = true;
+			steer(HorizontalDirection.LEFT);
 		} else if (keycode == game.save.getRightButton()) {
-			player.setHorizontalDir(HorizontalDirection.RIGHT);
+			rightHeld = true;
+			steer(HorizontalDirection.RIGHT);
 		} else if (keycode == game.save.getUpButton()) {
-			player.setVerticalDir(VerticalDirection.UP);
+			upHeld = true;
+			steer(VerticalDirection.UP);
 		} else if (keycode == game.save.getDownButton()) {
-			player.setVerticalDir(VerticalDirection.DOWN);
+			downHeld = true;
+			steer(VerticalDirection.DOWN);
 		} else if (keycode == game.save.getPauseButton()) {
-			paused = !paused;
+			setPaused(!paused);
 		}
 		return true;
 	}
@@ -380,49 +891,86 @@ public class MazeScreen implements Screen, InputProcessor {
 	@Override
 	public boolean keyUp(int keycode) {
 		if (keycode == game.save.getLeftButton()) {
-			if (Gdx.input.isKeyPressed(game.save.getRightButton())) {
-				player.setHorizontalDir(HorizontalDirection.RIGHT);
-			} else if (Gdx.input.isKeyPressed(game.save.getUpButton())) {
-				player.setVerticalDir(VerticalDirection.UP);
-			} else if (Gdx.input.isKeyPressed(game.save.getDownButton())) {
-				player.setVerticalDir(VerticalDirection.DOWN);
+			leftHeld = false;
+			if (rightHeld) {
+				steer(HorizontalDirection.RIGHT);
+			} else if (upHeld) {
+				steer(VerticalDirection.UP);
+			} else if (downHeld) {
+				steer(VerticalDirection.DOWN);
 			} else {
-				player.setHorizontalDir(HorizontalDirection.NONE);
+				steer(HorizontalDirection.NONE);
 			}
 		} else if (keycode == game.save.getRightButton()) {
-			if (Gdx.input.isKeyPressed(game.save.getLeftButton())) {
-				player.setHorizontalDir(HorizontalDirection.LEFT);
-			} else if (Gdx.input.isKeyPressed(game.save.getUpButton())) {
-				player.setVerticalDir(VerticalDirection.UP);
-			} else if (Gdx.input.isKeyPressed(game.save.getDownButton())) {
-				player.setVerticalDir(VerticalDirection.DOWN);
+			rightHeld = false;
+			if (leftHeld) {
+				steer(HorizontalDirection.LEFT);
+			} else if (upHeld) {
+				steer(VerticalDirection.UP);
+			} else if (downHeld) {
+				steer(VerticalDirection.DOWN);
 			} else {
-				player.setHorizontalDir(HorizontalDirection.NONE);
+				steer(HorizontalDirection.NONE);
 			}
 		} else if (keycode == game.save.getUpButton()) {
-			if (Gdx.input.isKeyPressed(game.save.getDownButton())) {
-				player.setVerticalDir(VerticalDirection.DOWN);
-			} else if (Gdx.input.isKeyPressed(game.save.getLeftButton())) {
-				player.setHorizontalDir(HorizontalDirection.LEFT);
-			} else if (Gdx.input.isKeyPressed(game.save.getRightButton())) {
-				player.setHorizontalDir(HorizontalDirection.RIGHT);
+			upHeld = false;
+			if (downHeld) {
+				steer(VerticalDirection.DOWN);
+			} else if (leftHeld) {
+				steer(HorizontalDirection.LEFT);
+			} else if (rightHeld) {
+				steer(HorizontalDirection.RIGHT);
 			} else {
-				player.setVerticalDir(VerticalDirection.NONE);
+				steer(VerticalDirection.NONE);
 			}
 		} else if (keycode == game.save.getDownButton()) {
-			if (Gdx.input.isKeyPressed(game.save.getUpButton())) {
-				player.setVerticalDir(VerticalDirection.UP);
-			} else if (Gdx.input.isKeyPressed(game.save.getLeftButton())) {
-				player.setHorizontalDir(HorizontalDirection.LEFT);
-			} else if (Gdx.input.isKeyPressed(game.save.getRightButton())) {
-				player.setHorizontalDir(HorizontalDirection.RIGHT);
+			downHeld = false;
+			if (upHeld) {
+				steer(VerticalDirection.UP);
+			} else if (leftHeld) {
+				steer(HorizontalDirection.LEFT);
+			} else if (rightHeld) {
+				steer(HorizontalDirection.RIGHT);
 			} else {
-				player.setVerticalDir(VerticalDirection.NONE);
+				steer(VerticalDirection.NONE);
 			}
 		}
 		return true;
 	}
 
+	/**
+	 * Change the player's horizontal direction, from the moment the input event being handled happened.
+	 *
+	 * @param direction the new direction.
+	 */
+	private void steer(HorizontalDirection direction) {
+		steering.offer(HORIZONTAL, direction.ordinal(), 0, getEventTime());
+	}
+
+	/**
+	 * Change the player's vertical direction, from the moment the input event being handled happened.
+	 *
+	 * @param direction the new direction.
+	 */
+	private void steer(VerticalDirection direction) {
+		steering.offer(VERTICAL, direction.ordinal(), 0, getEventTime());
+	}
+
+	/**
+	 * Get when the input event being handled happened.
+	 * Events are only handled once per frame, so this can be well before now.
+	 *
+	 * @return the time, from {@link System#nanoTime()}. If the backend's event time does not look like it is from the same clock, now.
+	 */
+	private long getEventTime() {
+		long now = System.nanoTime();
+		long time = Gdx.input.getCurrentEventTime();
+		if (time == 0 || time - now > 0 || now - time > MAX_INPUT_AGE) {
+			return now;
+		}
+		return time;
+	}
+
 	@Override
 	public boolean keyTyped(char character) {
 		return false;
@@ -434,26 +982,27 @@ public class MazeScreen implements Screen, InputProcessor {
 		int x = (int) worldClickPos.x;
 		int y = (int) worldClickPos.y;
 
-		TiledMapTileLayer objects = (TiledMapTileLayer) map.getLayers().get(MapFactory.OBJECT_LAYER);
-		Cell gate;
-		int newID;
-		for (Point point : gateLocations) {
+		for (int i = 0; i < gateLocations.size; i++) {
+			Point point = gateLocations.get(i);
 			if (point.x == x && point.y == y) {
-				gate = objects.getCell(x, y);
-				newID = TileIDs.computeID(TileIDs.stripElectricState(gate.getTile().getId()));
+				int state;
 				if (button == Buttons.LEFT) {
-					newID = TileIDs.computeID(newID, TileIDs.ON);
-					updateWires(x, y, TileIDs.ON);
+					state = TileIDs.ON;
 				} else if (button == Buttons.RIGHT) {
-					newID = TileIDs.computeID(newID, TileIDs.OFF);
-					updateWires(x, y, TileIDs.OFF);
+					state = TileIDs.OFF;
 				} else if (button == Buttons.MIDDLE) {
-					newID = TileIDs.computeID(newID, TileIDs.UNKNOWN);
-					updateWires(x, y, TileIDs.UNKNOWN);
+					state = TileIDs.UNKNOWN;
 				} else {
-					return true;
+					break;
+				}
+				if (!help) {
+					int oldState = getGateState(x, y);
+					game.save.getGameplayLog().gateMarked(game.save.getLevel(), MapFactory.getSplitColumn(x), state, oldState == TileIDs.ON || oldState == TileIDs.OFF);
+				}
+				markGate(x, y, state);
+				if (spectator != null) {
+					spectator.gateMarked(i, state);
 				}
-				gate.setTile(game.assets.tiles.getTile(newID));
 				break;
 			}
 		}
@@ -461,34 +1010,30 @@ public class MazeScreen implements Screen, InputProcessor {
 	}
 
 	/**
-	 * Update the wires connected to the gate at (x, y).
+	 * Get the electric state the gate at (x, y) is marked with.
 	 *
-	 * @param x the x position of the gate being updated.
-	 * @param y the y position of the gate being updated.
-	 * @param state the new state of the wires.
+	 * @param x the x position of the gate.
+	 * @param y the y position of the gate.
+	 * @return the electric state.
 	 */
-	private void updateWires(int x, int y, int state) {
-		TiledMapTileLayer wires = (TiledMapTileLayer) map.getLayers().get(MapFactory.WIRE_LAYER);
-		for (int r = y + 1; r < mapHeight; r++) {
-			if (wires.getCell(x, r) != null) {
-				Cell cell = wires.getCell(x, r);
-				int newID = TileIDs.stripElectricState(cell.getTile().getId());
-				newID = TileIDs.computeID(newID, state);
-				cell.setTile(game.assets.tiles.getTile(newID));
-			} else {
-				break;
-			}
-		}
-		for (int r = y - 1; r >= 0; r--) {
-			if (wires.getCell(x, r) != null) {
-				Cell cell = wires.getCell(x, r);
-				int newID = TileIDs.stripElectricState(cell.getTile().getId());
-				newID = TileIDs.computeID(newID, state);
-				cell.setTile(game.assets.tiles.getTile(newID));
-			} else {
-				break;
-			}
-		}
+	private int getGateState(int x, int y) {
+		TiledMapTileLayer objects = (TiledMapTileLayer) map.getLayers().get(MapFactory.OBJECT_LAYER);
+		ElectricCell gate = (ElectricCell) objects.getCell(x, y);
+		return networkStates.get(gate.getNetwork());
+	}
+
+	/**
+	 * Mark the gate at (x, y) and its wires with an electric state.
+	 * The gate and its wires are one network, so only its state changes and they are recoloured when drawn.
+	 *
+	 * @param x the x position of the gate.
+	 * @param y the y position of the gate.
+	 * @param state the electric state to mark it with.
+	 */
+	private void markGate(int x, int y, int state) {
+		TiledMapTileLayer objects = (TiledMapTileLayer) map.getLayers().get(MapFactory.OBJECT_LAYER);
+		ElectricCell gate = (ElectricCell) objects.getCell(x, y);
+		networkStates.set(gate.getNetwork(), state);
 	}
 
 	@Override
@@ -518,7 +1063,58 @@ public class MazeScreen implements Screen, InputProcessor {
 	 * Will be -1 if collided with cheese, and some other negative value for any other non-gate calls.
 	 */
 	public void updateLives(int gate) {
-		livesLeft.setText("x " + Integer.toString(player.getLives()));
+		if (onSimulationThread()) {
+			simulation.post(MazeSimulation.LIVES, player.getLives(), gate);
+		} else {
+			showLives(player.getLives());
+		}
+	}
+
+	/**
+	 * Show how many lives the player has left.
+	 *
+	 * @param lives how many lives the player has left.
+	 */
+	private void showLives(int lives) {
+		livesLeft.setText("x " + Integer.toString(lives));
+		if (spectator != null) {
+			spectator.lives(lives);
+		}
+	}
+
+	/**
+	 * Called when the player picks up an item, before it is removed from {@link #items}.
+	 *
+	 * @param entity the entity number of the item.
+	 */
+	protected void itemCollected(int entity) {
+		if (onSimulationThread()) {
+			simulation.post(MazeSimulation.ITEM_COLLECTED, entity, 0);
+			return;
+		}
+		int i = itemView.indexOf(entity);
+		if (i < 0) {
+			return;
+		}
+		if (spectator != null) {
+			spectator.itemCollected((int) itemView.getX(i), (int) itemView.getY(i));
+		}
+		if (itemView != items) {
+			itemView.remove(i);
+		}
+	}
+
+	/**
+	 * Called when the player runs into an electrified wire.
+	 *
+	 * @param column the split column the wire is in.
+	 */
+	protected void playerDied(int column) {
+		if (onSimulationThread()) {
+			simulation.post(MazeSimulation.DIED, column, 0);
+		} else if (!help) {
+			game.save.getGameplayLog().died(game.save.getLevel(), column);
+		}
 	}
 
 }
@@ -0,0 +1,304 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Runs the game logic of a {@link MazeScreen} on its own thread, at a fixed rate, so a slow frame does not slow the game down.
+ * <br>
+ * Nothing is locked while the level is being played:
+ * <ul>
+ * <li>Movement input is handed to the simulation thread through the {@link MazeScreen}'s timestamped input queue.</li>
+ * <li>After every tick, the player's position and image are published in a triple-buffered {@link Frame},
+ * so the rendering thread always has a complete frame to draw.</li>
+ * <li>Anything else the logic changes that is shown on the screen, like items being picked up and lives, is sent back
+ * through another {@link SampleQueue}, to be applied on the rendering thread with {@link MazeScreen#applySimulationEvents()}.</li>
+ * </ul>
+ * When the rendering thread needs the whole game state, for example to save a snapshot, it holds the simulation between ticks with {@link #hold()}.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class MazeSimulation implements Disposable {
+
+	/** How long each tick is, in seconds. */
+	public static final float TICK = 1 / 60f;
+	/** How many ticks can be run at once to catch up after the simulation thread was delayed. Any more are skipped. */
+	private static final int MAX_CATCH_UP = 5;
+	/** How many events can wait in each direction. */
+	private static final int QUEUE_CAPACITY = 256;
+
+	/** Event: the item with the entity number in the x-coordinate was picked up. */
+	public static final int ITEM_COLLECTED = 1;
+	/** Event: the number of lives changed to the x-coordinate. */
+	public static final int LIVES = 2;
+	/** Event: the player ran into a wire in the split column given by the x-coordinate. */
+	public static final int DIED = 3;
+
+	/**
+	 * What the rendering thread needs to draw the player after a tick.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	public static class Frame {
+		/** Which tick this is, counting from 1. 0 means no tick has run yet. */
+		public long tick;
+		/** The player's x-coordinate. */
+		public float x;
+		/** The player's y-coordinate. */
+		public float y;
+		/** The player's image. */
+		public TextureRegion region;
+		/** If the player has reached the end of the level. */
+		public boolean finished;
+		/** If the player has run out of lives. */
+		public boolean dead;
+		/** When the oldest input first applied in this frame happened, in nanoseconds, or 0 if there was none. */
+		public long inputTime;
+	}
+
+	/** The screen whose logic is run. */
+	private final MazeScreen maze;
+	/** The player being simulated. */
+	private final Player player;
+
+	/** Events for the rendering thread. */
+	private final SampleQueue events;
+
+	/** The frame being filled in by the simulation thread. */
+	private Frame back;
+	/** The newest complete frame, waiting to be taken by the rendering thread. */
+	private final AtomicReference<Frame> ready;
+	/** The frame being drawn by the rendering thread. */
+	private Frame front;
+
+	/** The simulation thread, or {@code null} if it is not running. Only written by the rendering thread. */
+	private volatile Thread thread;
+	/** If the simulation thread should keep running. */
+	private volatile boolean running;
+	/** How many times {@link #hold()} has been called without {@link #release()}. Only used by the rendering thread. */
+	private int holds;
+	/** If the rendering thread wants the simulation to stop between ticks. */
+	private volatile boolean holdRequested;
+	/** If the simulation thread is in the middle of a tick. */
+	private volatile boolean ticking;
+	/** The number of ticks that have been run. Only used by the simulation thread. */
+	private long ticks;
+
+	/**
+	 * Constructor for {@link MazeSimulation}. The simulation does not run until {@link #start()} is called.
+	 *
+	 * @param maze the screen whose logic to run.
+	 * @param player the player to simulate.
+	 */
+	public MazeSimulation(MazeScreen maze, Player player) {
+		this.maze = maze;
+		this.player = player;
+		events = new SampleQueue(QUEUE_CAPACITY);
+		back = new Frame();
+		ready = new AtomicReference<Frame>(new Frame());
+		front = new Frame();
+		fill(front);
+	}
+
+	/** Start the simulation thread, if it is not running. */
+	public void start() {
+		if (thread != null) {
+			return;
+		}
+		running = true;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				simulate();
+			}
+		}, "Maze simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Stop the simulation thread and wait for it to finish. It can be started again. */
+	public void stop() {
+		Thread stopping = thread;
+		if (stopping == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(stopping);
+		while (stopping.isAlive()) {
+			maze.applySimulationEvents(); // The simulation might be waiting for room to send an event.
+			try {
+				stopping.join(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		thread = null;
+	}
+
+	/** Publish the player's state as it is now, after a new level was started. Only call this while the simulation is stopped. */
+	public void reset() {
+		fill(back);
+		fill(ready.get());
+		fill(front);
+	}
+
+	/**
+	 * Stop the simulation between ticks, so the rendering thread can safely use the game state. Returns once the current tick is over.
+	 * Call {@link #release()} to continue. Holds can be nested.
+	 */
+	public void hold() {
+		if (holds++ > 0) {
+			return;
+		}
+		holdRequested = true;
+		while (ticking) {
+			maze.applySimulationEvents();
+			Thread.yield();
+		}
+	}
+
+	/** Continue the simulation after {@link #hold()}, once every hold has been released. */
+	public void release() {
+		if (--holds > 0) {
+			return;
+		}
+		holdRequested = false;
+		Thread current = thread;
+		if (current != null) {
+			LockSupport.unpark(current);
+		}
+	}
+
+	/** Run ticks at a fixed rate until the thread is stopped. */
+	private void simulate() {
+		final long tickNanos = (long) (TICK * 1e9);
+		long nextTick = System.nanoTime();
+		while (running) {
+			if (holdRequested) {
+				LockSupport.park(this);
+				nextTick = System.nanoTime(); // Do not catch up on the time spent held.
+				continue;
+			}
+			long wait = nextTick - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(this, wait);
+				continue;
+			}
+
+			ticking = true;
+			if (!holdRequested) { // Checked again after announcing the tick, so hold() can not miss it.
+				for (int i = 0; i < MAX_CATCH_UP && nextTick - System.nanoTime() <= 0; i++) {
+					nextTick += tickNanos;
+					tick(nextTick - tickNanos, nextTick);
+				}
+				if (nextTick - System.nanoTime() <= 0) { // Too far behind, skip the rest.
+					nextTick = System.nanoTime() + tickNanos;
+				}
+			}
+			ticking = false;
+		}
+	}
+
+	/**
+	 * Run a single tick, then publish its frame.
+	 *
+	 * @param start when the tick starts, from {@link System#nanoTime()}.
+	 * @param end when the tick ends, from {@link System#nanoTime()}.
+	 */
+	private void tick(long start, long end) {
+		maze.step(start, end);
+
+		fill(back);
+		back.inputTime = maze.takeInputTime();
+		back.tick = ++ticks;
+		back = ready.getAndSet(back);
+	}
+
+	/**
+	 * Fill in a frame from the player.
+	 *
+	 * @param frame the frame to fill in.
+	 */
+	private void fill(Frame frame) {
+		frame.x = player.getX();
+		frame.y = player.getY();
+		frame.region = player.getFrame();
+		frame.finished = maze.isFinished();
+		frame.dead = player.isDead();
+	}
+
+	/**
+	 * Get the newest frame. Only call this from the rendering thread.
+	 *
+	 * @return the frame, which stays the same until the next call.
+	 */
+	public Frame getFrame() {
+		if (ready.get().tick > front.tick) {
+			front = ready.getAndSet(front);
+		}
+		return front;
+	}
+
+	/**
+	 * Send an event to the rendering thread. Only call this from the simulation thread.
+	 * If the rendering thread is too far behind to take it, this waits, since events can not be dropped.
+	 *
+	 * @param kind {@link #ITEM_COLLECTED}, {@link #LIVES} or {@link #DIED}.
+	 * @param x the first value of the event.
+	 * @param y the second value of the event.
+	 */
+	public void post(int kind, int x, int y) {
+		while (!events.offer(kind, x, y, 0)) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Take an event sent by the simulation thread. Only call this from the rendering thread.
+	 *
+	 * @param event where to put the event.
+	 * @return if there was an event.
+	 */
+	public boolean poll(SampleQueue.Sample event) {
+		return events.poll(event);
+	}
+
+	/**
+	 * Check if this is being called from the simulation thread.
+	 *
+	 * @return if the current thread is the simulation thread.
+	 */
+	public boolean isSimulationThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	@Override
+	public void dispose() {
+		stop();
+	}
+}
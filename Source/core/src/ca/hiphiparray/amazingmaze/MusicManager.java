@@ -19,43 +19,99 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze;
 
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Timer;
+import com.badlogic.gdx.utils.Timer.Task;
 
 /**
  * Manages the game's music.
+ * <br>
+ * Songs are only loaded when they are first needed, and the song that usually comes after the current one is loaded ahead of time.
+ * Songs that have not been played for {@link #IDLE_TIMEOUT} seconds are unloaded again.
+ * Changing songs cross-fades between them instead of cutting one off.
  *
  * @since 0.2
  * @author Vincent Macri
  * <br>
  * Time (Vincent): 10 minutes
  */
-public class MusicManager {
+public class MusicManager implements Disposable {
 
 	/** The songs in the game. */
 	public enum Song {
 		/** The menu song. */
-		MENU,
-		/** The story song. */
-		STORY,
+		MENU(Assets.MENU_SONG, true),
+		/** The story song. Intentionally not looping. */
+		STORY(Assets.STORY_SONG, false),
 		/** The maze song. */
-		MAZE,
+		MAZE(Assets.MAZE_SONG, true),
 		/** The math song. */
-		MATH,
+		MATH(Assets.MATH_SONG, true),
 		/** The credits song. */
-		CREDITS,
+		CREDITS(Assets.CREDITS_SONG, true);
+
+		/** The file name of the song. */
+		private final String fileName;
+		/** If the song should loop. */
+		private final boolean looping;
+
+		/**
+		 * Constructor for {@link Song}.
+		 *
+		 * @param fileName the file name of the song.
+		 * @param looping if the song should loop.
+		 */
+		private Song(String fileName, boolean looping) {
+			this.fileName = fileName;
+			this.looping = looping;
+		}
+
+		/**
+		 * Get the song that usually plays after this one, following the flow of the game's screens.
+		 *
+		 * @return the song to load ahead of time while this one plays.
+		 */
+		private Song getNext() {
+			switch (this) {
+				case MENU:
+					return STORY;
+				case STORY:
+					return MAZE;
+				case MAZE:
+					return MATH;
+				case MATH:
+					return MAZE;
+				default:
+					return MENU;
+			}
+		}
 	}
 
-	/** The music that plays on the menu. */
-	private Music menuMusic;
-	/** The music that plays on the story screen. */
-	private Music storyMusic;
-	/** The music that plays on the math screen. */
-	private Music mathMusic;
-	/** The music that plays in the maze. */
-	private Music mazeMusic;
-	/** The music that plays during the credits. */
-	private Music creditsMusic;
+	/** How long, in seconds, a cross-fade between songs takes. */
+	private static final float FADE_TIME = 1f;
+	/** How often, in seconds, the fade and prefetch are updated. */
+	private static final float TICK_TIME = 1 / 30f;
+	/** How long, in seconds, a song may go unplayed before it is unloaded. */
+	private static final float IDLE_TIMEOUT = 30f;
+
+	/** The asset manager the songs are loaded with. */
+	private final AssetManager manager;
+	/** Schedules the fades and unloading. */
+	private final Timer scheduler;
+	/** The state of each song, indexed by {@link Song#ordinal()}. */
+	private final Track[] tracks;
+	/** Updates the fades and the prefetch while either is in progress. */
+	private final Task tick;
+
+	/** The song that is playing or fading in, or {@code null} if no song has been set yet. */
+	private Song current;
+	/** The song that is loaded ahead of time, or {@code null} if no song has been set yet. */
+	private Song prefetch;
+	/** If {@link #prefetch} is still loading. */
+	private boolean prefetching;
 
 	/** The current game volume. */
 	private float volume;
@@ -66,63 +122,82 @@ public class MusicManager {
 	 * @param game the {@link AmazingMazeGame} managing this object.
 	 */
 	public MusicManager(AmazingMazeGame game) {
-		menuMusic = game.assets.manager.get(Assets.MENU_SONG, Music.class);
-		storyMusic = game.assets.manager.get(Assets.STORY_SONG, Music.class);
-		mathMusic = game.assets.manager.get(Assets.MATH_SONG, Music.class);
-		mazeMusic = game.assets.manager.get(Assets.MAZE_SONG, Music.class);
-		creditsMusic = game.assets.manager.get(Assets.CREDITS_SONG, Music.class);
-
-		menuMusic.setLooping(true);
-		// Story music intentionally not looping.
-		mazeMusic.setLooping(true);
-		mathMusic.setLooping(true);
-		creditsMusic.setLooping(true);
+		manager = game.assets.manager;
+		scheduler = new Timer();
+
+		Song[] songs = Song.values();
+		tracks = new Track[songs.length];
+		for (int i = 0; i < songs.length; i++) {
+			tracks[i] = new Track(songs[i]);
+		}
+		tick = new Task() {
+			@Override
+			public void run() {
+				update();
+			}
+		};
 
 		setVolume(game.save.getMusicLevel());
 	}
 
 	/**
 	 * Change the playing music.
+	 * The new song fades in while any other playing song fades out.
 	 *
 	 * @param song the song to change to.
 	 */
 	public void setSong(Song song) {
-		switch (song) {
-			case MENU:
-				storyMusic.stop();
-				mazeMusic.stop();
-				mathMusic.stop();
-				creditsMusic.stop();
-				menuMusic.play();
-				break;
-			case STORY:
-				menuMusic.stop();
-				mazeMusic.stop();
-				mathMusic.stop();
-				creditsMusic.stop();
-				storyMusic.play();
-				break;
-			case MAZE:
-				menuMusic.stop();
-				storyMusic.stop();
-				mathMusic.stop();
-				creditsMusic.stop();
-				mazeMusic.play();
-				break;
-			case MATH:
-				menuMusic.stop();
-				storyMusic.stop();
-				mazeMusic.stop();
-				creditsMusic.stop();
-				mathMusic.play();
-				break;
-			case CREDITS:
-				menuMusic.stop();
-				storyMusic.stop();
-				mazeMusic.stop();
-				mathMusic.stop();
-				creditsMusic.play();
-				break;
+		Track track = tracks[song.ordinal()];
+		track.load();
+		track.music.play();
+		if (song == current) {
+			return;
+		}
+		current = song;
+
+		prefetch = song.getNext();
+		tracks[prefetch.ordinal()].unloadTask.cancel();
+		if (!manager.isLoaded(prefetch.fileName)) {
+			manager.load(prefetch.fileName, Music.class);
+			prefetching = true;
+		}
+
+		for (Track other : tracks) {
+			boolean playing = other.music != null && other.music.isPlaying();
+			if (other.song != current && other.song != prefetch && !playing && manager.isLoaded(other.song.fileName)) {
+				other.scheduleUnload();
+			}
+		}
+		if (!tick.isScheduled()) {
+			scheduler.scheduleTask(tick, 0, TICK_TIME);
+		}
+	}
+
+	/** Advance the cross-fade and the loading of the prefetched song. Stops itself once there is nothing to do. */
+	private void update() {
+		boolean busy = prefetching && !manager.update();
+		prefetching = busy;
+
+		float step = TICK_TIME / FADE_TIME;
+		for (Track track : tracks) {
+			if (track.music == null || !track.music.isPlaying()) {
+				continue;
+			}
+			if (track.song == current) {
+				track.fade = Math.min(1, track.fade + step);
+			} else {
+				track.fade = Math.max(0, track.fade - step);
+			}
+			track.music.setVolume(track.fade * volume);
+			if (track.fade == 0) {
+				track.music.stop();
+				track.scheduleUnload();
+			} else if (track.fade < 1) {
+				busy = true;
+			}
+		}
+		if (!busy) {
+			tick.cancel();
 		}
 	}
 
@@ -134,11 +209,11 @@ public class MusicManager {
 	 */
 	public void setVolume(float value) {
 		volume = MathUtils.clamp(value, 0, 1);
-		menuMusic.setVolume(volume);
-		storyMusic.setVolume(volume);
-		mazeMusic.setVolume(volume);
-		mathMusic.setVolume(volume);
-		creditsMusic.setVolume(volume);
+		for (Track track : tracks) {
+			if (track.music != null) {
+				track.music.setVolume(track.fade * volume);
+			}
+		}
 	}
 
 	/**
@@ -150,4 +225,71 @@ public class MusicManager {
 		return volume;
 	}
 
+	@Override
+	public void dispose() {
+		scheduler.stop();
+		scheduler.clear();
+	}
+
+	/** The state of a song. */
+	private class Track {
+		/** The song. */
+		private final Song song;
+		/** Unloads the song once it has been idle for too long. */
+		private final Task unloadTask;
+		/** The loaded song, or {@code null} if it is not loaded. */
+		private Music music;
+		/** How far the song is faded in, in the range [0, 1]. */
+		private float fade;
+
+		/**
+		 * Constructor for {@link Track}.
+		 *
+		 * @param song the song.
+		 */
+		public Track(Song song) {
+			this.song = song;
+			this.unloadTask = new Task() {
+				@Override
+				public void run() {
+					unload();
+				}
+			};
+		}
+
+		/** Make sure the song is loaded, blocking if it has not finished loading yet. */
+		private void load() {
+			unloadTask.cancel();
+			if (music != null) {
+				return;
+			}
+			if (!manager.isLoaded(song.fileName)) {
+				manager.load(song.fileName, Music.class);
+				manager.finishLoadingAsset(song.fileName);
+			}
+			music = manager.get(song.fileName, Music.class);
+			music.setLooping(song.looping);
+			fade = current == null ? 1 : 0; // The first song does not need to fade in.
+			music.setVolume(fade * volume);
+		}
+
+		/** Unload the song after it has been idle for {@link MusicManager#IDLE_TIMEOUT} seconds. */
+		private void scheduleUnload() {
+			if (!unloadTask.isScheduled()) {
+				scheduler.scheduleTask(unloadTask, IDLE_TIMEOUT);
+			}
+		}
+
+		/** Unload the song, unless it has been needed again since it was scheduled to be unloaded. */
+		private void unload() {
+			if (song == current || song == prefetch || (music != null && music.isPlaying())) {
+				return;
+			}
+			if (manager.isLoaded(song.fileName)) {
+				manager.unload(song.fileName);
+			}
+			music = null;
+			fade = 0;
+		}
+	}
 }
@@ -23,7 +23,6 @@ import java.awt.geom.Point2D;
 
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
@@ -83,6 +82,8 @@ public class Player extends Sprite {
 
 	/** The side length of the player's bounding box. */
 	protected static final int PLAYER_SIZE = 1;
+	/** The fish colours, by the colour numbers used in {@link MazeItems}. */
+	private static final FishColour[] COLOURS = FishColour.values();
 
 	/** How many blue fish have been collected. */
 	protected int blueCollected;
@@ -104,6 +105,9 @@ public class Player extends Sprite {
 	/** If the player is dead. */
 	private boolean dead;
 
+	/** The player's current image. */
+	private TextureRegion frame;
+
 	/**
 	 * Create the player.
 	 *
@@ -114,15 +118,31 @@ public class Player extends Sprite {
 		super(region);
 		this.maze = maze;
 		setOrigin(0, 0);
-		setPosition(0, this.maze.mapHeight / 2);
 		this.direction = new Vector2(0, 0);
-		this.horizontalDir = HorizontalDirection.NONE;
-		this.verticalDir = VerticalDirection.NONE;
-		this.lastHorizontalDir = HorizontalDirection.NONE;
-		this.lastVerticalDir = VerticalDirection.NONE;
-		this.lives = maze.game.save.getLives();
-		this.stateTime = 0;
-		this.dead = false;
+		this.frame = region;
+		reset(maze.game.save.getLives());
+	}
+
+	/**
+	 * Put the player back at the start of the maze with no fish, for a new level.
+	 *
+	 * @param lives how many lives the player starts with.
+	 */
+	protected void reset(int lives) {
+		setPosition(MazeRules.START_X, MazeRules.startY(maze.mapHeight));
+		direction.set(0, 0);
+		horizontalDir = HorizontalDirection.NONE;
+		verticalDir = VerticalDirection.NONE;
+		lastHorizontalDir = HorizontalDirection.NONE;
+		lastVerticalDir = VerticalDirection.NONE;
+		this.lives = lives;
+		stateTime = 0;
+		dead = false;
+		blueCollected = 0;
+		purpleCollected = 0;
+		greenCollected = 0;
+		redCollected = 0;
+		orangeCollected = 0;
 	}
 
 	/**
@@ -134,8 +154,7 @@ public class Player extends Sprite {
 		Point2D.Float newPos = doObjectCollision(new Vector2(direction).scl(deltaTime));
 		setPosition(newPos.x, newPos.y);
 		handleDeath();
-		collectFish();
-		collectCheese();
+		collectItems();
 
 		updateImage(deltaTime);
 
@@ -158,29 +177,28 @@ public class Player extends Sprite {
 		}
 
 		if (verticalDir == VerticalDirection.UP) {
-			setRegion(Assets.mouseUp.getKeyFrame(stateTime));
+			frame = Assets.mouseUp.getKeyFrame(stateTime);
 		} else if (verticalDir == VerticalDirection.DOWN) {
-			setRegion(Assets.mouseDown.getKeyFrame(stateTime));
+			frame = Assets.mouseDown.getKeyFrame(stateTime);
 		} else if (horizontalDir == HorizontalDirection.LEFT) {
-			setRegion(Assets.mouseLeft.getKeyFrame(stateTime));
+			frame = Assets.mouseLeft.getKeyFrame(stateTime);
 		} else {
-			setRegion(Assets.mouseRight.getKeyFrame(stateTime));
+			frame = Assets.mouseRight.getKeyFrame(stateTime);
 		}
+		setRegion(frame);
 	}
 
-	/** Handle the player collecting fish. */
-	private void collectFish() {
+	/** Handle the player collecting fish and cheese, following {@link MazeRules}. */
+	private void collectItems() {
 		Rectangle thisBox = getBoundingRectangle();
-		for (int i = 0; i < maze.fishBoxes.size; i++) {
-			if (thisBox.overlaps(maze.fishBoxes.get(i))) {
-				TiledMapTileLayer layer = (TiledMapTileLayer) maze.map.getLayers().get(MapFactory.ITEM_LAYER);
-				int x = (int) maze.fishBoxes.get(i).x;
-				int y = (int) maze.fishBoxes.get(i).y;
-				FishColour colour = ((FishCell) layer.getCell(x, y)).getColour();
-				layer.setCell(x, y, null);
-				maze.fishBoxes.removeIndex(i);
-
-				switch (colour) {
+		MazeItems items = maze.items;
+		for (int i = items.size() - 1; i >= 0; i--) {
+			if (!items.overlaps(i, thisBox.x, thisBox.y, thisBox.width, thisBox.height)) {
+				continue;
+			}
+			maze.itemCollected(items.getEntity(i));
+			if (items.getKind(i) == MazeItems.FISH) {
+				switch (COLOURS[items.getColour(i)]) {
 					case BLUE:
 						blueCollected++;
 						break;
@@ -197,43 +215,29 @@ public class Player extends Sprite {
 						orangeCollected++;
 						break;
 				}
-				break;
-			}
-		}
-	}
-
-	/** Handle the player collecting cheese. */
-	private void collectCheese() {
-		Rectangle thisBox = getBoundingRectangle();
-		for (int i = 0; i < maze.cheeseBoxes.size; i++) {
-			if (thisBox.overlaps(maze.cheeseBoxes.get(i))) {
-				TiledMapTileLayer layer = (TiledMapTileLayer) maze.map.getLayers().get(MapFactory.ITEM_LAYER);
-				int x = (int) maze.cheeseBoxes.get(i).x;
-				int y = (int) maze.cheeseBoxes.get(i).y;
-				layer.setCell(x, y, null);
-				maze.cheeseBoxes.removeIndex(i);
-				lives++;
+				items.remove(i);
+			} else {
+				items.remove(i);
+				lives = MazeRules.livesAfterCheese(lives);
 				maze.updateLives(-1);
-
-				break;
 			}
 		}
 	}
 
-	/** Handle the player dying. */
+	/** Handle the player dying, following {@link MazeRules}. */
 	private void handleDeath() {
 		Rectangle thisBox = getBoundingRectangle();
 		for (Rectangle wire : maze.wireBoxes) {
 			if (thisBox.overlaps(wire)) {
-				if (lives <= 0) {
+				int column = MapFactory.getSplitColumn(getX());
+				maze.playerDied(column);
+				if (MazeRules.isGameOver(lives)) {
 					dead = true;
 					return;
 				}
-				if (!maze.help) {
-					lives--;
-				}
-				maze.updateLives((int) ((getX() - MapFactory.START_DISTANCE + 1) / MapFactory.WIRE_DISTANCE));
-				setPosition(0, maze.mapHeight / 2);
+				lives = MazeRules.livesAfterDeath(lives, maze.help);
+				maze.updateLives(column);
+				setPosition(MazeRules.START_X, MazeRules.startY(maze.mapHeight));
 				break;
 			}
 		}
@@ -331,6 +335,44 @@ public class Player extends Sprite {
 		}
 	}
 
+	/**
+	 * Record the player's state in a snapshot.
+	 *
+	 * @param snapshot the snapshot to fill in.
+	 */
+	protected void saveTo(LevelSnapshot snapshot) {
+		snapshot.playerX = getX();
+		snapshot.playerY = getY();
+		snapshot.horizontalDir = horizontalDir;
+		snapshot.verticalDir = verticalDir;
+		snapshot.playerLives = lives;
+		snapshot.fishCollected[0] = blueCollected;
+		snapshot.fishCollected[1] = purpleCollected;
+		snapshot.fishCollected[2] = greenCollected;
+		snapshot.fishCollected[3] = redCollected;
+		snapshot.fishCollected[4] = orangeCollected;
+	}
+
+	/**
+	 * Restore the player's state from a snapshot.
+	 * The player faces the same way as when the snapshot was taken, but is not moving.
+	 *
+	 * @param snapshot the snapshot to restore from.
+	 */
+	protected void restoreFrom(LevelSnapshot snapshot) {
+		setPosition(snapshot.playerX, snapshot.playerY);
+		horizontalDir = snapshot.horizontalDir;
+		verticalDir = snapshot.verticalDir;
+		lastHorizontalDir = horizontalDir;
+		lastVerticalDir = verticalDir;
+		lives = snapshot.playerLives;
+		blueCollected = snapshot.fishCollected[0];
+		purpleCollected = snapshot.fishCollected[1];
+		greenCollected = snapshot.fishCollected[2];
+		redCollected = snapshot.fishCollected[3];
+		orangeCollected = snapshot.fishCollected[4];
+	}
+
 	/**
 	 * Getter for {@link #dead}.
 	 *
@@ -340,6 +382,15 @@ public class Player extends Sprite {
 		return dead;
 	}
 
+	/**
+	 * Getter for {@link #frame}.
+	 *
+	 * @return the player's current image.
+	 */
+	protected TextureRegion getFrame() {
+		return frame;
+	}
+
 	/**
 	 * Getter for {@link #lives}.
 	 *
@@ -0,0 +1,49 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.Screen;
+
+/**
+ * A screen that has to do work before it can be shown, like generating a level.
+ * {@link ScreenTransition} does the work on a background thread, so the screen being left keeps running while it is done.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public interface PreparedScreen extends Screen {
+
+	/**
+	 * Check if the screen has work to do before it can be shown again.
+	 * If not, it is shown as it is, like when going back to it from the settings.
+	 *
+	 * @return if {@link #prepare()} has to be called before the screen is shown.
+	 */
+	boolean needsPrepare();
+
+	/**
+	 * Do the work needed before the screen can be shown. Runs on a background thread, while the screen is not showing.
+	 * This must not use OpenGL or scene2d, and must not change anything that the screen being left uses.
+	 */
+	void prepare();
+
+	/** Finish getting ready to be shown, once {@link #prepare()} is done. Runs on the rendering thread, so it should be quick. */
+	void attach();
+}
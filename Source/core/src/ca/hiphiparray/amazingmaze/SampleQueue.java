@@ -0,0 +1,122 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free ring buffer of timestamped samples, passed from one producer thread to one consumer thread.
+ * Each sample is a kind and two coordinates, whose meanings are up to the producer and consumer.
+ * Neither adding nor removing samples allocates.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class SampleQueue {
+
+	/** A sample taken out of the queue. Reuse one instance for every {@link SampleQueue#poll(Sample)}. */
+	public static class Sample {
+		/** What kind of sample this is. The meaning is up to the producer and consumer. */
+		public int kind;
+		/** The x-coordinate of the sample. */
+		public int x;
+		/** The y-coordinate of the sample. */
+		public int y;
+		/** When the sample was taken, in nanoseconds. */
+		public long time;
+	}
+
+	/** Used to turn a sequence number into an index in the arrays. */
+	private final int mask;
+	/** The kinds of the samples. */
+	private final int[] kinds;
+	/** The x-coordinates of the samples. */
+	private final int[] xs;
+	/** The y-coordinates of the samples. */
+	private final int[] ys;
+	/** The times of the samples. */
+	private final long[] times;
+
+	/** The sequence number of the next sample to remove. Only written by the consumer. */
+	private final AtomicLong head;
+	/** The sequence number of the next sample to add. Only written by the producer. */
+	private final AtomicLong tail;
+
+	/**
+	 * Constructor for {@link SampleQueue}.
+	 *
+	 * @param capacity how many samples can be waiting at once. Must be a power of two.
+	 */
+	public SampleQueue(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		mask = capacity - 1;
+		kinds = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		times = new long[capacity];
+		head = new AtomicLong();
+		tail = new AtomicLong();
+	}
+
+	/**
+	 * Add a sample to the queue. Must only be called from the producer thread.
+	 *
+	 * @param kind what kind of sample this is.
+	 * @param x the x-coordinate of the sample.
+	 * @param y the y-coordinate of the sample.
+	 * @param time when the sample was taken, in nanoseconds.
+	 * @return if the sample was added, {@code false} if the queue is full.
+	 */
+	public boolean offer(int kind, int x, int y, long time) {
+		long sequence = tail.get();
+		if (sequence - head.get() > mask) {
+			return false;
+		}
+		int index = (int) (sequence & mask);
+		kinds[index] = kind;
+		xs[index] = x;
+		ys[index] = y;
+		times[index] = time;
+		tail.lazySet(sequence + 1); // Publishes the sample to the consumer.
+		return true;
+	}
+
+	/**
+	 * Remove the oldest sample from the queue. Must only be called from the consumer thread.
+	 *
+	 * @param sample where to put the sample.
+	 * @return if a sample was removed, {@code false} if the queue is empty.
+	 */
+	public boolean poll(Sample sample) {
+		long sequence = head.get();
+		if (sequence == tail.get()) {
+			return false;
+		}
+		int index = (int) (sequence & mask);
+		sample.kind = kinds[index];
+		sample.x = xs[index];
+		sample.y = ys[index];
+		sample.time = times[index];
+		head.lazySet(sequence + 1); // Frees the slot for the producer.
+		return true;
+	}
+}
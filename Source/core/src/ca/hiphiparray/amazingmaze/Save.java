@@ -21,10 +21,14 @@ package ca.hiphiparray.amazingmaze;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Properties;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 /**
  * This class saves the game state.
@@ -37,22 +41,36 @@ import com.badlogic.gdx.Preferences;
  * <br>
  * Time (Vincent): 3 hours
  */
-public class Save {
+public class Save implements Disposable {
 
-	/** The high scores preferences. */
-	private Preferences gameScores;
 	/** The settings preferences. */
 	private Preferences gameSettings;
 
+	/** Writes the save files in the background. */
+	private final SaveWriter writer;
+	/** What the settings file contains, or will once {@link #writer} gets to it. */
+	private Properties writtenSettings;
+
+	/** The directory the desktop backend keeps preferences files in. */
+	private static final String PREFERENCES_DIRECTORY = ".prefs/";
+
 	/** The name of the settings file. */
 	private static final String SETTINGS_FILE = "ca.hiphiparray.amazingmaze.settings";
-	/** The name of the high scores file. */
-	private static final String SCORES_FILE = "ca.hiphiparray.amazingmaze.highscores";
+	/** The name of the high scores journal. */
+	private static final String SCORES_JOURNAL = "ca.hiphiparray.amazingmaze.highscores.journal";
+	/** The name of the high scores file used before the journal, which is imported if there is no journal. */
+	private static final String OLD_SCORES_FILE = "ca.hiphiparray.amazingmaze.highscores";
+
+	/** The name of the snapshot of the level being played. */
+	private static final String SNAPSHOT_FILE = "ca.hiphiparray.amazingmaze.snapshot";
+
+	/** The name of the gameplay analytics log. */
+	private static final String ANALYTICS_LOG = "ca.hiphiparray.amazingmaze.analytics";
 
 	/** The number of high score entries. */
 	private static final int MAX_HIGH_SCORES = 10;
 
-	/** The offset of high scores from names in the save file. */
+	/** The offset of high scores from names in the old high scores file. */
 	private static final int HIGH_SCORES_OFFSET = 100;
 
 	/** For when the user moves up. */
@@ -90,13 +108,30 @@ public class Save {
 	/** How many lives the player currently has left. */
 	private int lives;
 
-	/** The array of high scores. */
-	private HighScore[] highScores;
+	/** Every score, and the best scores. */
+	private final HighScoreTable highScores;
+
+	/** The file with the snapshot of the level being played. */
+	private final FileHandle snapshotFile;
+	/**
+	 * The encoded snapshot that the file contains, or will once {@link #writer} gets to it.
+	 * Empty if there is no snapshot, and {@code null} if the file has not been read or written yet.
+	 */
+	private byte[] snapshot;
+
+	/** Records what happens while playing, to find out where students struggle. */
+	private final GameplayLog gameplayLog;
 
 	/** Create the Save instance. */
 	public Save() {
+		writer = new SaveWriter();
+		writer.recover(Gdx.files.external(PREFERENCES_DIRECTORY + SETTINGS_FILE));
 		gameSettings = Gdx.app.getPreferences(SETTINGS_FILE);
-		gameScores = Gdx.app.getPreferences(SCORES_FILE);
+		writtenSettings = snapshot(gameSettings);
+		highScores = new HighScoreTable(Gdx.files.external(PREFERENCES_DIRECTORY + SCORES_JOURNAL), writer, MAX_HIGH_SCORES);
+		snapshotFile = Gdx.files.external(PREFERENCES_DIRECTORY + SNAPSHOT_FILE);
+		writer.recover(snapshotFile);
+		gameplayLog = new GameplayLog(Gdx.files.external(PREFERENCES_DIRECTORY + ANALYTICS_LOG), writer);
 
 		resetSave();
 		loadSettings();
@@ -114,45 +149,64 @@ public class Save {
 		writeSettings();
 	}
 
-	/** Load scores from file. */
+	/** Load scores from the journal, or from the old high scores file if there is no journal yet. */
 	public void loadScores() {
-		resetScores();
-		Map<String, ?> scores = gameScores.get();
+		if (!highScores.load()) {
+			importScores();
+		}
+	}
 
+	/** Add the scores from the old high scores file, and create the journal. */
+	private void importScores() {
+		Map<String, ?> scores = Gdx.app.getPreferences(OLD_SCORES_FILE).get();
 		for (int i = 0; i < MAX_HIGH_SCORES; i++) {
 			Object nameObj = scores.get(Integer.toString(i));
 			Object scoreObj = scores.get(Integer.toString(i + HIGH_SCORES_OFFSET));
-			if (nameObj == null || scoreObj == null) {
-				System.out.println("Nonexistant or corrupt high scores file.");
-				resetScores();
-				break;
-			} else {
+			if (nameObj != null && scoreObj != null) {
 				try {
-					String name = (String) nameObj;
 					int score = Integer.parseInt((String) scoreObj);
-					addHighScore(new HighScore(name, score));
-				} catch (Exception e) {
-					e.printStackTrace();
-					System.out.println("Nonexistant or corrupt high scores file.");
-					resetScores();
-					break;
+					if (score >= 0) {
+						addHighScore(new HighScore((String) nameObj, score));
+					}
+				} catch (NumberFormatException e) {
+					Gdx.app.error("Save", "Skipping corrupt high score " + i, e);
 				}
 			}
 		}
-		writeScores();
+		highScores.compact();
 	}
 
-	/** Write the high scores file. */
-	public void writeScores() {
-		gameScores.clear();
-		for (int i = 0; i < MAX_HIGH_SCORES; i++) {
-			gameScores.putString(Integer.toString(i), highScores[i].getName());
-			gameScores.putInteger(Integer.toString(i + HIGH_SCORES_OFFSET), highScores[i].getScore());
+	/**
+	 * Copy the contents of preferences.
+	 *
+	 * @param preferences the preferences to copy.
+	 * @return the contents, as strings.
+	 */
+	private Properties snapshot(Preferences preferences) {
+		Properties contents = new Properties();
+		for (Map.Entry<String, ?> entry : preferences.get().entrySet()) {
+			contents.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		return contents;
+	}
+
+	/**
+	 * Queue preferences to be written to their file, unless the file already has the same contents.
+	 *
+	 * @param preferences the preferences to write.
+	 * @param fileName the name of the preferences.
+	 * @param written what the file already contains.
+	 * @return what the file will contain.
+	 */
+	private Properties persist(Preferences preferences, String fileName, Properties written) {
+		Properties contents = snapshot(preferences);
+		if (!contents.equals(written)) {
+			writer.write(Gdx.files.external(PREFERENCES_DIRECTORY + fileName), contents);
 		}
-		gameScores.flush();
+		return contents;
 	}
 
-	/** Write the settings file. */
+	/** Write the settings file. The file is written in the background, and only if it has changed. */
 	public void writeSettings() {
 		gameSettings.clear();
 		gameSettings.putInteger(UP_SETTING, getUpButton());
@@ -161,14 +215,68 @@ public class Save {
 		gameSettings.putInteger(RIGHT_SETTING, getRightButton());
 		gameSettings.putInteger(PAUSE_SETTING, getPauseButton());
 		gameSettings.putFloat(MUSIC_SETTING, getMusicLevel());
-		gameSettings.flush();
+		writtenSettings = persist(gameSettings, SETTINGS_FILE, writtenSettings);
+	}
+
+	/**
+	 * Save a snapshot of the level being played, replacing any earlier one.
+	 * The file is written in the background, and only if the snapshot has changed.
+	 *
+	 * @param levelSnapshot the snapshot.
+	 */
+	public void writeSnapshot(LevelSnapshot levelSnapshot) {
+		byte[] bytes = levelSnapshot.toBytes();
+		if (snapshot == null || !Arrays.equals(bytes, snapshot)) {
+			snapshot = bytes;
+			writer.write(snapshotFile, bytes);
+		}
+	}
+
+	/** Delete the snapshot of the level being played. */
+	public void clearSnapshot() {
+		if (snapshot == null || snapshot.length > 0) {
+			snapshot = new byte[0];
+			writer.write(snapshotFile, snapshot);
+		}
+	}
+
+	/**
+	 * Check if there is a snapshot of a level to resume.
+	 *
+	 * @return if there is a snapshot. It may still turn out to be invalid when it is read.
+	 */
+	public boolean hasSnapshot() {
+		if (snapshot != null) {
+			return snapshot.length > 0;
+		}
+		return snapshotFile.exists() && snapshotFile.length() > 0;
+	}
+
+	/**
+	 * Read the snapshot of the level being played.
+	 *
+	 * @return the snapshot, or {@code null} if there is no valid snapshot.
+	 */
+	public LevelSnapshot readSnapshot() {
+		if (snapshot == null) {
+			if (!snapshotFile.exists()) {
+				return null;
+			}
+			try {
+				snapshot = snapshotFile.readBytes();
+			} catch (GdxRuntimeException e) {
+				Gdx.app.error("Save", "Could not read " + snapshotFile.path(), e);
+				return null;
+			}
+		}
+		return LevelSnapshot.fromBytes(snapshot);
 	}
 
 	/** Reset the save state. */
 	public void resetSave() {
 		this.level = 1;
 		this.score = 0;
-		this.lives = 3;
+		this.lives = MazeRules.START_LIVES;
 		this.startScore = 0;
 	}
 
@@ -183,12 +291,9 @@ public class Save {
 		this.musicLevel = 1f;
 	}
 
-	/** Reset the high scores to 10 default values. */
+	/** Remove every high score. */
 	public void resetScores() {
-		highScores = new HighScore[MAX_HIGH_SCORES];
-		for (int i = 0; i < highScores.length; i++) {
-			highScores[i] = new HighScore();
-		}
+		highScores.reset();
 	}
 
 	/** Reset the settings and the save state. */
@@ -330,34 +435,30 @@ public class Save {
 	}
 
 	/**
-	 * Getter for {@link #highScores}.
+	 * Get the best scores.
 	 *
-	 * @return the high scores array.
+	 * @return the best scores, from best to worst, padded with empty entries. Must not be changed.
 	 */
 	public HighScore[] getHighScores() {
+		return highScores.getTopScores();
+	}
+
+	/**
+	 * Getter for {@link #highScores}.
+	 *
+	 * @return every score, indexed by player name.
+	 */
+	public HighScoreTable getHighScoreTable() {
 		return highScores;
 	}
 
 	/**
-	 * Add the given high score to its appropriate position in {@link #highScores}.
-	 * The high score is not added if it is not high enough to be in the top 10.
-	 * As part of processing, this method will sort {@link #highScores} into descending order.
+	 * Add the given score to the high scores, and save it.
 	 *
 	 * @param score the high score to add.
 	 */
 	public void addHighScore(HighScore score) {
-		HighScore[] newScores = new HighScore[highScores.length + 1];
-
-		int i;
-		for (i = 0; i < highScores.length; i++) {
-			newScores[i] = highScores[i];
-		}
-		newScores[i] = score;
-
-		Arrays.sort(newScores);
-		for (i = 0; i < highScores.length; i++) {
-			highScores[i] = newScores[newScores.length - 1 - i];
-		}
+		highScores.add(score);
 	}
 
 	/**
@@ -422,4 +523,20 @@ public class Save {
 	public void setStartScore(int startScore) {
 		this.startScore = startScore;
 	}
+
+	/**
+	 * Get the gameplay analytics log.
+	 *
+	 * @return the log.
+	 */
+	public GameplayLog getGameplayLog() {
+		return gameplayLog;
+	}
+
+	/** Finish writing the preferences files. */
+	@Override
+	public void dispose() {
+		gameplayLog.flush();
+		writer.dispose();
+	}
 }
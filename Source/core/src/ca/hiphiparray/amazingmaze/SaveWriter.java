@@ -0,0 +1,281 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Writes save files on a background thread, so saving never blocks rendering.
+ * <br>
+ * Writes happen in the order they were queued. Replacing a file makes any earlier writes to it that are still queued pointless,
+ * so they are dropped. Replacements are written to a temporary file first. The old file is then renamed to a backup,
+ * the temporary file is renamed into its place, and only then is the backup deleted.
+ * If a crash happens part way through, {@link #recover(FileHandle)} puts back whichever complete file is left.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class SaveWriter implements Disposable {
+
+	/** The writes waiting to happen, oldest first. Guarded by {@link #lock}. */
+	private final Array<Write> pending;
+	/** Guards the state shared with the writer thread. */
+	private final Object lock;
+	/** Held while a file is being changed, so it can not be recovered at the same time. */
+	private final Object files;
+	/** If the writer thread should keep waiting for writes. Guarded by {@link #lock}. */
+	private boolean running;
+	/** The thread that writes the files. */
+	private final Thread thread;
+
+	/** Constructor for {@link SaveWriter}. Starts the writer thread. */
+	public SaveWriter() {
+		pending = new Array<Write>();
+		lock = new Object();
+		files = new Object();
+		running = true;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeQueued();
+			}
+		}, "Save writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queue a file to be replaced with preferences, in the XML format used by {@link com.badlogic.gdx.Preferences}.
+	 *
+	 * @param file the file to write.
+	 * @param contents what to write. Must not be changed after being passed in.
+	 */
+	public void write(FileHandle file, Properties contents) {
+		queue(new Write(file, contents, null, false));
+	}
+
+	/**
+	 * Queue a file to be replaced with bytes.
+	 *
+	 * @param file the file to write.
+	 * @param contents what to write. Must not be changed after being passed in.
+	 */
+	public void write(FileHandle file, byte[] contents) {
+		queue(new Write(file, null, contents, false));
+	}
+
+	/**
+	 * Queue bytes to be added to the end of a file.
+	 * Appending is not atomic, so a crash can leave part of the bytes at the end of the file.
+	 *
+	 * @param file the file to add to.
+	 * @param bytes what to add. Must not be changed after being passed in.
+	 */
+	public void append(FileHandle file, byte[] bytes) {
+		queue(new Write(file, null, bytes, true));
+	}
+
+	/**
+	 * Queue a write.
+	 *
+	 * @param write the write.
+	 */
+	private void queue(Write write) {
+		synchronized (lock) {
+			if (!write.append) {
+				for (int i = pending.size - 1; i >= 0; i--) {
+					if (pending.get(i).file.equals(write.file)) {
+						pending.removeIndex(i);
+					}
+				}
+			}
+			pending.add(write);
+			lock.notifyAll();
+		}
+	}
+
+	/** Do queued writes until the writer is disposed and nothing is left. Runs on the writer thread. */
+	private void writeQueued() {
+		while (true) {
+			Write write;
+			synchronized (lock) {
+				while (pending.size == 0 && running) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (pending.size == 0) {
+					return;
+				}
+				write = pending.removeIndex(0);
+			}
+			try {
+				synchronized (files) {
+					if (write.append) {
+						write.file.writeBytes(write.bytes, true);
+					} else {
+						replace(write);
+					}
+				}
+			} catch (IOException e) {
+				Gdx.app.error("SaveWriter", "Could not write " + write.file.path(), e);
+			} catch (GdxRuntimeException e) {
+				Gdx.app.error("SaveWriter", "Could not write " + write.file.path(), e);
+			}
+		}
+	}
+
+	/**
+	 * Write the contents to a temporary file, then move it into the place of the file.
+	 * The old file is kept as a backup until the new one is in place. Runs on the writer thread.
+	 *
+	 * @param write the write to do.
+	 * @throws IOException if the file could not be written.
+	 */
+	private void replace(Write write) throws IOException {
+		FileHandle temp = temporary(write.file);
+		OutputStream out = null;
+		try {
+			out = temp.write(false);
+			if (write.properties != null) {
+				write.properties.storeToXML(out, null);
+			} else {
+				out.write(write.bytes);
+			}
+			out.close();
+			out = null;
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+
+		File target = write.file.file();
+		File backup = backup(write.file).file();
+		backup.delete();
+		if (target.exists() && !target.renameTo(backup)) { // Some platforms will not rename over an existing file.
+			throw new IOException("Could not back up " + write.file.path());
+		}
+		if (!temp.file().renameTo(target)) {
+			backup.renameTo(target);
+			throw new IOException("Could not replace " + write.file.path());
+		}
+		backup.delete();
+	}
+
+	/**
+	 * Undo the damage of a replacement that was cut off by a crash. Call this before reading a file that is written with this writer.
+	 * <br>
+	 * The temporary file is only complete once the backup exists, so it is only used in that case.
+	 * Otherwise, the file is left as it is and anything left over is deleted.
+	 *
+	 * @param file the file to recover.
+	 */
+	public void recover(FileHandle file) {
+		synchronized (files) {
+			File target = file.file();
+			File temp = temporary(file).file();
+			File backup = backup(file).file();
+			if (!target.exists() && backup.exists()) {
+				if (temp.exists() && temp.renameTo(target)) {
+					Gdx.app.log("SaveWriter", "Finished replacing " + file.path());
+				} else if (backup.renameTo(target)) {
+					Gdx.app.log("SaveWriter", "Restored " + file.path() + " from its backup");
+				} else {
+					Gdx.app.error("SaveWriter", "Could not recover " + file.path());
+					return;
+				}
+			}
+			temp.delete();
+			backup.delete();
+		}
+	}
+
+	/**
+	 * Get the file new contents are written to before they replace a file.
+	 *
+	 * @param file the file being replaced.
+	 * @return the temporary file.
+	 */
+	private static FileHandle temporary(FileHandle file) {
+		return file.sibling(file.name() + ".tmp");
+	}
+
+	/**
+	 * Get the file the old contents are kept in while a file is being replaced.
+	 *
+	 * @param file the file being replaced.
+	 * @return the backup file.
+	 */
+	private static FileHandle backup(FileHandle file) {
+		return file.sibling(file.name() + ".bak");
+	}
+
+	/** Does everything that has been queued, then stops the writer thread. */
+	@Override
+	public void dispose() {
+		synchronized (lock) {
+			running = false;
+			lock.notifyAll();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** A queued write. */
+	private static class Write {
+		/** The file to write. */
+		private final FileHandle file;
+		/** The preferences to replace the file with, or {@code null} if {@link #bytes} should be written. */
+		private final Properties properties;
+		/** The bytes to write, if {@link #properties} is {@code null}. */
+		private final byte[] bytes;
+		/** If {@link #bytes} should be added to the end of the file instead of replacing it. */
+		private final boolean append;
+
+		/**
+		 * Constructor for {@link Write}.
+		 *
+		 * @param file the file to write.
+		 * @param properties the preferences to replace the file with, or {@code null} if the bytes should be written.
+		 * @param bytes the bytes to write.
+		 * @param append if the bytes should be added to the end of the file instead of replacing it.
+		 */
+		private Write(FileHandle file, Properties properties, byte[] bytes, boolean append) {
+			this.file = file;
+			this.properties = properties;
+			this.bytes = bytes;
+			this.append = append;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Moves the game from one screen to another without holding up a frame.
+ * <br>
+ * If the next screen is a {@link PreparedScreen} that needs preparing, it is prepared on a background thread. Until it is ready, the screen being left
+ * keeps being rendered, without input, and fades out if the preparation takes a while. The next screen is then attached and shown,
+ * fading in. Any other screen is shown straight away.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class ScreenTransition implements Disposable {
+
+	/** How long fading the screen out or in takes, in seconds. */
+	private static final float FADE_TIME = 0.25f;
+	/** How dark the screen gets while waiting for the next one. */
+	private static final float MAX_FADE = 0.75f;
+
+	/** The {@link AmazingMazeGame} instance whose screens are changed. */
+	private final AmazingMazeGame game;
+
+	/** Prepares screens in the background. */
+	private final ExecutorService worker;
+
+	/** A single white pixel, stretched over the screen to fade it. */
+	private final Texture pixel;
+	/** The projection used to draw over the whole screen. */
+	private final Matrix4 projection;
+	/** The colour of the fade. */
+	private final Color colour;
+
+	/** The screen being moved to, or {@code null} if no transition is running. */
+	private PreparedScreen target;
+	/** The preparation of {@link #target}. */
+	private Future<?> preparing;
+	/** The input processor of the screen being left, given back to it if the next screen can not be prepared. */
+	private InputProcessor input;
+	/** How dark the screen is, from 0 to {@link #MAX_FADE}. */
+	private float fade;
+
+	/**
+	 * Constructor for {@link ScreenTransition}.
+	 *
+	 * @param game the {@link AmazingMazeGame} instance whose screens are changed.
+	 */
+	public ScreenTransition(AmazingMazeGame game) {
+		this.game = game;
+		worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "Screen preparation");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		Pixmap white = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+		white.setColor(Color.WHITE);
+		white.fill();
+		pixel = new Texture(white);
+		white.dispose();
+		projection = new Matrix4();
+		colour = new Color(0, 0, 0, 0);
+	}
+
+	/**
+	 * Move to another screen. Ignored if a transition is already running, so a second click can not start another.
+	 *
+	 * @param screen the screen to show.
+	 */
+	public void start(Screen screen) {
+		if (target != null) {
+			return;
+		}
+		if (!(screen instanceof PreparedScreen) || !((PreparedScreen) screen).needsPrepare()) {
+			game.setScreen(screen);
+			return;
+		}
+
+		target = (PreparedScreen) screen;
+		input = Gdx.input.getInputProcessor();
+		Gdx.input.setInputProcessor(null);
+		Gdx.graphics.setContinuousRendering(true);
+		final PreparedScreen preparedScreen = target;
+		preparing = worker.submit(new Runnable() {
+			@Override
+			public void run() {
+				preparedScreen.prepare();
+			}
+		});
+	}
+
+	/**
+	 * Check if a screen is being prepared. The screen being moved to must not be changed until it is shown.
+	 *
+	 * @return if a transition is waiting for a screen to be prepared.
+	 */
+	public boolean isPreparing() {
+		return target != null;
+	}
+
+	/**
+	 * Check if the screen is being faded, so it has to be rendered continuously.
+	 *
+	 * @return if a transition is running or the screen is still fading in.
+	 */
+	public boolean isRunning() {
+		return target != null || fade > 0;
+	}
+
+	/**
+	 * Advance the transition, and draw the fade over the current screen. Call this after the screen has been rendered.
+	 *
+	 * @param delta the time passed since the last frame.
+	 */
+	public void render(float delta) {
+		if (target != null) {
+			if (preparing.isDone()) {
+				finish();
+			} else {
+				fade = Math.min(MAX_FADE, fade + delta * MAX_FADE / FADE_TIME);
+			}
+		} else if (fade > 0) {
+			fade = Math.max(0, fade - delta * MAX_FADE / FADE_TIME);
+			if (fade == 0) {
+				game.updateContinuousRendering();
+			}
+		}
+
+		if (fade > 0) {
+			projection.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+			game.batch.setProjectionMatrix(projection);
+			colour.a = fade;
+			game.batch.setColor(colour);
+			game.batch.begin();
+			game.batch.draw(pixel, 0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+			game.batch.end();
+			game.batch.setColor(Color.WHITE);
+		}
+	}
+
+	/** Attach and show the prepared screen, or go back to the screen being left if it could not be prepared. */
+	private void finish() {
+		PreparedScreen screen = target;
+		target = null;
+		try {
+			preparing.get();
+			screen.attach();
+		} catch (ExecutionException e) {
+			Gdx.app.error("ScreenTransition", "Could not prepare " + screen.getClass().getSimpleName(), e.getCause());
+			Gdx.input.setInputProcessor(input);
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Gdx.input.setInputProcessor(input);
+			return;
+		} finally {
+			preparing = null;
+			input = null;
+		}
+		game.setScreen(screen);
+	}
+
+	@Override
+	public void dispose() {
+		worker.shutdown();
+		pixel.dispose();
+	}
+}
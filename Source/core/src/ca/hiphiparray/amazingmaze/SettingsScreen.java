@@ -297,8 +297,7 @@ public class SettingsScreen implements Screen, InputProcessor {
 		settings.draw();
 
 		if (backButton.isPressed()) {
-			game.save.writeScores();
-			game.setScreen(sourceScreen);
+			game.transition.start(sourceScreen);
 			setSourceScreen(game.menuScreen);
 		}
 	}
@@ -316,6 +315,7 @@ public class SettingsScreen implements Screen, InputProcessor {
 	@Override
 	public void resize(int width, int height) {
 		settings.getViewport().update(width, height, true);
+		game.assets.refreshFonts(settings);
 		layoutSettings(width, height);
 	}
 
@@ -0,0 +1,302 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Streams the level being played to a teacher's spectator viewer, so the teacher can watch every student at once.
+ * <br>
+ * Whenever a connection is made, and whenever a level starts, a keyframe with the encoded {@link LevelSnapshot} is sent.
+ * It has the seed and size the viewer needs to generate the same map. After that, only small delta frames are sent,
+ * when something changes: the player's position in sixteenths of a tile, gate markings, item pickups, and lives.
+ * <br>
+ * Frames are encoded into a preallocated buffer and sent once per frame without blocking, so streaming does not allocate.
+ * If the viewer can not be reached, or falls so far behind that the buffer fills up, the connection is dropped and
+ * made again a few seconds later, starting with a fresh keyframe.
+ * <br>
+ * Every frame starts with its type as a byte, and numbers are big-endian:
+ * <ul>
+ * <li>{@link #KEYFRAME}: the session ID as a long, then the length of the snapshot as an int, then the snapshot.</li>
+ * <li>{@link #POSITION}: the player's x and y in sixteenths of a tile, as shorts.</li>
+ * <li>{@link #GATE}: the index of the gate as a short, then its new electric state as a byte.</li>
+ * <li>{@link #ITEM}: the x and y of the item that was picked up, as shorts.</li>
+ * <li>{@link #LIVES}: the number of lives, as a byte.</li>
+ * <li>{@link #LEVEL_OVER}: {@link #QUIT}, {@link #FINISHED} or {@link #DIED}, as a byte.</li>
+ * </ul>
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class SpectatorStream implements Disposable {
+
+	/** The port the spectator viewer listens on by default. */
+	public static final int DEFAULT_PORT = 47802;
+
+	/** The start of a level. */
+	public static final byte KEYFRAME = 1;
+	/** The player moved. */
+	public static final byte POSITION = 2;
+	/** A gate was marked. */
+	public static final byte GATE = 3;
+	/** An item was picked up. */
+	public static final byte ITEM = 4;
+	/** The number of lives changed. */
+	public static final byte LIVES = 5;
+	/** The level is over. */
+	public static final byte LEVEL_OVER = 6;
+
+	/** The player went back to the main menu. */
+	public static final byte QUIT = 0;
+	/** The player finished the level. */
+	public static final byte FINISHED = 1;
+	/** The player ran out of lives. */
+	public static final byte DIED = 2;
+
+	/** How many sixteenths of a tile the position is sent in. */
+	public static final int POSITION_SCALE = 16;
+
+	/** The size of the send buffer, enough for several seconds of frames if the network stalls. */
+	private static final int BUFFER_SIZE = 16 * 1024;
+	/** How long to wait before connecting again, in seconds. */
+	private static final float RECONNECT_DELAY = 5f;
+
+	/** The address of the viewer. */
+	private final InetSocketAddress address;
+	/** Identifies this game to the viewer, so a new connection replaces the old one. */
+	private final long session;
+	/** The frames waiting to be sent. */
+	private final ByteBuffer buffer;
+
+	/** The connection to the viewer, or {@code null} if there is none. */
+	private SocketChannel channel;
+	/** If {@link #channel} has finished connecting. */
+	private boolean connected;
+	/** How long until connecting again, in seconds. */
+	private float reconnectTime;
+	/** If a keyframe has to be sent before any other frames. */
+	private boolean needsKeyframe;
+	/** If a level is being played. */
+	private boolean playing;
+
+	/** The last x-coordinate that was sent, in sixteenths of a tile. */
+	private int lastX;
+	/** The last y-coordinate that was sent, in sixteenths of a tile. */
+	private int lastY;
+
+	/**
+	 * Constructor for {@link SpectatorStream}. Connecting starts with the first call to {@link #update(float)}.
+	 *
+	 * @param host the host name or address of the viewer.
+	 * @param port the port of the viewer.
+	 */
+	public SpectatorStream(String host, int port) {
+		address = new InetSocketAddress(host, port);
+		session = MathUtils.random.nextLong();
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	/**
+	 * Send what has been encoded so far, and connect if needed. Call this once per frame.
+	 *
+	 * @param delta the time since the last call, in seconds.
+	 */
+	public void update(float delta) {
+		try {
+			if (channel == null) {
+				reconnectTime -= delta;
+				if (reconnectTime > 0) {
+					return;
+				}
+				channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				connected = channel.connect(address);
+			} else if (!connected) {
+				connected = channel.finishConnect();
+			}
+			if (!connected) {
+				return;
+			}
+
+			buffer.flip();
+			channel.write(buffer);
+			buffer.compact();
+		} catch (IOException e) {
+			Gdx.app.debug("SpectatorStream", "Lost the connection to " + address, e);
+			disconnect();
+		}
+	}
+
+	/**
+	 * Check if a keyframe has to be given with {@link #keyframe(byte[])}.
+	 *
+	 * @return if a level is being played and the viewer does not know about it yet.
+	 */
+	public boolean needsKeyframe() {
+		return playing && connected && needsKeyframe;
+	}
+
+	/** Start streaming a new level. Its keyframe is asked for with {@link #needsKeyframe()}. */
+	public void beginLevel() {
+		playing = true;
+		needsKeyframe = true;
+	}
+
+	/**
+	 * Send a keyframe.
+	 *
+	 * @param snapshot the encoded snapshot of the level.
+	 */
+	public void keyframe(byte[] snapshot) {
+		if (!reserve(1 + 8 + 4 + snapshot.length)) {
+			return;
+		}
+		buffer.put(KEYFRAME);
+		buffer.putLong(session);
+		buffer.putInt(snapshot.length);
+		buffer.put(snapshot);
+		needsKeyframe = false;
+		lastX = Integer.MIN_VALUE;
+		lastY = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Send the player's position, if it has changed by at least a sixteenth of a tile.
+	 *
+	 * @param x the player's x-coordinate, in tiles.
+	 * @param y the player's y-coordinate, in tiles.
+	 */
+	public void position(float x, float y) {
+		int quantizedX = MathUtils.round(x * POSITION_SCALE);
+		int quantizedY = MathUtils.round(y * POSITION_SCALE);
+		if ((quantizedX != lastX || quantizedY != lastY) && canSend() && reserve(5)) {
+			buffer.put(POSITION);
+			buffer.putShort((short) quantizedX);
+			buffer.putShort((short) quantizedY);
+			lastX = quantizedX;
+			lastY = quantizedY;
+		}
+	}
+
+	/**
+	 * Send a gate marking.
+	 *
+	 * @param index the index of the gate in {@link MapFactory#getGateLocations()}.
+	 * @param state the electric state it was marked with.
+	 */
+	public void gateMarked(int index, int state) {
+		if (canSend() && reserve(4)) {
+			buffer.put(GATE);
+			buffer.putShort((short) index);
+			buffer.put((byte) state);
+		}
+	}
+
+	/**
+	 * Send an item pickup.
+	 *
+	 * @param x the x-coordinate of the item.
+	 * @param y the y-coordinate of the item.
+	 */
+	public void itemCollected(int x, int y) {
+		if (canSend() && reserve(5)) {
+			buffer.put(ITEM);
+			buffer.putShort((short) x);
+			buffer.putShort((short) y);
+		}
+	}
+
+	/**
+	 * Send the number of lives.
+	 *
+	 * @param lives the number of lives the player has.
+	 */
+	public void lives(int lives) {
+		if (canSend() && reserve(2)) {
+			buffer.put(LIVES);
+			buffer.put((byte) Math.min(lives, Byte.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Send the end of the level.
+	 *
+	 * @param reason {@link #QUIT}, {@link #FINISHED} or {@link #DIED}.
+	 */
+	public void levelOver(byte reason) {
+		if (canSend() && reserve(2)) {
+			buffer.put(LEVEL_OVER);
+			buffer.put(reason);
+		}
+		playing = false;
+	}
+
+	/**
+	 * Check if delta frames can be sent. They are pointless until the viewer has the keyframe they apply to.
+	 *
+	 * @return if delta frames can be sent.
+	 */
+	private boolean canSend() {
+		return playing && connected && !needsKeyframe;
+	}
+
+	/**
+	 * Make sure there is room for a frame. If there is not, the viewer is not keeping up, so the connection is dropped.
+	 *
+	 * @param size the size of the frame, in bytes.
+	 * @return if there is room.
+	 */
+	private boolean reserve(int size) {
+		if (buffer.remaining() >= size) {
+			return true;
+		}
+		Gdx.app.error("SpectatorStream", "The viewer at " + address + " is not keeping up, reconnecting");
+		disconnect();
+		return false;
+	}
+
+	/** Drop the connection, and try again after {@link #RECONNECT_DELAY}. */
+	private void disconnect() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+			}
+		}
+		channel = null;
+		connected = false;
+		reconnectTime = RECONNECT_DELAY;
+		needsKeyframe = true;
+		buffer.clear();
+	}
+
+	@Override
+	public void dispose() {
+		disconnect();
+	}
+}
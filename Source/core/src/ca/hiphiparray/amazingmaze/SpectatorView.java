@@ -0,0 +1,269 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * What a spectator knows about one student's game, built from the frames sent by their {@link SpectatorStream}.
+ * <br>
+ * The map itself is not sent. It can be generated again with {@link MapFactory} from {@link #getSeed()}, {@link #getMapWidth()} and {@link #getMapHeight()}.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class SpectatorView {
+
+	/** The session ID of the game, or 0 before the first keyframe. */
+	private long session;
+	/** The level being played. */
+	private int level;
+	/** The seed the map was generated with. */
+	private long seed;
+	/** The width of the map. */
+	private int mapWidth;
+	/** The height of the map. */
+	private int mapHeight;
+	/** The player's x-coordinate, in tiles. */
+	private float x;
+	/** The player's y-coordinate, in tiles. */
+	private float y;
+	/** How many lives the player has. */
+	private int lives;
+	/** The electric state each gate is marked with. */
+	private final IntArray gateStates;
+	/** The x and y coordinates of the items that have been picked up. */
+	private final IntArray collected;
+	/** How the level ended, or -1 if it is still being played. */
+	private int over;
+
+	/** Constructor for {@link SpectatorView}. */
+	public SpectatorView() {
+		gateStates = new IntArray();
+		collected = new IntArray();
+		over = -1;
+	}
+
+	/**
+	 * Apply every complete frame at the start of a buffer. Incomplete frames are left in the buffer.
+	 *
+	 * @param frames the frames, between the buffer's position and limit. The position is moved past the frames that were applied.
+	 * @return if every frame was valid. If not, the stream can not be followed any further.
+	 */
+	public boolean apply(ByteBuffer frames) {
+		while (frames.hasRemaining()) {
+			int start = frames.position();
+			byte type = frames.get(start);
+			int size = getFrameSize(frames, type);
+			if (size < 0) {
+				return false;
+			} else if (size == 0 || frames.remaining() < size) {
+				break;
+			}
+			frames.get(); // The type.
+			switch (type) {
+				case SpectatorStream.KEYFRAME:
+					long newSession = frames.getLong();
+					byte[] bytes = new byte[frames.getInt()];
+					frames.get(bytes);
+					LevelSnapshot snapshot = LevelSnapshot.fromBytes(bytes);
+					if (snapshot == null) {
+						return false;
+					}
+					keyframe(newSession, snapshot);
+					break;
+				case SpectatorStream.POSITION:
+					x = frames.getShort() / (float) SpectatorStream.POSITION_SCALE;
+					y = frames.getShort() / (float) SpectatorStream.POSITION_SCALE;
+					break;
+				case SpectatorStream.GATE:
+					int gate = frames.getShort();
+					int state = frames.get();
+					if (gate >= 0 && gate < gateStates.size) {
+						gateStates.set(gate, state);
+					}
+					break;
+				case SpectatorStream.ITEM:
+					collected.add(frames.getShort());
+					collected.add(frames.getShort());
+					break;
+				case SpectatorStream.LIVES:
+					lives = frames.get();
+					break;
+				case SpectatorStream.LEVEL_OVER:
+					over = frames.get();
+					break;
+				default:
+					break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the size of the frame at the buffer's position.
+	 *
+	 * @param frames the buffer.
+	 * @param type the type of the frame.
+	 * @return the size of the frame in bytes, 0 if not enough of it has arrived to tell, or -1 if the type is unknown.
+	 */
+	private static int getFrameSize(ByteBuffer frames, byte type) {
+		switch (type) {
+			case SpectatorStream.KEYFRAME:
+				if (frames.remaining() < 13) {
+					return 0;
+				}
+				int length = frames.getInt(frames.position() + 9);
+				return length < 0 ? -1 : 13 + length;
+			case SpectatorStream.POSITION:
+			case SpectatorStream.ITEM:
+				return 5;
+			case SpectatorStream.GATE:
+				return 4;
+			case SpectatorStream.LIVES:
+			case SpectatorStream.LEVEL_OVER:
+				return 2;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Start following a new level.
+	 *
+	 * @param session the session ID of the game.
+	 * @param snapshot the state of the level.
+	 */
+	private void keyframe(long session, LevelSnapshot snapshot) {
+		this.session = session;
+		level = snapshot.level;
+		seed = snapshot.seed;
+		mapWidth = snapshot.mapWidth;
+		mapHeight = snapshot.mapHeight;
+		x = snapshot.playerX;
+		y = snapshot.playerY;
+		lives = snapshot.playerLives;
+		gateStates.clear();
+		gateStates.addAll(snapshot.gateStates);
+		collected.clear();
+		over = -1;
+	}
+
+	/**
+	 * Get the session ID of the game, which stays the same when it reconnects.
+	 *
+	 * @return the session ID, or 0 if no keyframe has arrived yet.
+	 */
+	public long getSession() {
+		return session;
+	}
+
+	/**
+	 * Get the level being played.
+	 *
+	 * @return the level.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Get the seed the map was generated with.
+	 *
+	 * @return the seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Get the width of the map.
+	 *
+	 * @return the width, in tiles.
+	 */
+	public int getMapWidth() {
+		return mapWidth;
+	}
+
+	/**
+	 * Get the height of the map.
+	 *
+	 * @return the height, in tiles.
+	 */
+	public int getMapHeight() {
+		return mapHeight;
+	}
+
+	/**
+	 * Get the player's x-coordinate.
+	 *
+	 * @return the x-coordinate, in tiles.
+	 */
+	public float getX() {
+		return x;
+	}
+
+	/**
+	 * Get the player's y-coordinate.
+	 *
+	 * @return the y-coordinate, in tiles.
+	 */
+	public float getY() {
+		return y;
+	}
+
+	/**
+	 * Get how many lives the player has.
+	 *
+	 * @return the number of lives.
+	 */
+	public int getLives() {
+		return lives;
+	}
+
+	/**
+	 * Get the electric states the gates are marked with, in the order of {@link MapFactory#getGateLocations()}.
+	 *
+	 * @return the states, which should not be changed.
+	 */
+	public IntArray getGateStates() {
+		return gateStates;
+	}
+
+	/**
+	 * Get the items picked up since the last keyframe.
+	 *
+	 * @return the x and y coordinates of each item, which should not be changed.
+	 */
+	public IntArray getCollected() {
+		return collected;
+	}
+
+	/**
+	 * Get how the level ended.
+	 *
+	 * @return {@link SpectatorStream#QUIT}, {@link SpectatorStream#FINISHED}, {@link SpectatorStream#DIED}, or -1 if it is still being played.
+	 */
+	public int getLevelOver() {
+		return over;
+	}
+}
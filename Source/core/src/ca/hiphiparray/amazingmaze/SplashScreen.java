@@ -22,8 +22,11 @@ package ca.hiphiparray.amazingmaze;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
@@ -31,6 +34,8 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 /**
+ * The splash screen. Shows the company logo while the game's assets are loading.
+ *
  * @since 1.0.1
  * @author Vincent Macri
  * <br>
@@ -47,6 +52,19 @@ public class SplashScreen implements Screen {
 	/** The company logo. */
 	private Image logo;
 
+	/** Used to draw the loading bar. */
+	private final ShapeRenderer shapes;
+
+	/** How many milliseconds may be spent loading assets each frame. */
+	private static final int LOADING_BUDGET = 12;
+	/** The colour of the loading bar. */
+	private static final Color BAR_COLOUR = new Color(0.2f, 0.2f, 0.2f, 1);
+
+	/** If all of the assets have been loaded. */
+	private boolean loaded;
+	/** The loading progress shown on the loading bar. Eased towards the real progress so the bar moves smoothly. */
+	private float shownProgress;
+
 	/**
 	 * Create the splash screen.
 	 *
@@ -55,6 +73,9 @@ public class SplashScreen implements Screen {
 	public SplashScreen(final AmazingMazeGame game) {
 		this.game = game;
 		this.stage = new Stage(new ScreenViewport(), game.batch);
+		this.shapes = new ShapeRenderer();
+		this.loaded = false;
+		this.shownProgress = 0;
 
 		Table table = new Table();
 		table.setFillParent(true);
@@ -62,7 +83,7 @@ public class SplashScreen implements Screen {
 		stage.addActor(table);
 
 		logo = new Image(this.game.assets.manager.get(Assets.COMPANY_LOGO, Texture.class));
-		logo.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(1f), Actions.fadeOut(1f)));
+		logo.addAction(Actions.sequence(Actions.alpha(0), Actions.delay(1f), Actions.fadeIn(1f), Actions.delay(1f)));
 
 		table.add(logo);
 	}
@@ -76,16 +97,48 @@ public class SplashScreen implements Screen {
 		Gdx.gl.glClearColor(1, 1, 1, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-		if (!logo.hasActions()) {
-			game.setScreen(game.menuScreen);
+		if (!loaded) {
+			loaded = game.assets.update(LOADING_BUDGET);
+			if (loaded) {
+				game.setupScreens();
+				logo.addAction(Actions.after(Actions.fadeOut(1f)));
+			}
+		} else if (!logo.hasActions()) {
+			game.transition.start(game.menuScreen);
+			return;
 		}
 
 		stage.act(delta);
 		stage.draw();
+
+		drawLoadingBar(delta);
+	}
+
+	/**
+	 * Draw the loading bar along the bottom of the screen.
+	 *
+	 * @param delta the time passed since the last frame.
+	 */
+	private void drawLoadingBar(float delta) {
+		shownProgress = Math.min(game.assets.getProgress(), shownProgress + delta);
+		final float width = Gdx.graphics.getWidth() / 3f;
+		final float height = Gdx.graphics.getHeight() / 100f;
+		final float x = (Gdx.graphics.getWidth() - width) / 2f;
+		final float y = Gdx.graphics.getHeight() / 8f;
+
+		shapes.setProjectionMatrix(stage.getCamera().combined);
+		shapes.setColor(BAR_COLOUR);
+		shapes.begin(ShapeType.Line);
+		shapes.rect(x, y, width, height);
+		shapes.end();
+		shapes.begin(ShapeType.Filled);
+		shapes.rect(x, y, width * shownProgress, height);
+		shapes.end();
 	}
 
 	@Override
 	public void resize(int width, int height) {
+		stage.getViewport().update(width, height, true);
 	}
 
 	@Override
@@ -104,6 +157,7 @@ public class SplashScreen implements Screen {
 	@Override
 	public void dispose() {
 		stage.dispose();
+		shapes.dispose();
 	}
 
 }
@@ -95,7 +95,7 @@ public class StoryScreen implements Screen {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				if (continueButton.isPressed()) {
-					game.setScreen(new MazeScreen(game, false));
+					game.playLevel(null);
 				}
 			}
 		});
@@ -146,6 +146,7 @@ public class StoryScreen implements Screen {
 
 	@Override
 	public void resize(int width, int height) {
+		game.assets.refreshFonts(stage);
 	}
 
 	@Override
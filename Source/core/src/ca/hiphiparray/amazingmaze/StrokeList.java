@@ -0,0 +1,172 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * A drawing stored as a list of strokes, each of which is a tool and a polyline.
+ * All of the points are kept in one primitive array, so a stroke costs 8 bytes per point and no objects.
+ * <br>
+ * Undoing a stroke only hides it, so undo and redo are constant time.
+ * Starting a new stroke discards the strokes that were undone.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class StrokeList {
+
+	/** The coordinates of every point, as {@code x, y} pairs. */
+	private final FloatArray points;
+	/** The index of the first point of each stroke. */
+	private final IntArray starts;
+	/** The tool of each stroke. */
+	private final IntArray tools;
+	/** How many strokes are shown. Strokes past this have been undone. */
+	private int size;
+
+	/** Constructor for {@link StrokeList}. */
+	public StrokeList() {
+		points = new FloatArray(512);
+		starts = new IntArray(32);
+		tools = new IntArray(32);
+	}
+
+	/**
+	 * Start a new stroke, discarding any strokes that were undone.
+	 *
+	 * @param tool the tool the stroke is drawn with. Its meaning is up to the caller.
+	 */
+	public void begin(int tool) {
+		if (size < starts.size) {
+			points.size = 2 * starts.get(size);
+			starts.size = size;
+			tools.size = size;
+		}
+		starts.add(points.size / 2);
+		tools.add(tool);
+		size++;
+	}
+
+	/** Remove every stroke, including the ones that were undone. */
+	public void clear() {
+		points.clear();
+		starts.clear();
+		tools.clear();
+		size = 0;
+	}
+
+	/**
+	 * Add a point to the last stroke.
+	 *
+	 * @param x the x-coordinate of the point.
+	 * @param y the y-coordinate of the point.
+	 */
+	public void add(float x, float y) {
+		points.add(x);
+		points.add(y);
+	}
+
+	/**
+	 * Hide the last stroke.
+	 *
+	 * @return if there was a stroke to undo.
+	 */
+	public boolean undo() {
+		if (size == 0) {
+			return false;
+		}
+		size--;
+		return true;
+	}
+
+	/**
+	 * Show the last stroke that was undone again.
+	 *
+	 * @return if there was a stroke to redo.
+	 */
+	public boolean redo() {
+		if (size == starts.size) {
+			return false;
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * Get how many strokes are shown.
+	 *
+	 * @return the number of strokes that have not been undone.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the tool of a stroke.
+	 *
+	 * @param stroke the index of the stroke.
+	 * @return the tool passed to {@link #begin(int)}.
+	 */
+	public int getTool(int stroke) {
+		return tools.get(stroke);
+	}
+
+	/**
+	 * Get the first point of a stroke.
+	 *
+	 * @param stroke the index of the stroke.
+	 * @return the index of the stroke's first point.
+	 */
+	public int getStart(int stroke) {
+		return starts.get(stroke);
+	}
+
+	/**
+	 * Get the end of a stroke.
+	 *
+	 * @param stroke the index of the stroke.
+	 * @return the index after the stroke's last point.
+	 */
+	public int getEnd(int stroke) {
+		return stroke + 1 < starts.size ? starts.get(stroke + 1) : points.size / 2;
+	}
+
+	/**
+	 * Get the x-coordinate of a point.
+	 *
+	 * @param point the index of the point.
+	 * @return the x-coordinate.
+	 */
+	public float getX(int point) {
+		return points.get(2 * point);
+	}
+
+	/**
+	 * Get the y-coordinate of a point.
+	 *
+	 * @param point the index of the point.
+	 * @return the y-coordinate.
+	 */
+	public float getY(int point) {
+		return points.get(2 * point + 1);
+	}
+}
@@ -66,11 +66,11 @@ public final class TileIDs {
 	/** The value of the turn wire property. */
 	public static final int TURN = 100;
 
-	/** The value of the property for on electrical components. */
+	/** The electric state of on components. States are not part of tile IDs, see {@link MapFactory#getNetworkStates()}. */
 	public static final int ON = 10;
-	/** The value of the property for off electrical components. */
+	/** The electric state of off components. */
 	public static final int OFF = 20;
-	/** The value of the property for unknown electrical components. */
+	/** The electric state of components that have not been marked. */
 	public static final int UNKNOWN = 30;
 
 	/** The value of the property for an AND gate. */
@@ -109,20 +109,6 @@ public final class TileIDs {
 		return sum;
 	}
 
-	/**
-	 * Remove the electric status property from the given ID.
-	 *
-	 * @param currentID the ID of the electrical component.
-	 * @return the given ID, without the electric state.
-	 */
-	public static int stripElectricState(int currentID) {
-		int ones = currentID % 10;
-		currentID /= 100;
-		currentID *= 100;
-		currentID += ones;
-		return currentID;
-	}
-
 	/** Prevent the {@link TileIDs} class from being instantiated. */
 	private TileIDs() {
 	}
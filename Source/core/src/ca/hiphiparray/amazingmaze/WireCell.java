@@ -19,17 +19,15 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze;
 
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
-
 /**
- * A simple class that adds an on/off property to {@link Cell} for use in wire cells.
+ * A simple class that adds an on/off property to {@link ElectricCell} for use in wire cells.
  *
  * @since 0.2
  * @author Vincent Macri
  * <br>
  * Time (Vincent): 5 minutes
  */
-public class WireCell extends Cell {
+public class WireCell extends ElectricCell {
 
 	/** If the cell is on. */
 	private final boolean on;
@@ -37,9 +35,11 @@ public class WireCell extends Cell {
 	/**
 	 * Create a new wire cell.
 	 *
-	 * @param onindex
+	 * @param on if the wire is electrified.
+	 * @param network the index of the network in {@link MapFactory#getNetworkStates()}.
 	 */
-	public WireCell(boolean on) {
+	public WireCell(boolean on, int network) {
+		super(network);
 		this.on = on;
 	}
 
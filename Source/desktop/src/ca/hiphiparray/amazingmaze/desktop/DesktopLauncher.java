@@ -19,12 +19,17 @@
  *******************************************************************************/
 package ca.hiphiparray.amazingmaze.desktop;
 
+import java.net.InetSocketAddress;
+
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Files.FileType;
 import com.badlogic.gdx.Graphics.DisplayMode;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
 import ca.hiphiparray.amazingmaze.AmazingMazeGame;
+import ca.hiphiparray.amazingmaze.LeaderboardClient;
+import ca.hiphiparray.amazingmaze.SpectatorStream;
 
 /**
  * The main class.
@@ -35,6 +40,25 @@ import ca.hiphiparray.amazingmaze.AmazingMazeGame;
  * Time (Vincent): 10 minutes
  */
 public class DesktopLauncher {
+
+	/** The frame rate cap while the window has focus, unless overridden with {@link #FOREGROUND_FPS_OPTION}. */
+	private static final int FOREGROUND_FPS = 60;
+	/** The frame rate cap while the window is unfocused or minimized, unless overridden with {@link #BACKGROUND_FPS_OPTION}. */
+	private static final int BACKGROUND_FPS = 10;
+
+	/** The command line option to set the frame rate cap while the window has focus. 0 means uncapped. */
+	private static final String FOREGROUND_FPS_OPTION = "--fps=";
+	/** The command line option to set the frame rate cap while the window is unfocused. 0 means uncapped, -1 means paused. */
+	private static final String BACKGROUND_FPS_OPTION = "--background-fps=";
+	/** The command line option to share high scores with a {@link LeaderboardServer}, given as {@code host} or {@code host:port}. */
+	private static final String LEADERBOARD_OPTION = "--leaderboard=";
+	/** The command line option to stream the levels being played to a {@link SpectatorViewer}, given as {@code host} or {@code host:port}. */
+	private static final String SPECTATE_OPTION = "--spectator=";
+	/** The command line option to run the game logic on its own thread, at a fixed rate, instead of once per frame. */
+	private static final String SIMULATION_THREAD_OPTION = "--simulation-thread";
+	/** The command line option to log debugging information, like how long input takes to show up on the screen. */
+	private static final String DEBUG_OPTION = "--debug";
+
 	public static void main(String[] arg) {
 		System.setProperty("org.lwjgl.opengl.Display.allowSoftwareOpenGL", "true");
 
@@ -44,11 +68,59 @@ public class DesktopLauncher {
 		config.setFromDisplayMode(displayMode);
 		config.title = "Amazing Maze";
 		config.vSyncEnabled = true;
-		config.foregroundFPS = 0;
+		config.foregroundFPS = FOREGROUND_FPS;
+		config.backgroundFPS = BACKGROUND_FPS;
+		InetSocketAddress leaderboard = null;
+		InetSocketAddress spectator = null;
+		boolean simulationThread = false;
+		boolean debug = false;
+		for (String option : arg) {
+			try {
+				if (option.startsWith(FOREGROUND_FPS_OPTION)) {
+					config.foregroundFPS = Integer.parseInt(option.substring(FOREGROUND_FPS_OPTION.length()));
+				} else if (option.startsWith(BACKGROUND_FPS_OPTION)) {
+					config.backgroundFPS = Integer.parseInt(option.substring(BACKGROUND_FPS_OPTION.length()));
+				} else if (option.startsWith(LEADERBOARD_OPTION)) {
+					leaderboard = parseAddress(option.substring(LEADERBOARD_OPTION.length()), LeaderboardClient.DEFAULT_PORT);
+				} else if (option.startsWith(SPECTATE_OPTION)) {
+					spectator = parseAddress(option.substring(SPECTATE_OPTION.length()), SpectatorStream.DEFAULT_PORT);
+				} else if (option.equals(SIMULATION_THREAD_OPTION)) {
+					simulationThread = true;
+				} else if (option.equals(DEBUG_OPTION)) {
+					debug = true;
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Ignoring invalid option " + option);
+			}
+		}
 		config.addIcon("icons/128.png", FileType.Internal);
 		config.addIcon("icons/32.png", FileType.Internal);
 		config.addIcon("icons/16.png", FileType.Internal);
 
-		new LwjglApplication(new AmazingMazeGame(), config);
+		AmazingMazeGame game = new AmazingMazeGame(leaderboard == null ? null : leaderboard.getHostName(), leaderboard == null ? 0 : leaderboard.getPort(),
+			spectator == null ? null : spectator.getHostName(), spectator == null ? 0 : spectator.getPort());
+		game.setSimulationThread(simulationThread);
+		game.setLogLevel(debug ? Application.LOG_DEBUG : Application.LOG_INFO);
+		new LwjglApplication(game, config);
+	}
+
+	/**
+	 * Parse the address of a server, given as {@code host} or {@code host:port}.
+	 *
+	 * @param address the address to parse.
+	 * @param defaultPort the port to use if none is given.
+	 * @return the address, which is not resolved yet.
+	 * @throws NumberFormatException if the port is not a number from 0 to 65535.
+	 */
+	private static InetSocketAddress parseAddress(String address, int defaultPort) {
+		int colon = address.lastIndexOf(':');
+		if (colon == -1) {
+			return InetSocketAddress.createUnresolved(address, defaultPort);
+		}
+		int port = Integer.parseInt(address.substring(colon + 1));
+		if (port < 0 || port > 0xFFFF) {
+			throw new NumberFormatException("Port out of range: " + port);
+		}
+		return InetSocketAddress.createUnresolved(address.substring(0, colon), port);
 	}
 }
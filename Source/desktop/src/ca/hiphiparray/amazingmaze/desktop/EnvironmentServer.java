@@ -0,0 +1,247 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze.desktop;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import ca.hiphiparray.amazingmaze.MazeEnvironment;
+
+/**
+ * Serves a {@link MazeEnvironment} to reinforcement learning code over a local socket. No graphics are used.
+ * <br>
+ * The server only listens on the loopback address, and serves one client at a time. Everything is little-endian.
+ * When a client connects, the server sends the number of levels, their width, their height, and {@link MazeEnvironment#STATE_BYTES}, as ints.
+ * Then the client sends requests, each starting with a byte:
+ * <ul>
+ * <li>{@link #RESET}, the first level to reset and how many to reset as ints, then a long seed for each.
+ * The reply is all of the observations.</li>
+ * <li>{@link #STEP}, then a byte with the action for each level. The reply is the state part of the observations.</li>
+ * <li>{@link #OBSERVE}. The reply is all of the observations.</li>
+ * </ul>
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class EnvironmentServer {
+
+	/** Reset some of the levels. */
+	public static final byte RESET = 1;
+	/** Take a step in every level. */
+	public static final byte STEP = 2;
+	/** Get the observations. */
+	public static final byte OBSERVE = 3;
+
+	/** The port to listen on, unless overridden with {@link #PORT_OPTION}. */
+	private static final int PORT = 47801;
+	/** The number of levels, unless overridden with {@link #LEVELS_OPTION}. */
+	private static final int LEVELS = 1024;
+
+	/** The command line option to set the port to listen on. */
+	private static final String PORT_OPTION = "--port=";
+	/** The command line option to set the number of levels. */
+	private static final String LEVELS_OPTION = "--levels=";
+	/** The command line option to set which level of the game to copy the size of. */
+	private static final String SIZE_OPTION = "--size-of-level=";
+	/** The command line option to set the number of threads. */
+	private static final String THREADS_OPTION = "--threads=";
+
+	/** The environment being served. */
+	private final MazeEnvironment environment;
+	/** The socket accepting connections. */
+	private final ServerSocketChannel server;
+	/** Holds the requests. */
+	private final ByteBuffer request;
+
+	public static void main(String[] arg) throws IOException {
+		int port = PORT;
+		int levels = LEVELS;
+		int size = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (String option : arg) {
+			try {
+				if (option.startsWith(PORT_OPTION)) {
+					port = Integer.parseInt(option.substring(PORT_OPTION.length()));
+				} else if (option.startsWith(LEVELS_OPTION)) {
+					levels = Integer.parseInt(option.substring(LEVELS_OPTION.length()));
+				} else if (option.startsWith(SIZE_OPTION)) {
+					size = Integer.parseInt(option.substring(SIZE_OPTION.length()));
+				} else if (option.startsWith(THREADS_OPTION)) {
+					threads = Integer.parseInt(option.substring(THREADS_OPTION.length()));
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Ignoring invalid option " + option);
+			}
+		}
+
+		EnvironmentServer server = new EnvironmentServer(new MazeEnvironment(levels, size, threads), port);
+		System.out.println("Serving " + levels + " levels on port " + server.getPort() + " with " + threads + " threads");
+		server.run();
+	}
+
+	/**
+	 * Constructor for {@link EnvironmentServer}.
+	 *
+	 * @param environment the environment to serve.
+	 * @param port the port to listen on, or 0 to pick any free port.
+	 * @throws IOException if the port could not be opened.
+	 */
+	public EnvironmentServer(MazeEnvironment environment, int port) throws IOException {
+		this.environment = environment;
+		server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress(InetAddress.getByName(null), port));
+		request = ByteBuffer.allocateDirect(9 + 8 * environment.getCount()).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Get the port the server is listening on.
+	 *
+	 * @return the port.
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/** Serve clients, one at a time, until {@link #close()} is called. */
+	public void run() {
+		while (server.isOpen()) {
+			SocketChannel client = null;
+			try {
+				client = server.accept();
+				client.socket().setTcpNoDelay(true);
+				serve(client);
+			} catch (EOFException e) {
+			} catch (IOException e) {
+				if (server.isOpen()) {
+					System.err.println("Dropping client: " + e);
+				}
+			} finally {
+				if (client != null) {
+					try {
+						client.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+		}
+	}
+
+	/** Stop serving clients and stop the environment. */
+	public void close() {
+		try {
+			server.close();
+		} catch (IOException e) {
+		}
+		environment.dispose();
+	}
+
+	/**
+	 * Answer a client's requests until it disconnects.
+	 *
+	 * @param client the client.
+	 * @throws IOException if the client disconnected or sent an invalid request.
+	 */
+	private void serve(SocketChannel client) throws IOException {
+		final int count = environment.getCount();
+		request.clear();
+		request.putInt(count).putInt(environment.getWidth()).putInt(environment.getHeight()).putInt(MazeEnvironment.STATE_BYTES);
+		request.flip();
+		write(client, request);
+
+		while (true) {
+			read(client, 1);
+			byte type = request.get(0);
+			if (type == RESET) {
+				read(client, 8);
+				int first = request.getInt(0);
+				int reset = request.getInt(4);
+				if (first < 0 || reset < 0 || first > count - reset) {
+					throw new IOException("Invalid levels to reset: " + reset + " from " + first);
+				}
+				read(client, 8 * reset);
+				long[] seeds = new long[reset];
+				for (int i = 0; i < reset; i++) {
+					seeds[i] = request.getLong(8 * i);
+				}
+				environment.reset(first, seeds);
+				writeObservations(client, environment.getObservations().capacity());
+			} else if (type == STEP) {
+				read(client, count);
+				environment.step(request);
+				writeObservations(client, environment.getStateSize());
+			} else if (type == OBSERVE) {
+				writeObservations(client, environment.getObservations().capacity());
+			} else {
+				throw new IOException("Unknown request " + type);
+			}
+		}
+	}
+
+	/**
+	 * Read part of a request into the start of {@link #request}.
+	 *
+	 * @param client the client to read from.
+	 * @param length how many bytes to read.
+	 * @throws IOException if the client disconnected.
+	 */
+	private void read(SocketChannel client, int length) throws IOException {
+		request.clear();
+		request.limit(length);
+		while (request.hasRemaining()) {
+			if (client.read(request) == -1) {
+				throw new EOFException();
+			}
+		}
+		request.flip();
+	}
+
+	/**
+	 * Send the start of the observations, straight from the shared buffer.
+	 *
+	 * @param client the client to send them to.
+	 * @param length how many bytes to send.
+	 * @throws IOException if the client disconnected.
+	 */
+	private void writeObservations(SocketChannel client, int length) throws IOException {
+		ByteBuffer observations = environment.getObservations().duplicate();
+		observations.clear();
+		observations.limit(length);
+		write(client, observations);
+	}
+
+	/**
+	 * Send everything that is left in a buffer.
+	 *
+	 * @param client the client to send it to.
+	 * @param buffer the buffer to send.
+	 * @throws IOException if the client disconnected.
+	 */
+	private static void write(SocketChannel client, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			client.write(buffer);
+		}
+	}
+}
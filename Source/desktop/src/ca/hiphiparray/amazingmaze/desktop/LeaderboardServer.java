@@ -0,0 +1,440 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import com.badlogic.gdx.utils.StreamUtils;
+
+import ca.hiphiparray.amazingmaze.LeaderboardClient;
+
+/**
+ * A shared leaderboard for a classroom, meant to be run on the teacher's computer.
+ * The game sends its scores here when started with the {@code --leaderboard=host:port} option.
+ * <br>
+ * Scores are kept in a lock-free skip list ordered from best to worst, so any number of connections can submit and query at once.
+ * Every score is also appended to a journal file, so the leaderboard survives a restart.
+ * The journal uses the same records as {@link ca.hiphiparray.amazingmaze.HighScoreTable}: the length of the record, its contents,
+ * and a CRC32 checksum of its contents. Loading stops at the first damaged record and cuts the journal off there.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class LeaderboardServer {
+
+	/** The command line option to set the port to listen on. */
+	private static final String PORT_OPTION = "--port=";
+	/** The command line option to set the journal file. */
+	private static final String JOURNAL_OPTION = "--journal=";
+	/** The journal file, unless overridden with {@link #JOURNAL_OPTION}. */
+	private static final String JOURNAL_FILE = "leaderboard.journal";
+
+	/** How many connections are handled at the same time. A classroom has about 30 computers. */
+	private static final int WORKERS = 8;
+	/** The most top scores that can be asked for at once. */
+	private static final int MAX_TOP = 100;
+	/** The longest name that is kept, matching {@link ca.hiphiparray.amazingmaze.HighScore}. */
+	private static final int MAX_NAME = 53;
+	/** How long an idle connection is kept open, in milliseconds. */
+	private static final int IDLE_TIMEOUT = 10000;
+	/** The longest a valid journal record can be, in bytes. Anything longer must be corrupt. */
+	private static final int MAX_RECORD_LENGTH = 1024;
+
+	/** The socket accepting connections. */
+	private final ServerSocket server;
+	/** Handles the connections. */
+	private final ExecutorService workers;
+	/** The scores, best first. */
+	private final ScoreIndex index;
+	/** The journal the scores are appended to. Guarded by itself. */
+	private final RandomAccessFile journal;
+
+	public static void main(String[] arg) throws IOException {
+		int port = LeaderboardClient.DEFAULT_PORT;
+		File journal = new File(JOURNAL_FILE);
+		for (String option : arg) {
+			try {
+				if (option.startsWith(PORT_OPTION)) {
+					port = Integer.parseInt(option.substring(PORT_OPTION.length()));
+				} else if (option.startsWith(JOURNAL_OPTION)) {
+					journal = new File(option.substring(JOURNAL_OPTION.length()));
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Ignoring invalid option " + option);
+			}
+		}
+
+		LeaderboardServer leaderboard = new LeaderboardServer(port, journal);
+		System.out.println("Leaderboard listening on port " + leaderboard.getPort() + " with " + leaderboard.index.size() + " scores from " + journal);
+		leaderboard.run();
+	}
+
+	/**
+	 * Constructor for {@link LeaderboardServer}. Loads the scores from the journal and opens the port.
+	 *
+	 * @param port the port to listen on, or 0 to pick any free port.
+	 * @param journalFile the journal file to load and append the scores to.
+	 * @throws IOException if the journal could not be read or the port could not be opened.
+	 */
+	public LeaderboardServer(int port, File journalFile) throws IOException {
+		index = new ScoreIndex();
+		journal = new RandomAccessFile(journalFile, "rw");
+		try {
+			load(journalFile);
+			server = new ServerSocket(port);
+		} catch (IOException e) {
+			journal.close();
+			throw e;
+		}
+		workers = Executors.newFixedThreadPool(WORKERS);
+	}
+
+	/**
+	 * Get the port the server is listening on.
+	 *
+	 * @return the port.
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/** Accept connections until {@link #close()} is called. */
+	public void run() {
+		while (!server.isClosed()) {
+			try {
+				final Socket socket = server.accept();
+				workers.execute(new Runnable() {
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (IOException e) {
+				if (!server.isClosed()) {
+					System.err.println("Could not accept a connection: " + e);
+				}
+			}
+		}
+	}
+
+	/** Stop accepting connections and close the journal once the current requests are done. */
+	public void close() {
+		try {
+			server.close();
+		} catch (IOException e) {
+		}
+		workers.shutdown();
+		synchronized (journal) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Read the scores in the journal. If the end of the journal is damaged, it is cut off.
+	 *
+	 * @param journalFile the journal file.
+	 * @throws IOException if the journal could not be read.
+	 */
+	private void load(File journalFile) throws IOException {
+		long valid = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+		try {
+			CRC32 checksum = new CRC32();
+			byte[] record = new byte[MAX_RECORD_LENGTH];
+			while (true) {
+				int length = in.readInt();
+				if (length <= 0 || length > MAX_RECORD_LENGTH) {
+					break;
+				}
+				in.readFully(record, 0, length);
+				int expected = in.readInt();
+				checksum.reset();
+				checksum.update(record, 0, length);
+				if ((int) checksum.getValue() != expected) {
+					break;
+				}
+				DataInputStream contents = new DataInputStream(new ByteArrayInputStream(record, 0, length));
+				try {
+					String name = contents.readUTF();
+					index.add(name, contents.readInt());
+				} catch (IOException e) {
+					System.err.println("Skipping malformed record in the journal: " + e);
+				}
+				valid += length + 8;
+			}
+		} catch (EOFException e) {
+			// The end of the journal, or the last record was cut off.
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+		if (valid != journal.length()) {
+			System.err.println("Dropping " + (journal.length() - valid) + " damaged bytes from the end of the journal.");
+			journal.setLength(valid);
+		}
+		journal.seek(valid);
+	}
+
+	/**
+	 * Answer the requests on a connection until the client closes it.
+	 *
+	 * @param socket the connection.
+	 */
+	private void serve(Socket socket) {
+		try {
+			socket.setSoTimeout(IDLE_TIMEOUT);
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			while (true) {
+				int request = in.read();
+				if (request == -1) {
+					break;
+				} else if (request == LeaderboardClient.SUBMIT) {
+					String name = in.readUTF();
+					if (name.length() > MAX_NAME) {
+						name = name.substring(0, MAX_NAME);
+					}
+					out.writeInt(submit(name, in.readInt()));
+				} else if (request == LeaderboardClient.TOP) {
+					writeTop(out, Math.max(0, Math.min(MAX_TOP, in.readInt())));
+				} else if (request == LeaderboardClient.RANK) {
+					out.writeInt(index.rank(in.readInt()));
+				} else {
+					throw new IOException("Unknown request " + request);
+				}
+				out.flush();
+			}
+		} catch (SocketException e) {
+		} catch (IOException e) {
+			System.err.println("Dropping connection from " + socket.getInetAddress() + ": " + e);
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Add a score to the leaderboard and the journal.
+	 *
+	 * @param name the name of the player.
+	 * @param score the score.
+	 * @return the rank of the score, starting from 1.
+	 * @throws IOException if the score could not be written to the journal.
+	 */
+	private int submit(String name, int score) throws IOException {
+		ByteArrayOutputStream contentBytes = new ByteArrayOutputStream();
+		DataOutputStream contents = new DataOutputStream(contentBytes);
+		contents.writeUTF(name);
+		contents.writeInt(score);
+		CRC32 checksum = new CRC32();
+		checksum.update(contentBytes.toByteArray());
+
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		DataOutputStream record = new DataOutputStream(recordBytes);
+		record.writeInt(contentBytes.size());
+		contentBytes.writeTo(record);
+		record.writeInt((int) checksum.getValue());
+		synchronized (journal) { // One write per record, so a crash can only damage the last one.
+			journal.write(recordBytes.toByteArray());
+		}
+		index.add(name, score);
+		return index.rank(score);
+	}
+
+	/**
+	 * Write the top scores.
+	 *
+	 * @param out the stream to write to.
+	 * @param count how many scores to write, at most.
+	 * @throws IOException if writing failed.
+	 */
+	private void writeTop(DataOutputStream out, int count) throws IOException {
+		Entry[] top = new Entry[count];
+		int size = 0;
+		for (Iterator<Entry> iterator = index.iterator(); size < count && iterator.hasNext(); size++) {
+			top[size] = iterator.next();
+		}
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeUTF(top[i].name);
+			out.writeInt(top[i].score);
+		}
+	}
+
+	/**
+	 * The scores on the leaderboard, ordered from best to worst.
+	 * Equal scores are ordered by when they were submitted, the earliest first.
+	 * <br>
+	 * Ranks come from a Fenwick tree with a count for each score from 0 up to {@link #COUNTED_SCORES}, so they take O(log n) time.
+	 * Scores outside of that range are not counted, so finding the rank walks the skip list over them instead.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	private static class ScoreIndex {
+
+		/** The scores {@link #counts} has a count for are from 0 up to this, not including it. No level gives anywhere near this many points. */
+		private static final int COUNTED_SCORES = 1 << 16;
+
+		/** The scores. */
+		private final ConcurrentSkipListSet<Entry> entries;
+		/** Counts the submitted scores, to tell equal scores apart. */
+		private final AtomicLong submitted;
+		/**
+		 * A Fenwick tree of how many times each score was got, indexed from 1. Index {@code i} is for the score {@code COUNTED_SCORES - i},
+		 * so the best scores come first and the sum up to an index is the number of scores that are at least as good.
+		 */
+		private final AtomicIntegerArray counts;
+
+		/** Constructor for {@link ScoreIndex}. */
+		public ScoreIndex() {
+			entries = new ConcurrentSkipListSet<Entry>();
+			submitted = new AtomicLong();
+			counts = new AtomicIntegerArray(COUNTED_SCORES + 1);
+		}
+
+		/**
+		 * Add a score.
+		 *
+		 * @param name the name of the player.
+		 * @param score the score.
+		 */
+		public void add(String name, int score) {
+			entries.add(new Entry(name, score, submitted.getAndIncrement()));
+			if (score >= 0 && score < COUNTED_SCORES) {
+				for (int i = COUNTED_SCORES - score; i <= COUNTED_SCORES; i += i & -i) {
+					counts.incrementAndGet(i);
+				}
+			}
+		}
+
+		/**
+		 * Get the rank a score has, which is one more than the number of better scores.
+		 *
+		 * @param score the score.
+		 * @return the rank, starting from 1.
+		 */
+		public int rank(int score) {
+			if (score >= COUNTED_SCORES - 1) {
+				return entries.headSet(new Entry("", score, Long.MIN_VALUE)).size() + 1;
+			}
+			int better = entries.headSet(new Entry("", COUNTED_SCORES - 1, Long.MIN_VALUE)).size();
+			if (score >= 0) {
+				return better + countBetter(COUNTED_SCORES - score - 1) + 1;
+			}
+			better += countBetter(COUNTED_SCORES);
+			return better + entries.subSet(new Entry("", -1, Long.MIN_VALUE), new Entry("", score, Long.MIN_VALUE)).size() + 1;
+		}
+
+		/**
+		 * Sum the counts in {@link #counts} up to an index.
+		 *
+		 * @param index the last index to include.
+		 * @return how many scores from 0 up to {@link #COUNTED_SCORES} are at least {@code COUNTED_SCORES - index}.
+		 */
+		private int countBetter(int index) {
+			int sum = 0;
+			for (int i = index; i > 0; i -= i & -i) {
+				sum += counts.get(i);
+			}
+			return sum;
+		}
+
+		/**
+		 * Get the scores, best first.
+		 *
+		 * @return an iterator over the scores.
+		 */
+		public Iterator<Entry> iterator() {
+			return entries.iterator();
+		}
+
+		/**
+		 * Get the number of scores.
+		 *
+		 * @return the number of scores.
+		 */
+		public int size() {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * A score on the leaderboard.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		/** The name of the player. */
+		private final String name;
+		/** The score. */
+		private final int score;
+		/** The order the score was submitted in. */
+		private final long order;
+
+		/**
+		 * Constructor for {@link Entry}.
+		 *
+		 * @param name the name of the player.
+		 * @param score the score.
+		 * @param order the order the score was submitted in.
+		 */
+		public Entry(String name, int score, long order) {
+			this.name = name;
+			this.score = score;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			if (score != o.score) {
+				return score > o.score ? -1 : 1;
+			}
+			return order < o.order ? -1 : (order == o.order ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze.desktop;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ca.hiphiparray.amazingmaze.SpectatorStream;
+import ca.hiphiparray.amazingmaze.SpectatorView;
+import ca.hiphiparray.amazingmaze.TileIDs;
+
+/**
+ * Receives the levels streamed by every student's game, for a teacher to watch.
+ * The game streams to it when started with the {@code --spectator=host:port} option.
+ * <br>
+ * Every connection is handled by one thread with a {@link Selector}, so a whole classroom costs no more than one student.
+ * This stand-in viewer prints a line for each student once a second; a graphical viewer can draw thumbnails from the same {@link SpectatorView}s.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class SpectatorViewer {
+
+	/** The command line option to set the port to listen on. */
+	private static final String PORT_OPTION = "--port=";
+	/** The size of the receive buffer of each connection. Larger than any keyframe. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** How often the students are printed, in milliseconds. */
+	private static final long PRINT_INTERVAL = 1000;
+
+	/** Waits for connections and frames. */
+	private final Selector selector;
+	/** The socket accepting connections. */
+	private final ServerSocketChannel server;
+	/** What is known about each student's game, by session ID, in the order they connected. */
+	private final Map<Long, SpectatorView> students;
+
+	public static void main(String[] arg) throws IOException {
+		int port = SpectatorStream.DEFAULT_PORT;
+		for (String option : arg) {
+			try {
+				if (option.startsWith(PORT_OPTION)) {
+					port = Integer.parseInt(option.substring(PORT_OPTION.length()));
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Ignoring invalid option " + option);
+			}
+		}
+
+		SpectatorViewer viewer = new SpectatorViewer(port);
+		System.out.println("Watching for students on port " + viewer.getPort());
+		long nextPrint = System.currentTimeMillis() + PRINT_INTERVAL;
+		while (true) {
+			viewer.poll(Math.max(1, nextPrint - System.currentTimeMillis()));
+			if (System.currentTimeMillis() >= nextPrint) {
+				nextPrint += PRINT_INTERVAL;
+				viewer.print();
+			}
+		}
+	}
+
+	/**
+	 * Constructor for {@link SpectatorViewer}.
+	 *
+	 * @param port the port to listen on, or 0 to pick any free port.
+	 * @throws IOException if the port could not be opened.
+	 */
+	public SpectatorViewer(int port) throws IOException {
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.configureBlocking(false);
+		server.socket().bind(new InetSocketAddress(port));
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		students = new LinkedHashMap<Long, SpectatorView>();
+	}
+
+	/**
+	 * Get the port the viewer is listening on.
+	 *
+	 * @return the port.
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * Get what is known about each student's game.
+	 *
+	 * @return the games, by session ID.
+	 */
+	public Map<Long, SpectatorView> getStudents() {
+		return students;
+	}
+
+	/**
+	 * Accept new connections and apply the frames that have arrived.
+	 *
+	 * @param timeout how long to wait for something to happen, in milliseconds.
+	 * @throws IOException if the selector failed.
+	 */
+	public void poll(long timeout) throws IOException {
+		selector.select(timeout);
+		Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+			if (!key.isValid()) {
+				continue;
+			}
+			if (key.isAcceptable()) {
+				SocketChannel client = server.accept();
+				if (client != null) {
+					client.configureBlocking(false);
+					client.register(selector, SelectionKey.OP_READ, new Connection());
+				}
+			} else if (key.isReadable()) {
+				read(key);
+			}
+		}
+	}
+
+	/**
+	 * Read and apply the frames from a connection, and close it if it ended or sent something invalid.
+	 *
+	 * @param key the key of the connection.
+	 */
+	private void read(SelectionKey key) {
+		SocketChannel client = (SocketChannel) key.channel();
+		Connection connection = (Connection) key.attachment();
+		boolean valid;
+		try {
+			valid = client.read(connection.buffer) != -1;
+			connection.buffer.flip();
+			valid &= connection.view.apply(connection.buffer);
+			if (connection.buffer.position() == 0 && connection.buffer.limit() == connection.buffer.capacity()) {
+				valid = false; // A frame too large to ever fit.
+			}
+			connection.buffer.compact();
+		} catch (IOException e) {
+			valid = false;
+		} catch (RuntimeException e) { // A malformed frame.
+			valid = false;
+		}
+		if (connection.view.getSession() != 0) {
+			students.put(connection.view.getSession(), connection.view);
+		}
+		if (!valid) {
+			key.cancel();
+			try {
+				client.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/** Print a line for each student. */
+	private void print() {
+		StringBuilder out = new StringBuilder();
+		out.append(students.size()).append(" students\n");
+		for (Map.Entry<Long, SpectatorView> entry : students.entrySet()) {
+			SpectatorView view = entry.getValue();
+			int marked = 0;
+			for (int i = 0; i < view.getGateStates().size; i++) {
+				if (view.getGateStates().get(i) != TileIDs.UNKNOWN) {
+					marked++;
+				}
+			}
+			out.append(String.format("  %016x  level %3d  x %6.2f / %3d  y %5.2f  lives %2d  gates marked %2d / %2d  items %2d  %s%n", entry.getKey(), view.getLevel(),
+				view.getX(), view.getMapWidth(), view.getY(), view.getLives(), marked, view.getGateStates().size, view.getCollected().size / 2, getStatus(view)));
+		}
+		System.out.print(out);
+	}
+
+	/**
+	 * Describe how the level a student is playing is going.
+	 *
+	 * @param view the student's game.
+	 * @return the description.
+	 */
+	private static String getStatus(SpectatorView view) {
+		switch (view.getLevelOver()) {
+			case SpectatorStream.QUIT:
+				return "quit";
+			case SpectatorStream.FINISHED:
+				return "finished";
+			case SpectatorStream.DIED:
+				return "out of lives";
+			default:
+				return "playing";
+		}
+	}
+
+	/**
+	 * A connection from a student's game.
+	 *
+	 * @since 1.1
+	 * @author Vincent Macri
+	 */
+	private static class Connection {
+		/** The frames that have arrived but not been applied yet. */
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		/** What is known about the student's game. */
+		private final SpectatorView view = new SpectatorView();
+	}
+}
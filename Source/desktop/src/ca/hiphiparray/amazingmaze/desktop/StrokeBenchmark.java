@@ -0,0 +1,91 @@
+/********************************************************************************
+ * Amazing Maze is an educational game created in Java with the libGDX library.
+ * Copyright (C) 2017 Hip Hip Array
+ *
+ * This file is part of Amazing Maze.
+ *
+ * Amazing Maze is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Amazing Maze is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Amazing Maze. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package ca.hiphiparray.amazingmaze.desktop;
+
+import java.util.Random;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import ca.hiphiparray.amazingmaze.BrushRasterizer;
+
+/**
+ * Measures how many canvas strokes per millisecond the {@link BrushRasterizer} can draw,
+ * at the pencil and eraser sizes used by the fish minigame.
+ * <br>
+ * Each stroke is one segment between two mouse positions, like a single drag event.
+ *
+ * @since 1.1
+ * @author Vincent Macri
+ */
+public class StrokeBenchmark {
+
+	/** The width of the canvas, matching a 1080p screen. */
+	private static final int WIDTH = 1920;
+	/** The height of the canvas, matching a 1080p screen minus the minigame's shift. */
+	private static final int HEIGHT = 1000;
+	/** The longest stroke segment, in pixels along each axis. */
+	private static final int MAX_SEGMENT = 40;
+	/** How many strokes are drawn before measuring, to let the JIT compiler warm up. */
+	private static final int WARMUP_STROKES = 200000;
+	/** How many strokes are measured. */
+	private static final int MEASURED_STROKES = 1000000;
+	/** The brush radii to measure: the pencil and the eraser. */
+	private static final int[] RADII = {1, 5};
+
+	public static void main(String[] arg) {
+		GdxNativesLoader.load();
+
+		Pixmap pixmap = new Pixmap(WIDTH, HEIGHT, Pixmap.Format.RGB565);
+		pixmap.setColor(Color.LIGHT_GRAY);
+		try {
+			for (int radius : RADII) {
+				BrushRasterizer brush = new BrushRasterizer(pixmap, radius);
+				run(brush, WARMUP_STROKES);
+				long start = System.nanoTime();
+				run(brush, MEASURED_STROKES);
+				double millis = (System.nanoTime() - start) / 1e6;
+				System.out.printf("Radius %d: %.1f strokes/ms (%d strokes in %.1f ms)%n", radius, MEASURED_STROKES / millis, MEASURED_STROKES, millis);
+			}
+		} finally {
+			pixmap.dispose();
+		}
+	}
+
+	/**
+	 * Draw a connected series of random stroke segments, like a pen moving across the canvas.
+	 *
+	 * @param brush the brush to draw with.
+	 * @param strokes how many segments to draw.
+	 */
+	private static void run(BrushRasterizer brush, int strokes) {
+		Random random = new Random(0);
+		int x = WIDTH / 2;
+		int y = HEIGHT / 2;
+		for (int i = 0; i < strokes; i++) {
+			int nextX = Math.max(0, Math.min(WIDTH - 1, x + random.nextInt(2 * MAX_SEGMENT + 1) - MAX_SEGMENT));
+			int nextY = Math.max(0, Math.min(HEIGHT - 1, y + random.nextInt(2 * MAX_SEGMENT + 1) - MAX_SEGMENT));
+			brush.drawLine(x, y, nextX, nextY);
+			x = nextX;
+			y = nextY;
+		}
+	}
+}